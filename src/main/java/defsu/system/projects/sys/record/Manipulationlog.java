@@ -13,6 +13,9 @@ import jakarta.persistence.criteria.Root;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+import java.util.Map;
+
 
 public class Manipulationlog extends MapUserlog implements SuRecord {
     private boolean empty = true;
@@ -42,21 +45,29 @@ public class Manipulationlog extends MapUserlog implements SuRecord {
     }
 
 
-    public static byte[] getLastLog(byte[] targetFK) {
-        CriteriaBuilder builder = HibernateCore.getMainSessionFactory().getCriteriaBuilder();
-        CriteriaQuery<MapUserlog> criteria = builder.createQuery(MapUserlog.class);
-        Root<MapUserlog> root = criteria.from(MapUserlog.class);
-        criteria.select(root).where(
-                builder.equal(root.get("visible"),true),
-                builder.equal(root.get("manipulationLogTargetFK"), targetFK)
-        ).orderBy(builder.desc(root.get("createdDate")));
-        ObjectCore.ListResult result = ObjectCore.list(Manipulationlog.class, criteria);
-        if(result.records.size()>0){
-            Manipulationlog ml = (Manipulationlog) result.records.get(0);
-            return ml.getManipulationLogData();
-        }else{
-            return RecordCore.i2B(0);
-        }
+    /**
+     * Kaydın log geçmişi; her eleman o logdaki tam alan değerleridir (eskiden yeniye). Sıra loglardaki yazılış
+     * numarasıdır (ChangeLogCodec.replay); tarih sırası sadece numarası olmayan eski loglar için kullanılır.
+     */
+    public static List<Map<String, Object>> getHistory(byte[] targetFK) {
+        return HibernateCore.read(session -> {
+            CriteriaBuilder builder = session.getCriteriaBuilder();
+            CriteriaQuery<byte[]> criteria = builder.createQuery(byte[].class);
+            Root<MapUserlog> root = criteria.from(MapUserlog.class);
+            criteria.select(root.get("manipulationLogData")).where(
+                    builder.equal(root.get("manipulationLogTargetFK"), targetFK)
+            ).orderBy(builder.asc(root.get("createdDate")), builder.asc(root.get("manipulationLogDT")));
+            return ChangeLogCodec.replay(session.createQuery(criteria).getResultList());
+        });
+    }
+
+    /**
+     * Kaydın son loglanan durumu (alan adı -> değer); log yoksa null. Loglar delta olarak tutulduğu için
+     * manipulationLogData yerine geçmişten kurulan tam durum döner.
+     */
+    public static Map<String, Object> getLastLog(byte[] targetFK) {
+        List<Map<String, Object>> history = getHistory(targetFK);
+        return history == null || history.isEmpty() ? null : history.get(history.size() - 1);
     }
 
     @Override
@@ -53,8 +53,8 @@ public class CityService extends MapService {
                     WSUpdateCore.subscribe(City.class);
                     ServerObject args = (ServerObject) params.get("ARGS");
                     StringDictionary<String> mem = args.memory;
-                    MapService.appendSort(mem, "accountListCode", "A");
-                   // response.setListResult(ObjectCore.listAsRecordRow(City.class, mem));
+                    MapService.appendSort(mem, "cityName", "A");
+                    response.setListResult(ObjectCore.listAsRecordRow(City.class, mem));
 
                     response.setStatusCode("100");
                     return response;
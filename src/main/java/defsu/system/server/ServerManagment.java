@@ -3,6 +3,8 @@ package defsu.system.server;
 import defsu.system.SystemApplication;
 import defsu.system.server.core.ConnectionCore;
 import defsu.system.server.core.HttpCore;
+import defsu.system.server.core.NioConnectionCore;
+import defsu.system.server.core.StaticAssetCache;
 import defsu.system.server.endpoints.MainPage;
 import defsu.system.server.utils.Logger;
 import org.reflections.Reflections;
@@ -13,10 +15,17 @@ import java.util.List;
 public class ServerManagment {
 
     public static int port = 1921;
+    // true ise bağlantılar thread-per-socket yerine NIO selector üzerinden karşılanır
+    public static boolean useNio = false;
+    public static int nioEventLoops = Runtime.getRuntime().availableProcessors();
+    public static int nioWorkers = 64;
+    // true ise ClientHandler ve UpdateHandler sanal thread'lerde çalışır
+    public static boolean useVirtualThreads = false;
     public static String rootFolder = "./";
     private static final ArrayList<ServerManagment.BeforeStartEvents> startEventList = new ArrayList<>();
     private static final ArrayList<ServerManagment.UpdateEvents> updateEventList = new ArrayList<>();
     protected static ConnectionCore connectionCore;
+    protected static NioConnectionCore nioConnectionCore;
     public static String VERSION = "5.0.0";
 
     public static ConnectionCore getConnectionHandler() {
@@ -24,7 +33,11 @@ public class ServerManagment {
     }
     public static void main(String[] args) {
         System.out.println("Server is running...");
-        if (connectionCore == null) {
+        if (useNio) {
+            if (nioConnectionCore == null) {
+                nioConnectionCore = new NioConnectionCore(port, nioEventLoops, nioWorkers);
+            }
+        } else if (connectionCore == null) {
             connectionCore = new ConnectionCore(port);
         }
         HttpCore.add("/", new MainPage());
@@ -55,7 +68,12 @@ public class ServerManagment {
                 Logger.Error(e, "Error on start event", true);
             }
         }
-        connectionCore.startListening();
+        StaticAssetCache.preload();
+        if (useNio) {
+            nioConnectionCore.startListening();
+        } else {
+            connectionCore.startListening();
+        }
     }
 
     public static void addStartEvent(ServerManagment.BeforeStartEvents event) {
@@ -8,6 +8,7 @@ import defsu.system.server.helpers.SuField;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 
@@ -15,7 +16,7 @@ public class Combo extends Component {
     private static final long serialVersionUID = 4747400492150320627L;
     private List<Component> _components = new ArrayList<>();
     private SuField _field;
-    private static final List<ComboRegister> _registers = new ArrayList<>();
+    private static final List<ComboRegister> _registers = new CopyOnWriteArrayList<>();
     private static boolean isWatchingChanges = false;
 
     public static void watchChanges() {
@@ -135,10 +136,7 @@ public class Combo extends Component {
         if (isWatchingChanges) {
             for (ComboRegister reg : _registers) {
                 if (reg.target.equals(cls)) {
-                    ComboAdapter adapter = reg.combo.getComboAdapter();
-                    if (adapter instanceof DynamicComboAdapter) {
-                        ((DynamicComboAdapter) adapter).resetPairs();
-                    }
+                    // Liste ComboCache'te kayıt/silme olayıyla güncellendiği için yeniden yüklenmez.
                     reg.combo.addConfig(new Conf[]{reg.combo.getPairs()});
                 }
             }
@@ -0,0 +1,275 @@
+package defsu.system.server.components;
+
+import defsu.system.server.core.HibernateCore;
+import defsu.system.server.core.ObjectCore;
+import defsu.system.server.core.PojoMapper;
+import defsu.system.server.core.RecordCore;
+import defsu.system.server.core.SuRecord;
+import defsu.system.server.core.UnitOfWork;
+import defsu.system.server.helpers.ForeignKeyPair;
+import defsu.system.server.utils.Logger;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DynamicComboAdapter'ların ortak önbelleği; (adapter sınıfı, hedef sınıf, ad alanı, sıra alanı) başına bir liste.
+ * Çiftler adapter'ın generate metoduyla üretilir; generate'i değiştiren adapter sınıfları kendi listelerini alır.
+ * Okuyucular kilitsiz olarak değişmez bir Snapshot görür; yükleme ve güncellemeler yeni Snapshot üretir.
+ * Kayıt/silme olayları listeyi yeniden yüklemeden tek satır ekler/çıkarır. Aynı anda gelen yenileme
+ * istekleri tek yüklemede birleşir. Listede olmayan anahtarlar tek kayıt okunarak çözülür.
+ */
+public final class ComboCache {
+    public static int FALLBACK_LIMIT = 10_000;
+    private static final String NOT_FOUND = new String("");
+    private static final Collator COLLATOR = Collator.getInstance(Locale.forLanguageTag("tr"));
+
+    private static final Map<Key, Entry> _entries = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Entry>> _byTarget = new ConcurrentHashMap<>();
+
+    private record Key(Class<?> adapter, Class<? extends SuRecord> target, String nameField, String orderField) {
+    }
+
+    private record Item(byte[] key, ForeignKeyPair pair, Object order) {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object> ORDER = (a, b) -> {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof String sa && b instanceof String sb) {
+            return COLLATOR.compare(sa, sb);
+        }
+        return a instanceof Comparable ? ((Comparable) a).compareTo(b) : 0;
+    };
+
+    /**
+     * Bir listenin değişmez hali. pairs ve hash paylaşılır, değiştirilmemelidir.
+     */
+    public static final class Snapshot {
+        final long generation;
+        final List<Item> items;
+        public final List<ForeignKeyPair> pairs;
+        public final HashMap<String, ForeignKeyPair> hash;
+        // Listede olmayan (görünmez veya silinmiş) anahtarların tek kayıt sorgusu sonuçları
+        final Map<String, String> fallback = new ConcurrentHashMap<>();
+
+        private Snapshot(long generation, List<Item> items) {
+            this.generation = generation;
+            this.items = items;
+            List<ForeignKeyPair> pairs = new ArrayList<>(items.size() + 1);
+            pairs.add(new ForeignKeyPair(RecordCore.i2B(0), "Lütfen Seçiniz"));
+            this.hash = new HashMap<>(items.size() * 2);
+            for (Item item : items) {
+                pairs.add(item.pair);
+                this.hash.put(RecordCore.b2H(item.key), item.pair);
+            }
+            this.pairs = Collections.unmodifiableList(pairs);
+        }
+
+        private Snapshot without(byte[] key) {
+            String hex = RecordCore.b2H(key);
+            if (!this.hash.containsKey(hex)) {
+                return this;
+            }
+            List<Item> items = new ArrayList<>(this.items.size());
+            for (Item item : this.items) {
+                if (!RecordCore.b2H(item.key).equals(hex)) {
+                    items.add(item);
+                }
+            }
+            return new Snapshot(this.generation, items);
+        }
+
+        private Snapshot with(Item added) {
+            List<Item> items = new ArrayList<>(this.without(added.key).items);
+            int k = 0;
+            while (k < items.size() && ORDER.compare(items.get(k).order, added.order) <= 0) {
+                k++;
+            }
+            items.add(k, added);
+            return new Snapshot(this.generation, items);
+        }
+    }
+
+    public static final class Entry {
+        private final Key _key;
+        // Listeyi ilk isteyen adapter; aynı sınıftaki adapter'lar aynı çiftleri üretir
+        private final DynamicComboAdapter _adapter;
+        private final Object _lock = new Object();
+        private final AtomicLong _generation = new AtomicLong();
+        private volatile Snapshot _snapshot;
+
+        private Entry(Key key, DynamicComboAdapter adapter) {
+            this._key = key;
+            this._adapter = adapter;
+        }
+
+        /**
+         * Güncel Snapshot; geçersizse yüklenir. Aynı anda bekleyenler aynı yüklemenin sonucunu alır.
+         */
+        public Snapshot get() {
+            Snapshot s = this._snapshot;
+            if (s != null && s.generation == this._generation.get()) {
+                return s;
+            }
+            synchronized (this._lock) {
+                s = this._snapshot;
+                long generation = this._generation.get();
+                if (s == null || s.generation != generation) {
+                    s = new Snapshot(generation, this.load());
+                    this._snapshot = s;
+                }
+                return s;
+            }
+        }
+
+        /**
+         * Sonraki okuma listeyi yeniden yükler; o ana kadar eski Snapshot okunmaya devam eder.
+         */
+        public void invalidate() {
+            this._generation.incrementAndGet();
+        }
+
+        /**
+         * Anahtarın gösterim değeri; listede yoksa kayıt tek başına okunur, bulunamazsa null.
+         */
+        public String lookup(String hexKey) {
+            Snapshot s = this.get();
+            ForeignKeyPair pair = s.hash.get(hexKey);
+            if (pair != null) {
+                return pair.value;
+            }
+            String value = s.fallback.get(hexKey);
+            if (value != null) {
+                return value == NOT_FOUND ? null : value;
+            }
+            SuRecord r = this.loadOne(RecordCore.h2B(hexKey));
+            if (r != null && isVisible(r)) {
+                // Liste dışında eklenmiş görünür kayıt
+                Item item = this.item(r);
+                this.apply(item, true);
+                return item.pair.value;
+            }
+            if (s.fallback.size() >= FALLBACK_LIMIT) {
+                s.fallback.clear();
+            }
+            value = r != null ? this._adapter.generate(r).value : null;
+            s.fallback.put(hexKey, value != null ? value : NOT_FOUND);
+            return value;
+        }
+
+        private void apply(Item item, boolean visible) {
+            synchronized (this._lock) {
+                Snapshot s = this._snapshot;
+                if (s != null) {
+                    // Yüklenmemiş listeye uygulanmaz; ilk okuma zaten güncel hali yükler.
+                    s.fallback.remove(RecordCore.b2H(item.key));
+                    this._snapshot = visible ? s.with(item) : s.without(item.key);
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private List<Item> load() {
+            List<Item> items = new ArrayList<>();
+            try {
+                Class pojoClass = PojoMapper.pojoClass(this._key.target);
+                CriteriaBuilder builder = HibernateCore.getMainSessionFactory().getCriteriaBuilder();
+                CriteriaQuery criteria = builder.createQuery(pojoClass);
+                Root root = criteria.from(pojoClass);
+                criteria.select(root)
+                        .where(builder.equal(root.get("visible"), true))
+                        .orderBy(builder.asc(root.get(this.orderField())));
+                for (SuRecord r : ObjectCore.list(this._key.target, criteria).records) {
+                    items.add(this.item(r));
+                }
+            } catch (Exception e) {
+                Logger.Error(e, "ComboCache:" + this._key.target.getName(), true);
+            }
+            return items;
+        }
+
+        private SuRecord loadOne(byte[] pk) {
+            try {
+                Object pojo = HibernateCore.getMain(PojoMapper.pojoClass(this._key.target), pk);
+                if (pojo == null) {
+                    return null;
+                }
+                return (SuRecord) ObjectCore.copyPojoToRecord(pojo, ObjectCore.createInstance(this._key.target));
+            } catch (Exception e) {
+                Logger.Error(e, "ComboCache:" + this._key.target.getName(), true);
+                return null;
+            }
+        }
+
+        private Item item(SuRecord r) {
+            return new Item(ObjectCore.getPrimaryKeyValue(r), this._adapter.generate(r), ObjectCore.getFieldValue(r, this.orderField()));
+        }
+
+        private String orderField() {
+            return this._key.orderField != null ? this._key.orderField : this._key.nameField;
+        }
+    }
+
+    private static boolean isVisible(SuRecord r) {
+        return Boolean.TRUE.equals(ObjectCore.getFieldValue(r, "visible"));
+    }
+
+    public static Entry entry(DynamicComboAdapter adapter, Class<? extends SuRecord> target, String nameField, String orderField) {
+        return _entries.computeIfAbsent(new Key(adapter.getClass(), target, nameField, orderField), key -> {
+            Entry entry = new Entry(key, adapter);
+            _byTarget.computeIfAbsent(target, t -> new CopyOnWriteArrayList<>()).add(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Kayıt sonrası; kayıt görünürse listeye eklenir/güncellenir, değilse çıkarılır (commit sonrasında).
+     */
+    public static void upsert(SuRecord r) {
+        List<Entry> entries = _byTarget.get(r.getClass());
+        if (entries == null) {
+            return;
+        }
+        boolean visible = isVisible(r);
+        for (Entry entry : entries) {
+            // Kayıt sonradan değişebileceği için değerler şimdi okunur.
+            Item item = entry.item(r);
+            UnitOfWork.afterCommit(() -> entry.apply(item, visible));
+        }
+    }
+
+    public static void remove(Class<? extends SuRecord> target, byte[] pk) {
+        List<Entry> entries = _byTarget.get(target);
+        if (entries == null || pk == null) {
+            return;
+        }
+        Item item = new Item(pk, null, null);
+        for (Entry entry : entries) {
+            UnitOfWork.afterCommit(() -> entry.apply(item, false));
+        }
+    }
+
+    public static void invalidate(Class<? extends SuRecord> target) {
+        List<Entry> entries = _byTarget.get(target);
+        if (entries != null) {
+            for (Entry entry : entries) {
+                entry.invalidate();
+            }
+        }
+    }
+}
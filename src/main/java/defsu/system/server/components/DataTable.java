@@ -432,9 +432,9 @@ public class DataTable extends Container{
         if (this.changedRecords == null || this.changedRecords.isEmpty()) {
             return;
         }
-        // TODO
-        // ObjectCore.saveAll(this.changedRecords);
-        this.changedRecords.clear();
+        if (ObjectCore.saveAll(this.changedRecords)) {
+            this.changedRecords.clear();
+        }
     }
 
     public List<SuRecord> getChanges() {
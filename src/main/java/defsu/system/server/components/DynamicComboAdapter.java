@@ -1,19 +1,12 @@
 package defsu.system.server.components;
 
-import defsu.system.server.core.HibernateCore;
 import defsu.system.server.core.ObjectCore;
-import defsu.system.server.core.RecordCore;
 import defsu.system.server.core.SuRecord;
 import defsu.system.server.helpers.ForeignKeyPair;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 
 public abstract class DynamicComboAdapter extends ComboAdapter {
@@ -27,6 +20,7 @@ public abstract class DynamicComboAdapter extends ComboAdapter {
     private String _nameField;
     private String _orderField = null;
     private SuRecord.RecordProperties _targetProps;
+    private transient volatile ComboCache.Entry _cache;
 
     public DynamicComboAdapter(Class<? extends SuRecord> targetCls, String nameField) {
         this._nameField = nameField;
@@ -39,6 +33,9 @@ public abstract class DynamicComboAdapter extends ComboAdapter {
         this._orderField = orderField;
     }
 
+    /**
+     * Kaydın listedeki çifti; ComboCache listeyi bununla kurar. Gösterimi değiştirmek için alt sınıfta ezilebilir.
+     */
     public ForeignKeyPair generate(SuRecord r) {
         if (this._targetProps == null) {
             this._targetProps = r.getField();
@@ -46,68 +43,47 @@ public abstract class DynamicComboAdapter extends ComboAdapter {
 
         try {
             byte[] key = (byte[]) ObjectCore.getFieldValue(r, this._targetProps.primaryKey);
-            String value = ObjectCore.getFieldValue(r, this._nameField).toString();
-            return new ForeignKeyPair(key, value);
+            Object value = ObjectCore.getFieldValue(r, this._nameField);
+            return new ForeignKeyPair(key, value == null ? "" : value.toString());
         } catch (Exception var4) {
             return new ForeignKeyPair(new byte[16], "");
         }
     }
 
+    /**
+     * Ortak listenin yeniden yüklenmesini ister; eşzamanlı istekler tek yüklemede birleşir.
+     */
     public void resetPairs() {
-        this._pairs = null;
-        this._pairsHash = null;
+        this.cache().invalidate();
     }
 
     public List<ForeignKeyPair> getPairs() {
-        if (this._pairs == null) {
-            this._pairs = new ArrayList<>();
-            this._pairsHash = new HashMap<>();
-
-            CriteriaBuilder builder = HibernateCore.getMainSessionFactory().getCriteriaBuilder();
-            CriteriaQuery<SuRecord> criteriaQuery = (CriteriaQuery<SuRecord>) builder.createQuery(this._targetClass);
-            Root<SuRecord> root = (Root<SuRecord>) criteriaQuery.from(this._targetClass);
-
-            criteriaQuery.orderBy(
-                    builder.asc(root.get(this._orderField != null ? this._orderField : this._nameField))
-            );
-
-            criteriaQuery.select(root).where(builder.equal(root.get("visible"), true));
-
-            List<SuRecord> list = ObjectCore.list((Class<SuRecord>)this._targetClass, criteriaQuery, null).records;
-
-            ForeignKeyPair pairNull = new ForeignKeyPair(RecordCore.i2B(0), "Lütfen Seçiniz");
-            this._pairs.add(pairNull);
-
-            for (SuRecord record : list) {
-                ForeignKeyPair pair = this.generate(record);
-                if (pair != null) {
-                    this._pairs.add(pair);
-                    this._pairsHash.put(ObjectCore.toString(pair.key), pair);
-                }
-            }
-        }
-
-        return this._pairs;
+        ComboCache.Snapshot snapshot = this.cache().get();
+        this._pairs = snapshot.pairs;
+        return snapshot.pairs;
     }
 
-
-
+    /**
+     * Ortak Snapshot'ın haritası; değiştirilmemelidir.
+     */
     public HashMap<String, ForeignKeyPair> getPairsHash() {
-        if (this._pairsHash == null) {
-            this._pairsHash = new HashMap();
-            if (this._pairs == null) {
-                this.getPairs();
-            }
+        return this.cache().get().hash;
+    }
 
-            Iterator var2 = this.getPairs().iterator();
+    /**
+     * Anahtarın gösterim değeri; listede yoksa hedef kayıt tek başına okunur, bulunamazsa null.
+     */
+    public String lookup(String hexKey) {
+        return this.cache().lookup(hexKey);
+    }
 
-            while (var2.hasNext()) {
-                ForeignKeyPair pair = (ForeignKeyPair) var2.next();
-                this._pairsHash.put(ObjectCore.toString(pair.key), pair);
-            }
+    private ComboCache.Entry cache() {
+        ComboCache.Entry cache = this._cache;
+        if (cache == null) {
+            cache = ComboCache.entry(this, this._targetClass, this._nameField, this._orderField);
+            this._cache = cache;
         }
-
-        return this._pairsHash;
+        return cache;
     }
 
     public Class<? extends SuRecord> getTargetClass() {
@@ -0,0 +1,350 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.SuField;
+import defsu.system.server.utils.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * manipulationLogData için SuField listesine dayalı, sürümlü ikili biçim.
+ * <pre>
+ * 'C' 'L' sürüm bayrak durumHash(8) tabanHash(8) sıra(8) alanSayısı(varint) { adUzunluğu(varint) ad(utf8) tip değer }*
+ * </pre>
+ * İlk log ve önbellekte önceki durumu olmayan log tam görüntüdür (FLAG_FULL); diğerleri sadece değişen alanları taşır.
+ * Durum hash'i tüm alanların hash'idir; değişiklik olup olmadığı log çözülmeden buradan anlaşılır.
+ * Taban hash'i delta'nın üzerine yazıldığı durumun hash'idir, sıra yazıcı thread'inin verdiği artan numaradır;
+ * replay logları sıraya dizer ve tabanı uymayan delta'ları uygulamaz. Sürüm 1 loglarda ikisi de yoktur.
+ * 0xACED ile başlayan eski Java serileştirilmiş kayıtlar da okunur.
+ */
+public class ChangeLogCodec {
+    public static final byte VERSION = 2;
+    public static final int FLAG_FULL = 1;
+    private static final byte MAGIC_0 = 'C';
+    private static final byte MAGIC_1 = 'L';
+    private static final int HEADER_SIZE = 12;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_INT = 2;
+    private static final byte T_LONG = 3;
+    private static final byte T_DOUBLE = 4;
+    private static final byte T_TRUE = 5;
+    private static final byte T_FALSE = 6;
+    private static final byte T_BYTES = 7;
+    private static final byte T_DATE = 8;
+
+    /**
+     * Kaydın o anki alan değerlerinin kodlanmış hali ve alan başına hash'leri.
+     */
+    public static class Snapshot {
+        final String[] names;
+        final byte[][] values;
+        final long[] hashes;
+        final long stateHash;
+
+        private Snapshot(String[] names, byte[][] values) {
+            this.names = names;
+            this.values = values;
+            this.hashes = new long[values.length];
+            for (int k = 0; k < values.length; k++) {
+                // Ad da hash'e girer; alan sırası değişirse önceki hash'ler eşleşmez.
+                this.hashes[k] = hash(hash(FNV_OFFSET, names[k].getBytes(StandardCharsets.UTF_8)), values[k]);
+            }
+            this.stateHash = stateHash(this.hashes);
+        }
+
+        public long getStateHash() {
+            return this.stateHash;
+        }
+
+        public long[] getHashes() {
+            return this.hashes;
+        }
+
+        public byte[] encode(long[] previous) {
+            return this.encode(previous, 0);
+        }
+
+        /**
+         * previous null ise tam görüntü, değilse sadece hash'i değişen alanlar ve previous'ın durum hash'i yazılır.
+         */
+        public byte[] encode(long[] previous, long sequence) {
+            boolean full = previous == null || previous.length != this.hashes.length;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(VERSION);
+            out.write(full ? FLAG_FULL : 0);
+            writeLong(out, this.stateHash);
+            writeLong(out, full ? 0 : stateHash(previous));
+            writeLong(out, sequence);
+            int count = 0;
+            for (int k = 0; k < this.hashes.length; k++) {
+                if (full || previous[k] != this.hashes[k]) {
+                    count++;
+                }
+            }
+            writeVarint(out, count);
+            for (int k = 0; k < this.hashes.length; k++) {
+                if (full || previous[k] != this.hashes[k]) {
+                    byte[] name = this.names[k].getBytes(StandardCharsets.UTF_8);
+                    writeVarint(out, name.length);
+                    out.write(name, 0, name.length);
+                    out.write(this.values[k], 0, this.values[k].length);
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Çözülmüş bir log kaydı; full değilse values sadece değişen alanları içerir.
+     */
+    public static class Change {
+        public int version;
+        public boolean full;
+        public long stateHash;
+        // Sürüm 2'den itibaren; delta'nın tabanı ve yazılış sırası
+        public Long baseHash;
+        public long sequence;
+        public Map<String, Object> values = new LinkedHashMap<>();
+    }
+
+    public static Snapshot snapshot(SuRecord r) {
+        SuField.SuFieldList fields = r.getField().fields;
+        String[] names = new String[fields.getCount()];
+        byte[][] values = new byte[names.length][];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        for (int k = 0; k < names.length; k++) {
+            names[k] = fields.get(k).name;
+            out.reset();
+            writeValue(out, ObjectCore.getFieldValue(r, fields, k));
+            values[k] = out.toByteArray();
+        }
+        return new Snapshot(names, values);
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    /**
+     * Alan hash'lerinden durum hash'i; Snapshot.getStateHash ile aynıdır.
+     */
+    public static long stateHash(long[] hashes) {
+        long state = FNV_OFFSET;
+        for (long h : hashes) {
+            state = mix(state, h);
+        }
+        return state;
+    }
+
+    /**
+     * Logun yazılış sırası; sürüm 1 ve eski loglarda 0.
+     */
+    public static long sequence(byte[] data) {
+        return isEncoded(data) && data[2] >= 2 && data.length >= HEADER_SIZE + 16 ? ByteBuffer.wrap(data, 20, 8).getLong() : 0;
+    }
+
+    /**
+     * Logun durum hash'i; bu biçimde değilse null.
+     */
+    public static Long stateHash(byte[] data) {
+        return isEncoded(data) ? ByteBuffer.wrap(data, 4, 8).getLong() : null;
+    }
+
+    public static Change read(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!isEncoded(data)) {
+            return readLegacy(data);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        Change change = new Change();
+        in.position(2);
+        change.version = in.get();
+        change.full = (in.get() & FLAG_FULL) != 0;
+        change.stateHash = in.getLong();
+        if (change.version >= 2) {
+            long base = in.getLong();
+            change.baseHash = change.full ? null : base;
+            change.sequence = in.getLong();
+        }
+        int count = readVarint(in);
+        for (int k = 0; k < count; k++) {
+            byte[] name = new byte[readVarint(in)];
+            in.get(name);
+            change.values.put(new String(name, StandardCharsets.UTF_8), readValue(in));
+        }
+        return change;
+    }
+
+    /**
+     * Loglardan her adımdaki tam durumu üretir (geçmiş görünümleri için). Loglar yazılış sırasına dizilir; sırası
+     * olmayan eski loglar verilen sırada ve sıralılardan önce kalır. Tabanı önceki durum olmayan delta zincirin
+     * koptuğunu gösterir; o ve ona dayanan delta'lar sonraki tam görüntüye kadar uygulanmaz.
+     */
+    public static List<Map<String, Object>> replay(List<byte[]> entries) {
+        List<byte[]> ordered = new ArrayList<>(entries);
+        ordered.sort(Comparator.comparingLong(ChangeLogCodec::sequence));
+        List<Map<String, Object>> states = new ArrayList<>(ordered.size());
+        Map<String, Object> state = new LinkedHashMap<>();
+        Long current = null;
+        for (byte[] data : ordered) {
+            Change change = read(data);
+            if (change == null) {
+                continue;
+            }
+            if (change.full) {
+                state = new LinkedHashMap<>();
+            } else if (change.baseHash != null && !change.baseHash.equals(current)) {
+                Logger.Error("ChangeLogCodec: broken change chain at sequence " + change.sequence, true);
+                continue;
+            } else {
+                state = new LinkedHashMap<>(state);
+            }
+            state.putAll(change.values);
+            current = change.stateHash;
+            states.add(state);
+        }
+        return states;
+    }
+
+    private static Change readLegacy(byte[] data) {
+        Change change = new Change();
+        change.version = 0;
+        change.full = true;
+        SuRecord r = ObjectCore.deserialize(data);
+        if (r == null) {
+            return change;
+        }
+        SuField.SuFieldList fields = r.getField().fields;
+        for (int k = 0; k < fields.getCount(); k++) {
+            change.values.put(fields.get(k).name, ObjectCore.getFieldValue(r, fields, k));
+        }
+        change.stateHash = snapshot(r).stateHash;
+        return change;
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            out.write(T_NULL);
+        } else if (value instanceof String s) {
+            out.write(T_STRING);
+            writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer i) {
+            out.write(T_INT);
+            writeVarint(out, (i << 1) ^ (i >> 31));
+        } else if (value instanceof Long l) {
+            out.write(T_LONG);
+            writeLong(out, l);
+        } else if (value instanceof Number n) {
+            out.write(T_DOUBLE);
+            writeLong(out, Double.doubleToLongBits(n.doubleValue()));
+        } else if (value instanceof Boolean b) {
+            out.write(b ? T_TRUE : T_FALSE);
+        } else if (value instanceof byte[] bytes) {
+            out.write(T_BYTES);
+            writeBytes(out, bytes);
+        } else if (value instanceof Date d) {
+            out.write(T_DATE);
+            writeLong(out, d.getTime());
+        } else {
+            out.write(T_STRING);
+            writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case T_INT:
+                int v = readVarint(in);
+                return (v >>> 1) ^ -(v & 1);
+            case T_LONG:
+                return in.getLong();
+            case T_DOUBLE:
+                return Double.longBitsToDouble(in.getLong());
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_BYTES:
+                return readBytes(in);
+            case T_DATE:
+                return new Date(in.getLong());
+            default:
+                Logger.Error("ChangeLogCodec: unknown type " + type, true);
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int k = 56; k >= 0; k -= 8) {
+            out.write((int) (value >>> k));
+        }
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long hash(long h, byte[] bytes) {
+        for (byte b : bytes) {
+            h ^= (b & 0xFF);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        for (int k = 0; k < 8; k++) {
+            h ^= (value >>> (k * 8)) & 0xFF;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,53 @@
+package defsu.system.server.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bir istemci bağlantısının kimliği. SessionCore, bağlantıya ait context'i thread id yerine
+ * bu anahtarla bulur; böylece handler'lar sanal thread'lerde veya ortak worker'larda çalışabilir.
+ * ScopedValue Java 22'de preview olduğu için taşıyıcı olarak ThreadLocal kullanılır.
+ */
+public final class ConnectionContext {
+    private static final ThreadLocal<ConnectionContext> _current = new ThreadLocal<>();
+    // Thread id'leri ile çakışmaması için bağlantı anahtarları negatiftir.
+    private static final AtomicLong _sequence = new AtomicLong();
+    private final long id;
+
+    private ConnectionContext(long id) {
+        this.id = id;
+    }
+
+    public static ConnectionContext open() {
+        return new ConnectionContext(-_sequence.incrementAndGet());
+    }
+
+    public static ConnectionContext current() {
+        return _current.get();
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public void bind() {
+        _current.set(this);
+    }
+
+    public static void unbind() {
+        _current.remove();
+    }
+
+    public void run(Runnable r) {
+        ConnectionContext previous = _current.get();
+        _current.set(this);
+        try {
+            r.run();
+        } finally {
+            if (previous == null) {
+                _current.remove();
+            } else {
+                _current.set(previous);
+            }
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package defsu.system.server.core;
 
+import defsu.system.server.ServerManagment;
 import defsu.system.server.components.WindowForm;
 import defsu.system.server.utils.Enums;
 import defsu.system.server.utils.Logger;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.codec.binary.Base64;
@@ -20,12 +22,12 @@ import org.apache.http.io.SessionInputBuffer;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
 import org.apache.http.message.BasicLineParser;
 import org.apache.http.params.BasicHttpParams;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
 
 import java.io.*;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -49,6 +51,9 @@ public class ConnectionCore {
     private static Pattern _argumentPattern = Pattern.compile("\"([^\"]*)\"|(\\S+)");
     private static Pattern _messageIdPattern = Pattern.compile("MID:([0-9]*)");
     public static StringDictionary<String> mimeTypes;
+    // HTTP/1.1 kalıcı bağlantı: sıradaki istek için bekleme süresi (ms) ve bağlantı başına en fazla istek
+    public static int KEEP_ALIVE_TIMEOUT = 5000;
+    public static int KEEP_ALIVE_MAX = 100;
     private int _port = 1920;
     private static long messageCount = 0;
     private static long messages = 1;
@@ -68,7 +73,7 @@ public class ConnectionCore {
         try {
             System.out.println("Server is running... on port " + this._port);
             this._serverSocket = new ServerSocket(this._port);
-            this.registerMimes();
+            registerMimes();
         } catch (Exception e) {
             System.out.println("Error2: " + e.getMessage());
             System.exit(1);
@@ -81,13 +86,25 @@ public class ConnectionCore {
                 _socket = this._serverSocket.accept();
                 System.out.println("Client connected: " + _socket.getInetAddress().getHostAddress());
                 Runnable r = new ConnectionCore.ClientHandler(_socket);
-                (new Thread(r)).start();
+                startThread(r);
             } catch (Exception e) {
                 System.out.println("Error1: " + e.getMessage());
             }
         }
     }
 
+    /**
+     * ServerManagment.useVirtualThreads açıksa handler'lar sanal thread'de çalışır.
+     */
+    static Thread startThread(Runnable r) {
+        if (ServerManagment.useVirtualThreads) {
+            return Thread.ofVirtual().start(r);
+        }
+        Thread thread = new Thread(r);
+        thread.start();
+        return thread;
+    }
+
     private static String _getMessageId(String message) {
         Matcher m = _messageIdPattern.matcher(message);
         return m.find() ? m.group(1) : null;
@@ -108,10 +125,10 @@ public class ConnectionCore {
         return (String[]) result.toArray(new String[result.size()]);
     }
 
-    private void registerMimes() {
+    static void registerMimes() {
         if (mimeTypes == null) {
             mimeTypes = new StringDictionary();
-            try (InputStream inputStream = getClass().getResourceAsStream("/mimetypes.cfg");
+            try (InputStream inputStream = ConnectionCore.class.getResourceAsStream("/mimetypes.cfg");
                  BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
 
                 String line;
@@ -128,6 +145,88 @@ public class ConnectionCore {
     }
 
     public static String processMessage(String message) {
+        return processMessage(message, _socket != null ? _socket.getInetAddress() : null);
+    }
+
+    public static void processReply(String message, ReplyWriter out) throws IOException {
+        processReply(message, _socket != null ? _socket.getInetAddress() : null, out);
+    }
+
+    public static String processMessage(String message, InetAddress remoteAddress) {
+        StringWriter out = new StringWriter();
+        try {
+            processReply(message, remoteAddress, reply -> reply.writeTo(out));
+        } catch (IOException e) {
+            // StringWriter IOException atmaz
+        }
+        return out.toString();
+    }
+
+    /**
+     * Mesajın tüm veritabanı işi tek bir UnitOfWork içinde yapılır ve sonunda bir kez commit edilir.
+     * Cevap commit'ten sonra, session kapanmadan out'a verilir; commit başarısızsa servis cevabı yerine hata yazılır.
+     * İstemci beklenen etkileşimlerde (SynchInteraction) o ana kadarki iş UnitOfWork.checkpoint ile ayrıca commit edilir.
+     */
+    public static void processReply(String message, InetAddress remoteAddress, ReplyWriter out) throws IOException {
+        UnitOfWork uow = UnitOfWork.begin();
+        try {
+            Reply reply = _processMessage(message, remoteAddress);
+            if (!uow.commit()) {
+                reply = new Reply(reply.messageId, "E000:ServerError!", null);
+            }
+            out.write(reply);
+        } finally {
+            uow.end();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ReplyWriter {
+        void write(Reply reply) throws IOException;
+    }
+
+    /**
+     * processMessage sonucu: ya düz metin ya da JSON olarak yazılacak cevap nesnesi, varsa MID önekiyle.
+     */
+    public static class Reply {
+        private final String messageId;
+        private final String text;
+        private final Object body;
+
+        Reply(String messageId, String text, Object body) {
+            this.messageId = messageId;
+            this.text = text;
+            this.body = body;
+        }
+
+        public void writeTo(Writer out) throws IOException {
+            if (this.messageId != null) {
+                out.write("MID:");
+                out.write(this.messageId);
+                out.write(' ');
+            }
+            if (this.body == null) {
+                out.write(this.text);
+                return;
+            }
+            JsonWriter writer = SuResponse.getGSON().newJsonWriter(out);
+            SuResponse.getGSON().toJson(this.body, this.body.getClass(), writer);
+            writer.flush();
+        }
+
+        @Override
+        public String toString() {
+            StringWriter out = new StringWriter();
+            try {
+                this.writeTo(out);
+            } catch (IOException e) {
+                // StringWriter IOException atmaz
+            }
+            return out.toString();
+        }
+    }
+
+    private static Reply _processMessage(String message, InetAddress remoteAddress) {
         try {
             String messageId = _getMessageId(message);
             if (messageId != null) {
@@ -135,6 +234,7 @@ public class ConnectionCore {
             }
 
             String output = null;
+            Object body = null;
             if (message.startsWith("{")) {
                 JsonElement eMsg = SuResponse.getGSONParser().parse(message);
                 JsonObject oMsg = (JsonObject) eMsg;
@@ -171,11 +271,7 @@ public class ConnectionCore {
                     sInputs.put((String) "ARGS", sInput);
                     SuResponse response = MapService.call(oMsg.get("cls").getAsString(), action, sInputs);
                     ServerUtility.clearMemory();
-                    if (response.getForm() == null) {
-                        output = SuResponse.getGSON().toJson(response);
-                    } else {
-                        output = SuResponse.getGSON().toJson(response.getForm());
-                    }
+                    body = response.getForm() == null ? response : response.getForm();
                 }
             } else {
                 String[] args = _getArgs(message);
@@ -301,7 +397,7 @@ public class ConnectionCore {
                 }
             }
 
-            if (output == null) {
+            if (output == null && body == null) {
                 output = "E001:RetryWhenYouHaveSomethingToSay!";
             }
 
@@ -313,7 +409,7 @@ public class ConnectionCore {
             } + sb.toString()*/
 
             if(!message.equals("sa.")){
-                Logger.Info("!-- " + (messages) + "|" + (++messageCount) + " --IP!" + ConnectionCore._socket.getInetAddress() + "!-- --M!" + message + "!--", true);
+                Logger.Info("!-- " + (messages) + "|" + (++messageCount) + " --IP!" + remoteAddress + "!-- --M!" + message + "!--", true);
             }
 
             if (messageCount >= 10) {
@@ -321,13 +417,18 @@ public class ConnectionCore {
                 messageCount = 0;
             }
 
-            return messageId != null ? "MID:" + messageId + " " + output : output;
+            return new Reply(messageId, output, body);
         } catch (Exception e) {
             StringWriter errors = new StringWriter();
             e.printStackTrace(new PrintWriter(errors));
             System.out.println("Error71: " + errors.toString());
             e.printStackTrace(System.out);
-            return "E000:ServerError!";
+            // Hata cevabı verilen mesajın yarım kalan yazmaları commit edilmez
+            UnitOfWork uow = UnitOfWork.current();
+            if (uow != null) {
+                uow.setRollbackOnly();
+            }
+            return new Reply(null, "E000:ServerError!", null);
         }
     }
 
@@ -344,20 +445,129 @@ public class ConnectionCore {
         private OutputStream _outputStream;
         private InputStream _inputStream;
         private boolean closeRequest;
+        private boolean keepAlive;
+        private int requestCount;
+        private String remoteAddress;
+        private ConnectionContext context = ConnectionContext.open();
 
         public ClientHandler(Socket _clientSocket) {
             setClientSocket(_clientSocket);
             setType(Enums.SocketType.NOTSELECTED);
             setCloseRequest(false);
+            setRemoteAddress(_clientSocket.getInetAddress().getHostAddress());
+        }
+
+        /**
+         * Soket olmadan, verilen akışlar üzerinde çalışan handler. NIO taşıyıcısı isteği
+         * bellekteki tampondan okutur, cevabı da kendi kanalına yazar.
+         */
+        public ClientHandler(String remoteAddress, InputStream in, OutputStream out, Enums.SocketType type) {
+            this.remoteAddress = remoteAddress;
+            this.type = type;
+            this.closeRequest = false;
+            this._inputStream = in;
+            this._outputStream = out;
+            this._writer = new PrintWriter(out, true);
+            this._reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+        }
+
+        /**
+         * Önbellekteki dosyayı başlık ve gövde dizileriyle doğrudan çıkışa yazar.
+         */
+        protected void writeAsset(StaticAssetCache.Response asset) throws IOException {
+            get_outputStream().write(asset.header());
+            get_outputStream().write(this.endHeader().getBytes(StandardCharsets.ISO_8859_1));
+            if (asset.body() != null) {
+                get_outputStream().write(asset.body());
+            }
+            get_outputStream().flush();
+        }
+
+        /**
+         * Bağlantı açık kalacaksa Connection/Keep-Alive, kalmayacaksa Connection: close satırı ve başlık sonu.
+         */
+        String endHeader() {
+            if (!this.keepAlive) {
+                return "Connection: close\r\n\r\n";
+            }
+            return "Connection: keep-alive\r\nKeep-Alive: timeout=" + KEEP_ALIVE_TIMEOUT / 1000
+                    + ", max=" + (KEEP_ALIVE_MAX - this.requestCount) + "\r\n\r\n";
+        }
+
+        private boolean keepAlive(String headers) {
+            if (++this.requestCount >= KEEP_ALIVE_MAX) {
+                return false;
+            }
+            String connection = getHeader(headers, "Connection");
+            if (connection != null && connection.toLowerCase().contains("close")) {
+                return false;
+            }
+            return headers.split("\r\n", 2)[0].endsWith("HTTP/1.1")
+                    || (connection != null && connection.toLowerCase().contains("keep-alive"));
+        }
+
+        private void endRequest() {
+            if (!this.keepAlive) {
+                this.closeConnection("");
+            }
+        }
+
+        /**
+         * Gövde Content-Length veya chunked kodlamaya göre okunur; yoksa boş döner. Okuyucu ISO-8859-1
+         * olduğundan dönen metnin her karakteri bir bayttır.
+         */
+        private String readBody(String headers) throws IOException {
+            String encoding = getHeader(headers, "Transfer-Encoding");
+            if (encoding == null || !encoding.toLowerCase().contains("chunked")) {
+                int length = getContentLength(headers);
+                return length > 0 ? this.readChars(length) : "";
+            }
+            StringBuilder body = new StringBuilder();
+            while (true) {
+                String line = this._reader.readLine();
+                if (line == null) {
+                    throw new EOFException("Unexpected end of chunked body");
+                }
+                int extension = line.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? line : line.substring(0, extension)).trim(), 16);
+                if (size == 0) {
+                    break;
+                }
+                body.append(this.readChars(size));
+                this._reader.readLine();
+            }
+            String trailer;
+            while ((trailer = this._reader.readLine()) != null && !trailer.isEmpty()) {
+                // Trailer başlıkları kullanılmıyor
+            }
+            return body.toString();
+        }
+
+        private String readChars(int length) throws IOException {
+            char[] chars = new char[length];
+            int read = 0;
+            while (read < length) {
+                int n = this._reader.read(chars, read, length - read);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of request body");
+                }
+                read += n;
+            }
+            return new String(chars);
         }
 
         public void closeConnection(String lastMessage) {
             try {
                 this._writer.write(lastMessage);
                 this._writer.flush();
-                Thread.sleep(1000L);
-                getClientSocket().close();
+                if (getClientSocket() == null) {
+                    setCloseRequest(true);
+                    return;
+                }
                 setCloseRequest(true);
+                // Kalan cevap gönderilsin diye önce yazma yönü kapatılır
+                getClientSocket().shutdownOutput();
+                getClientSocket().close();
             } catch (Exception var3) {
                 System.out.println("Error closing connection: " + var3.toString());
             }
@@ -365,6 +575,10 @@ public class ConnectionCore {
 
         @Override
         public void run() {
+            getContext().run(this::handle);
+        }
+
+        private void handle() {
             int errorCount = 0;
             try {
                 OutputStream out = getClientSocket().getOutputStream();
@@ -372,39 +586,41 @@ public class ConnectionCore {
                 set_outputStream(out);
                 set_inputStream(in);
                 set_writer(new PrintWriter(out, true));
-                set_reader(new BufferedReader(new InputStreamReader(in)));
-                set_webSocket(new WS(new DataInputStream(in), new DataOutputStream(out)));
+                // Bir karakter bir bayt: Content-Length ile okunan gövde akışta kaymaz, RAW satırları UTF-8'e çevrilir
+                set_reader(new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1)));
+                set_webSocket(new WS(new DataInputStream(new BufferedInputStream(in)), new DataOutputStream(out)));
                 while (!this.closeRequest) {
                     try {
-                        Thread.sleep(10);
                         if (getClientSocket().isClosed()) {
                             break;
                         }
-                        String output;
                         if (getType() == Enums.SocketType.WEBSOCKET) {
                             WS.WebSocketMessage wsMessage = get_webSocket().read();
                             if (wsMessage == null) {
                                 closeConnection("No message. Goodbye.");
                             } else {
-                                output = '>' + ConnectionCore.processMessage(wsMessage.getBody());
-                                get_webSocket().write(new WS.WebSocketMessage(output));
+                                ConnectionCore.processReply(wsMessage.getBody(), reply -> get_webSocket().stream(writer -> {
+                                    writer.write('>');
+                                    reply.writeTo(writer);
+                                }));
                             }
                         } else {
                             String message = null;
                             try {
-                                if (getType() == Enums.SocketType.HTTP) {
-                                    getClientSocket().setSoTimeout(0);
-                                    message = get_reader().readLine();
-                                } else {
-                                    getClientSocket().setSoTimeout(0);
-                                    message = get_reader().readLine();
+                                // HTTP bağlantısı sıradaki isteği en fazla KEEP_ALIVE_TIMEOUT bekler
+                                getClientSocket().setSoTimeout(getType() == Enums.SocketType.RAW ? 0 : KEEP_ALIVE_TIMEOUT);
+                                message = get_reader().readLine();
+                                if (message != null && getType() == Enums.SocketType.RAW) {
+                                    message = new String(message.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
                                 }
+                            } catch (SocketTimeoutException e) {
+                                // Boşta kalan kalıcı bağlantı
                             } catch (Exception e) {
                                 System.out.println("Error3: " + e.getMessage());
                             }
 
                             if (message == null) {
-                                closeConnection("Null Message!");
+                                closeConnection(getType() == Enums.SocketType.RAW ? "Null Message!" : "");
                                 return;
                             }
 
@@ -414,9 +630,12 @@ public class ConnectionCore {
                                 } else if (getType() == Enums.SocketType.HTTP) {
                                     processRequest(message, false);
                                 } else if (getType() == Enums.SocketType.RAW) {
-                                    output = ConnectionCore.processMessage(message);
-                                    get_writer().write(">" + output + "\r\n");
-                                    get_writer().flush();
+                                    ConnectionCore.processReply(message, reply -> {
+                                        get_writer().write('>');
+                                        reply.writeTo(get_writer());
+                                        get_writer().write("\r\n");
+                                        get_writer().flush();
+                                    });
                                 }
                             } else {
                                 webSocketHandshake(message);
@@ -436,36 +655,22 @@ public class ConnectionCore {
 
             } catch (Exception e) {
                 System.out.println("Error5: " + e.getMessage());
+            } finally {
+                if (get_webSocket() != null) {
+                    get_webSocket().close();
+                }
             }
         }
 
         private HttpMessage _parseHttp(String input) {
-            try {
-                SessionInputBuffer inputBuffer = new AbstractSessionInputBuffer() {
-                    {
-                        this.init(new ByteArrayInputStream(input.getBytes()), 10, new BasicHttpParams());
-                    }
-
-                    public boolean isDataAvailable(int timeout) throws IOException {
-                        throw new RuntimeException("have to override but probably not even called");
-                    }
-                };
-                HttpMessageParser parser = new HttpRequestParser(inputBuffer, new BasicLineParser(new ProtocolVersion("HTTP", 1, 1)), new DefaultHttpRequestFactory(), new BasicHttpParams());
-                HttpMessage message = parser.parse();
-                if (message instanceof BasicHttpEntityEnclosingRequest) {
-                    BasicHttpEntityEnclosingRequest request = (BasicHttpEntityEnclosingRequest) message;
-                    EntityDeserializer entityDeserializer = new EntityDeserializer(new LaxContentLengthStrategy());
-                    HttpEntity entity = entityDeserializer.deserialize(inputBuffer, message);
-                    request.setEntity(entity);
-                }
-
-                return message;
-            } catch (IOException | HttpException e) {
-                throw new RuntimeException("Error parsing http header", e);
-            }
+            return ConnectionCore.parseHttp(input);
         }
 
         public void switchType(Enums.SocketType type) {
+            if (getClientSocket() == null) {
+                setType(type);
+                return;
+            }
             if (type == Enums.SocketType.RAW) {
                 get_writer().write("Hello\r\n");
                 get_writer().flush();
@@ -476,21 +681,19 @@ public class ConnectionCore {
                 ConnectionCore.UpdateHandler uHandler = new ConnectionCore.UpdateHandler();
                 uHandler.clientSocket = getClientSocket();
                 uHandler.parent = Thread.currentThread();
+                uHandler.context = getContext();
                 uHandler.type = getType();
                 uHandler.writer = get_writer();
-                ConnectionCore.ExtendedThread thread = new ConnectionCore.ExtendedThread(uHandler);
-                thread.uHandler = uHandler;
-                thread.start();
+                startThread(uHandler);
             } else if (type == Enums.SocketType.WEBSOCKET) {
                 ConnectionCore.UpdateHandler uHandler = new ConnectionCore.UpdateHandler();
                 uHandler.clientSocket = getClientSocket();
                 uHandler.parent = Thread.currentThread();
+                uHandler.context = getContext();
                 uHandler.type = type;
                 uHandler.websocket = get_webSocket();
                 uHandler.writer = get_writer();
-                ConnectionCore.ExtendedThread thread = new ConnectionCore.ExtendedThread(uHandler);
-                thread.uHandler = uHandler;
-                thread.start();
+                startThread(uHandler);
             }
 
             setType(type);
@@ -525,19 +728,7 @@ public class ConnectionCore {
 
             if (httpMessage.containsHeader("Sec-WebSocket-Key")) {
                 SessionCore sc = SessionCore.getCurrentContext();
-                StringDictionary<String> cookies = new StringDictionary<>();
-
-                for (Header header : httpMessage.getHeaders("Cookie")) {
-                    for (HeaderElement element : header.getElements()) {
-                        if (element.getParameters().length > 0) {
-                            for (NameValuePair nvp : element.getParameters()) {
-                                cookies.put(nvp.getName(), nvp.getValue());
-                            }
-                        } else {
-                            cookies.put(element.getName(), element.getValue());
-                        }
-                    }
-                }
+                StringDictionary<String> cookies = ConnectionCore.parseCookies(httpMessage);
 
                 if (cookies.containsKey("DEFSUN")) {
                     SessionCore changedContext = SessionCore.change(cookies.get("DEFSUN"));
@@ -551,24 +742,29 @@ public class ConnectionCore {
                     ServerUtility.setParameter("lang", cookies.get("DEFSUL"));
                 }
 
-                String key = httpMessage.getHeaders("Sec-WebSocket-Key")[0].getValue() + WEB_SOCKET_MAGIC_STRING;
                 try {
-                    MessageDigest md = MessageDigest.getInstance("SHA-1");
-                    byte[] hash = md.digest(key.getBytes(StandardCharsets.UTF_8));
-                    String hashBase64 = Base64.encodeBase64String(hash);
+                    String hashBase64 = ConnectionCore.webSocketAccept(httpMessage.getHeaders("Sec-WebSocket-Key")[0].getValue());
+                    WSDeflate deflate = ConnectionCore.webSocketDeflate(httpMessage);
+                    this._webSocket.setDeflate(deflate);
 
                     String response = "HTTP/1.1 101 Switching Protocols\r\n"
                             + "Upgrade: websocket\r\n"
                             + "Connection: Upgrade\r\n"
-                            + "Sec-WebSocket-Accept: " + hashBase64 + "\r\n\r\n";
+                            + "Sec-WebSocket-Accept: " + hashBase64 + "\r\n"
+                            + (deflate != null ? deflate.responseHeader() : "") + "\r\n";
 
                     this._writer.write(response);
                     this._writer.flush();
+                    if (getClientSocket() != null) {
+                        getClientSocket().setSoTimeout(0);
+                    }
                     this.switchType(Enums.SocketType.WEBSOCKET);
                     sc.setClientHandler(this);
 
                 } catch (NoSuchAlgorithmException e) {
                     this.closeConnection("SHA-1 Digest error.");
+                } catch (IOException e) {
+                    this.closeConnection("");
                 }
             } else {
                 // Eğer WebSocket değilse HTTP olarak devam et
@@ -613,9 +809,11 @@ public class ConnectionCore {
                 }
             }
 
+            String headers = httpData.toString();
+            this.keepAlive = this.keepAlive(headers);
             String query = "";
             try {
-                String uri = httpData.toString().split("\r\n")[0].split(" ")[1];
+                String uri = headers.split("\r\n")[0].split(" ")[1];
                 StringDictionary<String> queryValues = new StringDictionary<>();
 
                 if (uri.contains("?")) {
@@ -631,22 +829,12 @@ public class ConnectionCore {
                 }
                 // TODO:: When sending post request, it is not parsed correctly and throws an exception Error parsing http header. Must be fixed.
                 if (uri.startsWith("/gtsp/") || (HttpCore.getPage(uri) != null)) {
-                    HttpMessage httpMessage = this._parseHttp(message);
-                    int length = getContentLength(message);
+                    HttpMessage httpMessage = this._parseHttp(headers);
                     StringDictionary<String> formData = new StringDictionary();
                     StringDictionary<PostFile> files = new StringDictionary();
                     String pair;
-                    if (length > 0) {
-                        Thread.sleep(100L);
-                        char[] chars = new char[length];
-                        int read = 0;
-
-                        while (read < length) {
-                            this._reader.read(chars, read, 1);
-                            read++;
-                        }
-
-                        String allMessage = new String(chars);
+                    String allMessage = this.readBody(headers);
+                    if (!allMessage.isEmpty()) {
                         Header[] contentHeaders = httpMessage.getHeaders("Content-Type");
                         String contentType = "";
 
@@ -656,7 +844,7 @@ public class ConnectionCore {
 
                         if (!contentType.startsWith("multipart/form-data")) {
                             httpData = new StringBuilder();
-                            httpData.append(URLDecoder.decode(allMessage, StandardCharsets.UTF_8));
+                            httpData.append(URLDecoder.decode(new String(allMessage.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8), StandardCharsets.UTF_8));
                         } else {
                             String boundary = contentHeaders[0].getElements()[0].getParameterByName("boundary").getValue();
                             allMessage = allMessage.substring(boundary.length() + 4, allMessage.length() - boundary.length() - 8);
@@ -721,10 +909,10 @@ public class ConnectionCore {
 
                     if (page == null) {
                         output = "bulunamadı";
-                        header = "HTTP/1.0 404 Not Found\r\n"
+                        header = "HTTP/1.1 404 Not Found\r\n"
                                 + "Content-Length: " + output.getBytes("UTF-8").length + "\r\n"
                                 + "Pragma: no-cache\r\n"
-                                + "Content-Type: text/html; charset=utf-8\r\n\r\n";
+                                + "Content-Type: text/html; charset=utf-8\r\n" + this.endHeader();
                     } else {
                         HttpCore.ActivePageParameters parameters = new HttpCore.ActivePageParameters();
                         parameters.cookies = HttpCore.collectCookies(httpMessage);
@@ -734,7 +922,7 @@ public class ConnectionCore {
                         parameters.files = files;
                         parameters.formValues = formData;
                         parameters.uri = uri;
-                        parameters.clientIP = getClientSocket().getInetAddress().getHostAddress();
+                        parameters.clientIP = getRemoteAddress();
                         parameters.httpMessage = httpMessage;
 
 
@@ -759,18 +947,20 @@ public class ConnectionCore {
                             response.addCookie(cookie);
                         }
 
-                        header = response.getHeader();
-                        output = response.getResponseText();
+                        // Başlık seçilmişse Content-Length başlıkla birlikte hesaplanmalı
                         if(!response.getTitle().isEmpty()){
-                            output =   "<title>"+response.getTitle()+"</title>"+output;
+                            response.setResponseText("<title>"+response.getTitle()+"</title>"+response.getResponseText());
                         }
+                        header = response.getHeader();
+                        header = header.substring(0, header.length() - 2) + this.endHeader();
+                        output = response.getResponseText();
 
                         if (response.getResponseOutput() != null) {
                             get_writer().write(header);
                             get_writer().flush();
                             get_outputStream().write(response.getResponseOutput());
                             get_outputStream().flush();
-                            this.closeConnection("");
+                            this.endRequest();
                             return;
                         }
                     }
@@ -778,81 +968,32 @@ public class ConnectionCore {
                     get_writer().flush();
                     get_writer().write(output);
                     get_writer().flush();
-                    this.closeConnection("");
+                    this.endRequest();
                 } else {
-
-                    Resource resource = new ClassPathResource(uri);
-                    InputStream is = null;
-                    try {
-                        is = resource.getInputStream();
-                    } catch (IOException e) {
-                        Logger.Error(e, "Error reading resource", true);
-                    }
-
-                    if (is == null) {
-                        String notFound = "HTTP/1.1 404 Not Found\r\n\r\n";
-                        get_writer().write(notFound);
+                    // Gövde kullanılmıyor ama okunmazsa kalıcı bağlantıda sonraki isteğin başı sanılır
+                    this.readBody(headers);
+                    StaticAssetCache.Response asset = StaticAssetCache.respond(uri, headers);
+                    if (asset == null) {
+                        get_writer().write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n" + this.endHeader());
                         get_writer().flush();
-                        this.closeConnection("");
-                        return;
-                    }
-
-                    try {
-                        ByteArrayOutputStream bufferStream = new ByteArrayOutputStream();
-                        byte[] buffer = new byte[512];
-                        int len;
-                        while ((len = is.read(buffer)) != -1) {
-                            bufferStream.write(buffer, 0, len);
-                        }
-                        byte[] content = bufferStream.toByteArray();
-                        int contentLength = content.length;
-
-                        String contentType = "text/html";
-                        String path = resource.getFilename();
-                        if (path != null) {
-                            String extension = path.substring(path.lastIndexOf('.') + 1);
-                            contentType = mimeTypes.get(extension);
-                        }
-
-                        String headers = String.format("HTTP/1.1 200 OK\r\nContent-Length: %d\r\nConnection: Keep-Alive\r\nContent-Type: %s\r\n\r\n", contentLength, contentType);
-
-                        get_writer().write(headers);
-                        get_writer().flush();
-
-                        get_outputStream().write(content);
-                        get_outputStream().flush();
-
-                    } catch (IOException e) {
-                        Logger.Error(e, "Error writing resource", true);
-                        query = "<html xmlns='http://www.w3.org/1999/xhtml' lang='en'><head><title>404</title><style type='text/css'>body { background-image: url(data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAABoAAAAaCAYAAACpSkzOAAAABHNCSVQICAgIfAhkiAAAAAlwSFlzAAALEgAACxIB0t1+/AAAABZ0RVh0Q3JlYXRpb24gVGltZQAxMC8yOS8xMiKqq3kAAAAcdEVYdFNvZnR3YXJlAEFkb2JlIEZpcmV3b3JrcyBDUzVxteM2AAABHklEQVRIib2Vyw6EIAxFW5idr///Qx9sfG3pLEyJ3tAwi5EmBqRo7vHawiEEERHS6x7MTMxMVv6+z3tPMUYSkfTM/R0fEaG2bbMv+Gc4nZzn+dN4HAcREa3r+hi3bcuu68jLskhVIlW073tWaYlQ9+F9IpqmSfq+fwskhdO/AwmUTJXrOuaRQNeRkOd5lq7rXmS5InmERKoER/QMvUAPlZDHcZRhGN4CSeGY+aHMqgcks5RrHv/eeh455x5KrMq2yHQdibDO6ncG/KZWL7M8xDyS1/MIO0NJqdULLS81X6/X6aR0nqBSJcPeZnlZrzN477NKURn2Nus8sjzmEII0TfMiyxUuxphVWjpJkbx0btUnshRihVv70Bv8ItXq6Asoi/ZiCbU6YgAAAABJRU5ErkJggg==);}.error-template {padding: 40px 15px;text-align: center;}.error-actions {margin-top:15px;margin-bottom:15px;}.error-actions .btn { margin-right:10px; }</style></head><body><div class='container'>    <div class='row'>        <div class='col-md-12'>            <div class='error-template'>                <h1>                    Özür Dileriz!</h1>                <h2>                    Bir sorun oluştu...</h2>                <div class='error-details'>                    Tüm seçimleri doğru yaptığınız halde bu sorunla karşılaşıyorsanız lütfen çağrı merkezimizi arayarak destek talep ediniz.                </div>            </div>        </div>    </div></div></body></html>";
-                        nMessage = "HTTP/1.0 404 Not Found\r\nContent-Length: " + query.length() + "\r\nPragma: no-cache\r\nContent-Type: text/html; charset=utf-8\r\n\r\n" + query;
-                        try {
-                            get_writer().write(nMessage);
-                            get_writer().flush();
-                            get_writer().write(query);
-                            get_writer().flush();
-                            this.closeConnection("");
-                        } catch (Exception e2) {
-                            Logger.Error(e2, "Error writing error message", true);
-                        }
-                    } finally {
-                        try {
-                            is.close();
-                        } catch (IOException e) {
-                            Logger.Error(e, "Error closing resource", true);
-                        }
+                    } else {
+                        this.writeAsset(asset);
                     }
+                    this.endRequest();
                 }
             } catch (Exception e) {
                 Logger.Error(e, "Error parsing http header", true);
-                query = "<html xmlns='http://www.w3.org/1999/xhtml' lang='en'><head><title>404</title><style type='text/css'>body { background-image: url(data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAABoAAAAaCAYAAACpSkzOAAAABHNCSVQICAgIfAhkiAAAAAlwSFlzAAALEgAACxIB0t1+/AAAABZ0RVh0Q3JlYXRpb24gVGltZQAxMC8yOS8xMiKqq3kAAAAcdEVYdFNvZnR3YXJlAEFkb2JlIEZpcmV3b3JrcyBDUzVxteM2AAABHklEQVRIib2Vyw6EIAxFW5idr///Qx9sfG3pLEyJ3tAwi5EmBqRo7vHawiEEERHS6x7MTMxMVv6+z3tPMUYSkfTM/R0fEaG2bbMv+Gc4nZzn+dN4HAcREa3r+hi3bcuu68jLskhVIlW073tWaYlQ9+F9IpqmSfq+fwskhdO/AwmUTJXrOuaRQNeRkOd5lq7rXmS5InmERKoER/QMvUAPlZDHcZRhGN4CSeGY+aHMqgcks5RrHv/eeh455x5KrMq2yHQdibDO6ncG/KZWL7M8xDyS1/MIO0NJqdULLS81X6/X6aR0nqBSJcPeZnlZrzN477NKURn2Nus8sjzmEII0TfMiyxUuxphVWjpJkbx0btUnshRihVv70Bv8ItXq6Asoi/ZiCbU6YgAAAABJRU5ErkJggg==);}.error-template {padding: 40px 15px;text-align: center;}.error-actions {margin-top:15px;margin-bottom:15px;}.error-actions .btn { margin-right:10px; }</style></head><body><div class='container'>    <div class='row'>        <div class='col-md-12'>            <div class='error-template'>                <h1>                    Özür Dileriz!</h1>                <h2>                    Bir sorun oluştu...</h2>                <div class='error-details'>                    Tüm seçimleri doğru yaptığınız halde bu sorunla karşılaşıyorsanız lütfen çağrı merkezimizi arayarak destek talep ediniz.                </div>            </div>        </div>    </div></div></body></html>";
-                nMessage = "HTTP/1.0 404 Not Found\r\nContent-Length: " + query.length() + "\r\nPragma: no-cache\r\nContent-Type: text/html; charset=utf-8\r\n\r\n" + query;
+                String output = "<html xmlns='http://www.w3.org/1999/xhtml' lang='en'><head><title>404</title><style type='text/css'>body { background-image: url(data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAABoAAAAaCAYAAACpSkzOAAAABHNCSVQICAgIfAhkiAAAAAlwSFlzAAALEgAACxIB0t1+/AAAABZ0RVh0Q3JlYXRpb24gVGltZQAxMC8yOS8xMiKqq3kAAAAcdEVYdFNvZnR3YXJlAEFkb2JlIEZpcmV3b3JrcyBDUzVxteM2AAABHklEQVRIib2Vyw6EIAxFW5idr///Qx9sfG3pLEyJ3tAwi5EmBqRo7vHawiEEERHS6x7MTMxMVv6+z3tPMUYSkfTM/R0fEaG2bbMv+Gc4nZzn+dN4HAcREa3r+hi3bcuu68jLskhVIlW073tWaYlQ9+F9IpqmSfq+fwskhdO/AwmUTJXrOuaRQNeRkOd5lq7rXmS5InmERKoER/QMvUAPlZDHcZRhGN4CSeGY+aHMqgcks5RrHv/eeh455x5KrMq2yHQdibDO6ncG/KZWL7M8xDyS1/MIO0NJqdULLS81X6/X6aR0nqBSJcPeZnlZrzN477NKURn2Nus8sjzmEII0TfMiyxUuxphVWjpJkbx0btUnshRihVv70Bv8ItXq6Asoi/ZiCbU6YgAAAABJRU5ErkJggg==);}.error-template {padding: 40px 15px;text-align: center;}.error-actions {margin-top:15px;margin-bottom:15px;}.error-actions .btn { margin-right:10px; }</style></head><body><div class='container'>    <div class='row'>        <div class='col-md-12'>            <div class='error-template'>                <h1>                    Özür Dileriz!</h1>                <h2>                    Bir sorun oluştu...</h2>                <div class='error-details'>                    Tüm seçimleri doğru yaptığınız halde bu sorunla karşılaşıyorsanız lütfen çağrı merkezimizi arayarak destek talep ediniz.                </div>            </div>        </div>    </div></div></body></html>";
                 try {
-                    get_writer().write(nMessage);
-                    get_writer().flush();
-                    get_writer().write(query);
+                    // İsteğin ne kadarının okunduğu belli olmadığından bağlantı bu cevaptan sonra kapatılır
+                    this.keepAlive = false;
+                    get_writer().write("HTTP/1.1 404 Not Found\r\n"
+                            + "Content-Length: " + output.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                            + "Pragma: no-cache\r\n"
+                            + "Content-Type: text/html; charset=utf-8\r\n" + this.endHeader());
+                    get_writer().write(output);
                     get_writer().flush();
-                    this.closeConnection("");
+                    this.endRequest();
                 } catch (Exception e2) {
                     Logger.Error(e2, "Error writing error message", true);
                 }
@@ -860,14 +1001,90 @@ public class ConnectionCore {
         }
     }
 
-    private static int getContentLength(String message) {
-        String[] lines = message.split("\r\n");
-        for (String line : lines) {
-            if (line.startsWith("Content-Length:")) {
-                return Integer.parseInt(line.split(":")[1].trim());
+    // httpclient 4'ün eski (deprecated) ayrıştırıcısı; ClientHandler'dan taşındı, davranışı aynı
+    @SuppressWarnings({"deprecation", "rawtypes"})
+    static HttpMessage parseHttp(String input) {
+        try {
+            SessionInputBuffer inputBuffer = new AbstractSessionInputBuffer() {
+                {
+                    this.init(new ByteArrayInputStream(input.getBytes()), 10, new BasicHttpParams());
+                }
+
+                public boolean isDataAvailable(int timeout) throws IOException {
+                    throw new RuntimeException("have to override but probably not even called");
+                }
+            };
+            HttpMessageParser parser = new HttpRequestParser(inputBuffer, new BasicLineParser(new ProtocolVersion("HTTP", 1, 1)), new DefaultHttpRequestFactory(), new BasicHttpParams());
+            HttpMessage message = parser.parse();
+            if (message instanceof BasicHttpEntityEnclosingRequest) {
+                BasicHttpEntityEnclosingRequest request = (BasicHttpEntityEnclosingRequest) message;
+                EntityDeserializer entityDeserializer = new EntityDeserializer(new LaxContentLengthStrategy());
+                HttpEntity entity = entityDeserializer.deserialize(inputBuffer, message);
+                request.setEntity(entity);
+            }
+
+            return message;
+        } catch (IOException | HttpException e) {
+            throw new RuntimeException("Error parsing http header", e);
+        }
+    }
+
+    static StringDictionary<String> parseCookies(HttpMessage httpMessage) {
+        StringDictionary<String> cookies = new StringDictionary<>();
+        for (Header header : httpMessage.getHeaders("Cookie")) {
+            for (HeaderElement element : header.getElements()) {
+                if (element.getParameters().length > 0) {
+                    for (NameValuePair nvp : element.getParameters()) {
+                        cookies.put(nvp.getName(), nvp.getValue());
+                    }
+                } else {
+                    cookies.put(element.getName(), element.getValue());
+                }
+            }
+        }
+        return cookies;
+    }
+
+    static String webSocketAccept(String webSocketKey) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        byte[] hash = md.digest((webSocketKey + WEB_SOCKET_MAGIC_STRING).getBytes(StandardCharsets.UTF_8));
+        return Base64.encodeBase64String(hash);
+    }
+
+    /**
+     * İstemci permessage-deflate teklif ettiyse bağlantının deflate durumu, yoksa null.
+     */
+    static WSDeflate webSocketDeflate(HttpMessage httpMessage) {
+        Header[] headers = httpMessage.getHeaders(WSDeflate.HEADER);
+        if (headers.length == 0) {
+            return null;
+        }
+        StringBuilder offers = new StringBuilder();
+        for (Header header : headers) {
+            if (offers.length() > 0) {
+                offers.append(',');
+            }
+            offers.append(header.getValue());
+        }
+        return WSDeflate.negotiate(offers.toString());
+    }
+
+    /**
+     * Ham başlık metninden ilk eşleşen başlığın değeri (büyük/küçük harf duyarsız); yoksa null.
+     */
+    static String getHeader(String message, String name) {
+        for (String line : message.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon == name.length() && line.regionMatches(true, 0, name, 0, colon)) {
+                return line.substring(colon + 1).trim();
             }
         }
-        return 0;
+        return null;
+    }
+
+    static int getContentLength(String message) {
+        String length = getHeader(message, "Content-Length");
+        return length != null ? Integer.parseInt(length) : 0;
     }
 
     public static class ExtendedThread extends Thread {
@@ -885,17 +1102,35 @@ public class ConnectionCore {
         public Enums.SocketType type;
         public Thread parent;
         public Socket clientSocket;
-        private int pingCount = 0;
+        public ConnectionContext context;
+        private static final long PING_INTERVAL = 1000L;
+        private long lastPing = System.currentTimeMillis();
+        private String sessionID;
 
         public void run() {
+            if (this.context == null) {
+                this.pump();
+            } else {
+                this.context.run(this::pump);
+            }
+        }
+
+        private void pump() {
             while (true) {
                 if (!this.clientSocket.isClosed() && this.parent.isAlive()) {
                     try {
                         SessionCore sc = SessionCore.getCurrentContext(false);
-                        Thread.sleep(100L);
-                        ++this.pingCount;
-                        if (this.pingCount <= 10) {
+                        long elapsed = System.currentTimeMillis() - this.lastPing;
+                        if (elapsed < PING_INTERVAL) {
                             if (sc == null) {
+                                Thread.sleep(100L);
+                                continue;
+                            }
+
+                            // Session değiştiyse kaçırılmış olabilecek payload'lar için bir kez bakıyoruz
+                            boolean changed = !sc.getSessionID().equals(this.sessionID);
+                            this.sessionID = sc.getSessionID();
+                            if (!changed && !WSUpdateCore.getSignal(this.sessionID).await(PING_INTERVAL - elapsed)) {
                                 continue;
                             }
 
@@ -903,7 +1138,7 @@ public class ConnectionCore {
                             if (this.type == Enums.SocketType.WEBSOCKET) {
                                 payloads = WSUpdateCore.processQueue();
                                 if (payloads.size() > 0) {
-                                    this.websocket.write(new WS.WebSocketMessage('+' + SuResponse.getGSON().toJson(payloads)));
+                                    this.websocket.write('+' + SuResponse.getGSON().toJson(payloads));
                                     System.out.println("Payloads: " + payloads);
                                 }
                                 continue;
@@ -921,12 +1156,12 @@ public class ConnectionCore {
                             continue;
                         }
 
+                        this.lastPing = System.currentTimeMillis();
                         if (this.websocket == null) {
                             continue;
                         }
 
-                        if (this.websocket.write(new WS.WebSocketMessage("sa"))) {
-                            this.pingCount = 0;
+                        if (this.websocket.write("sa")) {
                             continue;
                         }
                     } catch (Exception var5) {
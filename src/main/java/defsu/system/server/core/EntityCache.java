@@ -0,0 +1,216 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Map* entity'leri için Hibernate ikinci seviye önbelleği (JCache).
+ * Bölgeler REGIONS listesinden, Hibernate'ten önce oluşturulur; entity'ler @Cache(region = ...) ile bağlanır.
+ * Varsayılan sağlayıcı Ehcache'dir; PROVIDER başka bir JCache sağlayıcısı gösterirse boyut sınırı uygulanmaz, sadece TTL.
+ * Ehcache'e yalnızca JCache arayüzü üzerinden erişilir (bağımlılığı runtime kapsamındadır); bölge boyutları
+ * REGIONS'tan üretilen Ehcache XML yapılandırmasıyla verilir.
+ */
+public class EntityCache {
+    public static final String REGION_CITY = "city";
+    public static final String REGION_TAXOFFICE = "taxoffice";
+    public static final String REGION_USER = "user";
+    public static final String REGION_QUERY = "default-query-results-region";
+    public static final String REGION_TIMESTAMPS = "default-update-timestamps-region";
+
+    public static boolean ENABLED = true;
+    public static final String EHCACHE_PROVIDER = "org.ehcache.jsr107.EhcacheCachingProvider";
+    public static String PROVIDER = EHCACHE_PROVIDER;
+    public static List<Region> REGIONS = new ArrayList<>(List.of(
+            new Region(REGION_CITY, 3600, 5_000),
+            new Region(REGION_TAXOFFICE, 3600, 5_000),
+            new Region(REGION_USER, 600, 2_000),
+            new Region(REGION_QUERY, 300, 10_000),
+            // Zaman damgaları sorgu önbelleğinin geçerliliğini belirler; süresi dolmamalı ve atılmamalı.
+            new Region(REGION_TIMESTAMPS, 0, 0)
+    ));
+
+    private static final String[] STATS = {"CacheHits", "CacheMisses", "CacheEvictions", "CachePuts", "CacheRemovals"};
+    private static CacheManager cacheManager;
+
+    /**
+     * ttlSeconds 0 ise süre sınırı, maxEntries 0 ise boyut sınırı yoktur.
+     */
+    public static class Region {
+        public final String name;
+        public final long ttlSeconds;
+        public final long maxEntries;
+
+        public Region(String name, long ttlSeconds, long maxEntries) {
+            this.name = name;
+            this.ttlSeconds = ttlSeconds;
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class RegionStats {
+        public String region;
+        public long hits;
+        public long misses;
+        public long evictions;
+        public long puts;
+        public long removals;
+
+        @Override
+        public String toString() {
+            return this.region + " hits=" + this.hits + " misses=" + this.misses + " evictions=" + this.evictions
+                    + " puts=" + this.puts + " removals=" + this.removals;
+        }
+    }
+
+    /**
+     * Bölgeleri oluşturur ve Hibernate'i bu CacheManager'ı kullanacak şekilde ayarlar.
+     */
+    public static void configure(Configuration cfg) {
+        if (!ENABLED) {
+            cfg.setProperty("hibernate.cache.use_second_level_cache", "false");
+            cfg.setProperty("hibernate.cache.use_query_cache", "false");
+            return;
+        }
+        try {
+            CacheManager manager = getCacheManager();
+            cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+            cfg.setProperty("hibernate.cache.use_query_cache", "true");
+            cfg.setProperty("hibernate.cache.region.factory_class", "jcache");
+            cfg.setProperty("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+            cfg.getProperties().put("hibernate.javax.cache.cache_manager", manager);
+        } catch (Exception e) {
+            Logger.Error(e, "EntityCache", true);
+            cfg.setProperty("hibernate.cache.use_second_level_cache", "false");
+            cfg.setProperty("hibernate.cache.use_query_cache", "false");
+        }
+    }
+
+    private static synchronized CacheManager getCacheManager() throws IOException {
+        if (cacheManager == null) {
+            CachingProvider provider = Caching.getCachingProvider(PROVIDER);
+            boolean ehcache = EHCACHE_PROVIDER.equals(provider.getClass().getName());
+            URI uri = ehcache ? ehcacheConfiguration() : URI.create("defsu-entity-cache");
+            CacheManager manager = provider.getCacheManager(uri, EntityCache.class.getClassLoader());
+            for (Region region : REGIONS) {
+                if (manager.getCache(region.name) == null) {
+                    manager.createCache(region.name, jcacheConfiguration(region));
+                }
+                manager.enableStatistics(region.name, true);
+            }
+            cacheManager = manager;
+        }
+        return cacheManager;
+    }
+
+    /**
+     * REGIONS için Ehcache XML yapılandırması; Ehcache CacheManager'ı URI'den okur, bölgeler hazır oluşturulur.
+     */
+    private static URI ehcacheConfiguration() throws IOException {
+        StringBuilder sb = new StringBuilder("<config xmlns=\"http://www.ehcache.org/v3\">\n");
+        for (Region region : REGIONS) {
+            sb.append("  <cache alias=\"").append(region.name).append("\">\n")
+                    .append("    <expiry>").append(region.ttlSeconds > 0 ? "<ttl unit=\"seconds\">" + region.ttlSeconds + "</ttl>" : "<none/>").append("</expiry>\n")
+                    .append("    <heap unit=\"entries\">").append(region.maxEntries > 0 ? region.maxEntries : Integer.MAX_VALUE).append("</heap>\n")
+                    .append("  </cache>\n");
+        }
+        sb.append("</config>\n");
+        Path file = Files.createTempFile("defsu-entity-cache", ".xml");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+        return file.toUri();
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(Region region) {
+        MutableConfiguration<Object, Object> config = new MutableConfiguration<>();
+        config.setStoreByValue(false);
+        config.setStatisticsEnabled(true);
+        if (region.ttlSeconds > 0) {
+            config.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(
+                    new javax.cache.expiry.Duration(java.util.concurrent.TimeUnit.SECONDS, region.ttlSeconds)));
+        }
+        return config;
+    }
+
+    /**
+     * Kayıt veya pojo sınıfının entity'si önbellekli mi.
+     */
+    public static boolean isCached(Class<?> cls) {
+        SessionFactory sf = HibernateCore.getMainSessionFactory();
+        if (!ENABLED || sf == null || cls == null) {
+            return false;
+        }
+        Class<?> pojoCls = cls.getSimpleName().startsWith("Map") ? cls : PojoMapper.pojoClass(cls);
+        return pojoCls != null && pojoCls.isAnnotationPresent(org.hibernate.annotations.Cache.class);
+    }
+
+    /**
+     * ObjectCore.save/saveAll/delete sonrası çağrılır; kaydın entity önbelleğindeki kopyası (commit sonrasında) atılır.
+     * Sorgu önbelleği tablo zaman damgalarıyla Hibernate tarafından geçersiz kılınır.
+     */
+    public static void evict(Class<?> cls, byte[] pk) {
+        if (pk == null || !isCached(cls)) {
+            return;
+        }
+        Class<?> pojoCls = cls.getSimpleName().startsWith("Map") ? cls : PojoMapper.pojoClass(cls);
+        UnitOfWork.afterCommit(() -> HibernateCore.getMainSessionFactory().getCache().evictEntityData(pojoCls, pk));
+    }
+
+    public static void evictAll() {
+        SessionFactory sf = HibernateCore.getMainSessionFactory();
+        if (sf != null) {
+            sf.getCache().evictAllRegions();
+        }
+    }
+
+    /**
+     * Bölge başına JCache istatistikleri (javax.cache CacheStatistics MBean'lerinden okunur).
+     */
+    public static List<RegionStats> getStats() {
+        List<RegionStats> output = new ArrayList<>();
+        if (cacheManager == null) {
+            return output;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Region region : REGIONS) {
+            RegionStats stats = new RegionStats();
+            stats.region = region.name;
+            try {
+                Set<ObjectName> names = server.queryNames(
+                        new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region.name + ",*"), null);
+                for (ObjectName name : names) {
+                    long[] values = new long[STATS.length];
+                    for (int k = 0; k < STATS.length; k++) {
+                        values[k] = ((Number) server.getAttribute(name, STATS[k])).longValue();
+                    }
+                    stats.hits += values[0];
+                    stats.misses += values[1];
+                    stats.evictions += values[2];
+                    stats.puts += values[3];
+                    stats.removals += values[4];
+                }
+            } catch (Exception e) {
+                Logger.Error(e, "EntityCache", true);
+            }
+            output.add(stats);
+        }
+        return output;
+    }
+}
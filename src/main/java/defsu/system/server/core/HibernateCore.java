@@ -12,6 +12,7 @@ import org.hibernate.cfg.Configuration;
 import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @Getter
 @Setter
@@ -27,22 +28,12 @@ public class HibernateCore {
     private static SessionFactory mainSessionFactory;
     @Getter
     @Setter
-    private static Session mainSession;
-    @Getter
-    @Setter
-    private static Transaction mainTransaction;
-    @Getter
-    @Setter
     private static DatabaseConnection mainDatabaseConnection = null;
-    
     /**
-     * Session'ın açıldığı zamanı takip etmek için
+     * JDBC batch boyutu; saveAllMain her bu kadar kayıtta flush/clear yapar
      */
-    private static long sessionCreationTime = 0;
-    /**
-     * Session'ın maksimum yaşam süresi (milisaniye cinsinden) - varsayılan 30 dakika
-     */
-    private static final long MAX_SESSION_AGE_MS = 30 * 60 * 1000;
+    public static int JDBC_BATCH_SIZE = 50;
+    private static final ThreadLocal<UnitOfWork> explicitUnitOfWork = new ThreadLocal<>();
 
     private static SessionFactory buildSessionFactory() {
         try {
@@ -94,26 +85,19 @@ public class HibernateCore {
                     getMainCfg().setProperty("hibernate.c3p0.timeout", "300");
                     getMainCfg().setProperty("hibernate.c3p0.max_statements", "50");
                     getMainCfg().setProperty("hibernate.c3p0.numHelperThreads", "16");
-                    getMainCfg().setProperty("hibernate.cache.provider_class", "org.hibernate.cache.NoCacheProvider");
+                    EntityCache.configure(getMainCfg());
+                    getMainCfg().setProperty("hibernate.jdbc.batch_size", String.valueOf(JDBC_BATCH_SIZE));
+                    getMainCfg().setProperty("hibernate.order_inserts", "true");
+                    getMainCfg().setProperty("hibernate.order_updates", "true");
+                    getMainCfg().setProperty("hibernate.jdbc.batch_versioned_data", "true");
+                    // Sorgu sonrası yüklenen eager ilişkiler (ör. MapUserlog.user) satır başına değil IN ile yüklenir
+                    getMainCfg().setProperty("hibernate.default_batch_fetch_size", String.valueOf(JDBC_BATCH_SIZE));
                     setMainSessionFactory(getMainCfg().buildSessionFactory());
                 }else{
                     Logger.Error("Database connection is not set",true);
                     return;
                 }
             }
-            
-            // Mevcut session açıksa önce kapatalım
-            if (getMainSession() != null && getMainSession().isOpen()) {
-                try {
-                    getMainSession().close();
-                } catch (Exception e) {
-                    Logger.Error( e,"Error closing existing session",true);
-                }
-            }
-            
-            // Yeni session açalım
-            setMainSession(getMainSessionFactory().openSession());
-            sessionCreationTime = System.currentTimeMillis();
         }catch (Exception e){
             Logger.Error(e,true);
         }
@@ -123,46 +107,44 @@ public class HibernateCore {
     }
 
     /**
-     * Session'ın yaşını kontrol eder ve çok uzun süre açık kalmışsa yeniler.
-     * Bu metod, uzun süreli session'ların neden olabileceği bellek sızıntılarını önler.
+     * Session ile yapılan iş; HibernateCore.read/write aktif UnitOfWork varsa onun session'ını verir.
+     */
+    @FunctionalInterface
+    public interface SessionWork<T> {
+        T run(Session session) throws Exception;
+    }
+
+    /**
+     * Aktif UnitOfWork varsa onun session'ında, yoksa kısa ömürlü bir session'da okur.
      */
-    public static void checkSessionAge() {
+    public static <T> T read(SessionWork<T> work) {
         try {
-            // Session null ise veya kapalıysa yeni bir session aç
-            if (getMainSession() == null || !getMainSession().isOpen()) {
-                setMainSession(getMainSessionFactory().openSession());
-                sessionCreationTime = System.currentTimeMillis();
-                return;
+            UnitOfWork uow = UnitOfWork.current();
+            if (uow != null) {
+                return uow.read(work);
             }
-            
-            // Session çok uzun süre açık kalmışsa kapat ve yenisini aç
-            if (System.currentTimeMillis() - sessionCreationTime > MAX_SESSION_AGE_MS) {
-                Logger.Info("Refreshing long-running Hibernate session (age: " + 
-                           ((System.currentTimeMillis() - sessionCreationTime) / 1000) + " seconds)");
-                
-                try {
-                    if (getMainTransaction() != null && getMainTransaction().isActive()) {
-                        getMainTransaction().commit();
-                    }
-                    getMainSession().close();
-                } catch (Exception e) {
-                    Logger.Error( e,"Error closing old session", true);
-                }
-                
-                setMainSession(getMainSessionFactory().openSession());
-                sessionCreationTime = System.currentTimeMillis();
+            try (Session session = getMainSessionFactory().openSession()) {
+                return work.run(session);
             }
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            Logger.Error( e,"Error in checkSessionAge", true);
+            throw new IllegalStateException(e);
         }
     }
 
-    public static <T> boolean saveMain(T entity){
-        checkSessionAge();
+    /**
+     * Aktif UnitOfWork varsa onun transaction'ında (commit kapsam sonunda), yoksa kendi transaction'ında yazar.
+     */
+    public static boolean write(SessionWork<?> work) {
+        UnitOfWork uow = UnitOfWork.current();
+        if (uow != null) {
+            return uow.write(work);
+        }
         Transaction transaction = null;
         try (Session session = getMainSessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            session.persist(entity);
+            work.run(session);
             transaction.commit();
             return true;
         } catch (Exception e) {
@@ -174,92 +156,94 @@ public class HibernateCore {
         }
     }
 
+    public static <T> boolean saveMain(T entity){
+        return write(session -> {
+            session.persist(entity);
+            return null;
+        });
+    }
+
     public static <T> boolean updateMain(T entity) {
-        checkSessionAge();
-        Transaction transaction = null;
-        try (Session session = getMainSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        return write(session -> {
             session.update(entity);
-            transaction.commit();
-            return true;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+            return null;
+        });
+    }
+
+    /**
+     * Eklenecek ve güncellenecek kayıtları tek transaction içinde, JDBC batch ile yazar.
+     * Hata olursa tamamı geri alınır.
+     * Güncellemeler session.update ile yazılır: merge'ün aksine kaydı önce SELECT ile yüklemez.
+     */
+    @SuppressWarnings("deprecation")
+    public static boolean saveAllMain(List<?> inserts, List<?> updates) {
+        return write(session -> {
+            session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+            int count = 0;
+            for (Object entity : inserts) {
+                session.persist(entity);
+                if (++count % JDBC_BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
             }
-            Logger.Error(e, true);
-            return false;
-        }
+            for (Object entity : updates) {
+                session.update(entity);
+                if (++count % JDBC_BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            return null;
+        });
     }
 
     public static <T> boolean deleteMain(T entity) {
-        checkSessionAge();
-        Transaction transaction = null;
-        try (Session session = getMainSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.remove(entity);
-            transaction.commit();
-            return true;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            Logger.Error(e, true);
-            return false;
-        }
+        return write(session -> {
+            session.remove(session.contains(entity) ? entity : session.merge(entity));
+            return null;
+        });
     }
 
     public static <T> T getMain(Class<T> clazz, byte[] id) {
-        checkSessionAge();
-        try (Session session = getMainSessionFactory().openSession()) {
-            return session.get(clazz, id);
+        try {
+            return read(session -> session.get(clazz, id));
         } catch (Exception e) {
             Logger.Error(e, true);
             return null;
         }
     }
 
+    /**
+     * beginTransaction'ın açtığı UnitOfWork'ü commit eder ve kapatır.
+     * Aktif bir kapsam içinde (processMessage veya dıştaki bir UnitOfWork.begin) hiçbir şey commit etmez:
+     * yazmalar kapsam kapanınca birlikte commit edilir veya geri alınır. Bu durumda dönen değer sadece
+     * kapsamın şu ana kadar geri alınmak üzere işaretlenmediğini gösterir, verinin yazıldığını değil.
+     * Sonucun kesin olması gereken iş, UnitOfWork.afterCommit ile commit sonrasına bırakılmalıdır.
+     */
     public boolean commitMain() {
-       checkSessionAge();
-       if(getMainTransaction() != null && getMainSession().isOpen()){
-           try{
-               getMainTransaction().commit();
-           }catch (Exception e){
-               try {
-                   getMainSession().close();
-               } catch (Exception ee) {
-                   Logger.Error(ee,true);
-               }
-               Logger.Error(e,true);
-               return false;
-           }
-              return true;
-       }else{
-              Logger.Error("Transaction is null or session is closed",true);
-              return false;
-       }
+        UnitOfWork explicit = explicitUnitOfWork.get();
+        if (explicit != null) {
+            explicitUnitOfWork.remove();
+            return explicit.end();
+        }
+        UnitOfWork uow = UnitOfWork.current();
+        return uow == null || !uow.isRollbackOnly();
     }
 
     public HibernateCriteriaBuilder getCriteriaBuilder(){
-        checkSessionAge();
         return getMainSessionFactory().getCriteriaBuilder();
     }
 
+    /**
+     * Thread'in aktif UnitOfWork'ü yoksa (processMessage dışı) bir tane açar; commitMain ile kapanır.
+     * Aktif kapsam varsa yeni transaction açılmaz, sonraki yazmalar o kapsamın transaction'ına katılır.
+     */
     public boolean beginTransaction(){
-        try {
-            checkSessionAge();
-            if(!getMainSession().isOpen()){
-                setMainSession(getMainSessionFactory().openSession());
-                sessionCreationTime = System.currentTimeMillis();
-            }
-            if(getMainSession().isOpen()){
-                setMainTransaction(getMainSession().beginTransaction());
-                return true;
-            }
-            return false;
-        }catch (Exception e){
-            Logger.Error(e,true);
-            return false;
+        if (UnitOfWork.current() == null) {
+            explicitUnitOfWork.set(UnitOfWork.begin());
         }
+        return true;
     }
 
     @Getter
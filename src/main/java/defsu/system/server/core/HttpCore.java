@@ -215,7 +215,7 @@ public class HttpCore {
         public String getHeader() {
             StringBuilder output = new StringBuilder();
             if (this.responseOutput != null) {
-                output.append("HTTP/1.0 200 OK\r\nContent-Length: ").append(getResponseOutput().length)
+                output.append("HTTP/1.1 200 OK\r\nContent-Length: ").append(getResponseOutput().length)
                         .append("\r\nCache-Control: ").append(this.cacheAge == 0 ? "no-cache" : "max-age=" + this.cacheAge + ", public")
                         .append("\r\nContent-Type: ").append(this.contentType).append("; charset=utf-8\r\n");
             } else {
@@ -225,7 +225,7 @@ public class HttpCore {
                 } catch (Exception e) {
                     Logger.Error(e, "Can not get byte length of response text", true);
                 }
-                output.append("HTTP/1.0 200 OK\r\nContent-Length: ").append(length)
+                output.append("HTTP/1.1 200 OK\r\nContent-Length: ").append(length)
                         .append("\r\nCache-Control: ").append(this.cacheAge == 0 ? "no-cache" : "max-age=" + this.cacheAge + ", public")
                         .append("\r\nContent-Type: ").append(this.contentType).append("; charset=utf-8\r\n");
             }
@@ -0,0 +1,352 @@
+package defsu.system.server.core;
+
+import defsu.system.server.components.DataTable;
+import defsu.system.server.helpers.SuField;
+import defsu.system.server.utils.Logger;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Liste isteklerinin (@search, @sort, @start, @limit, @page) Criteria sorgusuna çevrilmesi.
+ * @search MapService.appendSearch biçimindedir: "alan=değer;alan=>değer;alan=a|b", sondaki "~" yok sayılır.
+ * @sort MapService.appendSort biçimindedir: "alan=A;alan=D". Kayıtta olmayan alanlar atlanır.
+ * @cursor verilirse (önceki sayfanın ListResult.cursor'ı) OFFSET yerine son satırın sıralama anahtarları
+ * ve birincil anahtarı ile devam edilir; böylece sonraki sayfa her derinlikte aynı maliyettedir. Toplam kayıt sayısı
+ * ilk sayfada bir kez sayılıp cursor'a yazılır, cursor'lu sayfalarda COUNT sorgusu çalıştırılmaz.
+ */
+public class ListQuery {
+    private final Class<? extends SuRecord> _recordClass;
+    private final Class<?> _pojoClass;
+    private final SuRecord.RecordProperties _props;
+    private final String _search;
+    private final String _sort;
+    private final int _start;
+    private final int _limit;
+    private final String _cursor;
+    // Sayfa sorgusunun sıralama anahtarları; son eleman her zaman birincil anahtardır
+    private final List<SortKey> _keys = new ArrayList<>();
+
+    public ListQuery(Class<? extends SuRecord> cls, StringDictionary<String> mem) {
+        this._recordClass = cls;
+        this._pojoClass = PojoMapper.pojoClass(cls);
+        this._props = ObjectCore.createInstance(cls).getField();
+        this._search = mem.get(ObjectCore.CRITERIA_SEARCH, "");
+        this._sort = mem.get(ObjectCore.CRITERIA_ORDER, "");
+        this._limit = Math.max(1, toInt(mem.get(ObjectCore.CRITERIA_LIMIT), DataTable.PAGESIZE));
+        int page = Math.max(1, toInt(mem.get(ObjectCore.CRITERIA_PAGE), 1));
+        this._start = Math.max(0, toInt(mem.get(ObjectCore.CRITERIA_START), (page - 1) * this._limit));
+        this._cursor = mem.get(ObjectCore.CRITERIA_CURSOR, "");
+    }
+
+    public int getStart() {
+        return this._start;
+    }
+
+    public int getLimit() {
+        return this._limit;
+    }
+
+    /**
+     * Sayfadaki kayıtları ve filtreye uyan toplam kayıt sayısını getirir.
+     */
+    public ObjectCore.ListResult execute() {
+        ObjectCore.ListResult output = new ObjectCore.ListResult();
+        try {
+            int total = this.cursorTotal();
+            List<Object> pojos = HibernateCore.read(session -> {
+                output.numTotal = total >= 0 ? total : (int) this.count(session);
+                return output.numTotal > this._start ? this.page(session) : List.of();
+            });
+            for (Object pojo : pojos) {
+                output.records.add((SuRecord) ObjectCore.copyPojoToRecord(pojo, this._recordClass.getDeclaredConstructor().newInstance()));
+            }
+            if (output.records.size() == this._limit && this._start + this._limit < output.numTotal) {
+                output.cursor = this.encodeCursor(output.records.get(output.records.size() - 1), output.numTotal);
+            }
+        } catch (Exception e) {
+            Logger.Error(e, "ListQuery:" + this._recordClass.getName(), true);
+        }
+        return output;
+    }
+
+    private long count(Session session) {
+        CriteriaBuilder builder = session.getCriteriaBuilder();
+        CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+        Root<?> root = criteria.from(this._pojoClass);
+        criteria.select(builder.count(root)).where(this.where(builder, root));
+        return session.createQuery(criteria).getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> page(Session session) {
+        CriteriaBuilder builder = session.getCriteriaBuilder();
+        CriteriaQuery<Object> criteria = (CriteriaQuery<Object>) builder.createQuery(this._pojoClass);
+        Root<?> root = criteria.from(this._pojoClass);
+        List<Order> orders = this.orders(builder, root);
+        Predicate[] where = this.where(builder, root);
+        Object[] seek = this.decodeCursor();
+        if (seek != null) {
+            Predicate[] withSeek = new Predicate[where.length + 1];
+            System.arraycopy(where, 0, withSeek, 0, where.length);
+            withSeek[where.length] = this.seek(builder, root, seek);
+            where = withSeek;
+        }
+        criteria.select(root).where(where).orderBy(orders);
+        return session.createQuery(criteria)
+                .setFirstResult(seek == null ? this._start : 0)
+                .setMaxResults(this._limit)
+                .getResultList();
+    }
+
+    /**
+     * (k1, k2, ..., pk) > (v1, v2, ..., pkV) koşulu; her anahtarın kendi yönüne göre açılmış hali.
+     * MySQL NULL'ları artan sırada başa, azalan sırada sona koyar. Cursor satırının anahtarları null olmadığından
+     * artan anahtarda null'lar zaten geçilmiştir; azalan anahtarda ise cursor'dan sonra gelirler ve "IS NULL" ile eklenir.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Predicate seek(CriteriaBuilder builder, Root<?> root, Object[] values) {
+        List<Predicate> alternatives = new ArrayList<>();
+        for (int i = 0; i < this._keys.size(); i++) {
+            Predicate[] and = new Predicate[i + 1];
+            for (int j = 0; j < i; j++) {
+                and[j] = builder.equal(this._keys.get(j).path, values[j]);
+            }
+            SortKey key = this._keys.get(i);
+            Expression value = builder.literal(values[i]);
+            and[i] = key.desc
+                    ? builder.or(builder.lessThan((Expression) key.path, value), builder.isNull(key.path))
+                    : builder.greaterThan((Expression) key.path, value);
+            alternatives.add(builder.and(and));
+        }
+        return builder.or(alternatives.toArray(new Predicate[0]));
+    }
+
+    private String signature() {
+        return RecordCore.toMD5(this._search + "\n" + this._sort);
+    }
+
+    /**
+     * Bu sayfa, filtre ve sıralama için üretilmiş cursor'daki toplam kayıt sayısı; cursor yoksa veya uymuyorsa -1.
+     */
+    int cursorTotal() {
+        if (this._cursor.isEmpty()) {
+            return -1;
+        }
+        String[] parts = this._cursor.split("\\.");
+        if (parts.length < 3 || toInt(parts[0], -1) != this._start || !parts[1].equals(this.signature())) {
+            return -1;
+        }
+        return toInt(parts[2], -1);
+    }
+
+    /**
+     * Cursor: sonraki sayfanın @start'ı, filtre/sıralama imzası, toplam kayıt sayısı ve son satırın anahtar değerleri.
+     * Sıralama anahtarı null olan satırdan cursor üretilmez; istemci o sayfada OFFSET ile devam eder.
+     */
+    String encodeCursor(SuRecord last, int total) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        StringBuilder sb = new StringBuilder();
+        sb.append(this._start + this._limit).append('.').append(this.signature()).append('.').append(total);
+        for (SortKey key : this._keys) {
+            Object value = ObjectCore.getFieldValue(last, key.field.name);
+            if (value == null) {
+                return null;
+            }
+            String str;
+            if (value instanceof Date) {
+                str = Long.toString(((Date) value).getTime());
+            } else if (value instanceof byte[]) {
+                str = RecordCore.b2H((byte[]) value);
+            } else {
+                str = value.toString();
+            }
+            sb.append('.').append(encoder.encodeToString(str.getBytes(StandardCharsets.UTF_8)));
+        }
+        return sb.toString();
+    }
+
+    Object[] decodeCursor() {
+        if (this._cursor.isEmpty()) {
+            return null;
+        }
+        String[] parts = this._cursor.split("\\.");
+        if (parts.length != this._keys.size() + 3
+                || toInt(parts[0], -1) != this._start
+                || !parts[1].equals(this.signature())) {
+            // Başka bir sayfa, filtre veya sıralama için üretilmiş cursor yok sayılır.
+            return null;
+        }
+        try {
+            Object[] values = new Object[this._keys.size()];
+            for (int i = 0; i < values.length; i++) {
+                String str = new String(Base64.getUrlDecoder().decode(parts[i + 3]), StandardCharsets.UTF_8);
+                SuField field = this._keys.get(i).field;
+                values[i] = switch (field.fieldType) {
+                    case BYTE_ARRAY -> RecordCore.h2B(str);
+                    case STRING -> str;
+                    case INTEGER -> Integer.parseInt(str);
+                    case BOOLEAN -> Boolean.parseBoolean(str);
+                    case DOUBLE, DOUBLE_2, DOUBLE_3, CURRENCY, CURRENCY_2 -> Double.parseDouble(str);
+                    default -> new Date(Long.parseLong(str));
+                };
+            }
+            return values;
+        } catch (Exception e) {
+            Logger.Error(e, "ListQuery: invalid cursor", true);
+            return null;
+        }
+    }
+
+    Predicate[] where(CriteriaBuilder builder, Root<?> root) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (this._search.isEmpty()) {
+            return new Predicate[0];
+        }
+        for (String term : this._search.split(";")) {
+            int eq = term.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String name = term.substring(0, eq);
+            String value = term.substring(eq + 1);
+            if (value.endsWith("~")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            SuField field = this._props.fields.get(name);
+            Path<?> path = path(root, field);
+            if (path == null || value.isEmpty()) {
+                continue;
+            }
+            List<Predicate> alternatives = new ArrayList<>();
+            for (String v : value.split("\\|")) {
+                alternatives.add(this.predicate(builder, path, field, v));
+            }
+            predicates.add(alternatives.size() == 1 ? alternatives.get(0) : builder.or(alternatives.toArray(new Predicate[0])));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    List<Order> orders(CriteriaBuilder builder, Root<?> root) {
+        this._keys.clear();
+        for (String term : this._sort.split(";")) {
+            int eq = term.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            SuField field = this._props.fields.get(term.substring(0, eq));
+            Path<?> path = path(root, field);
+            if (path != null && !field.name.equals(this._props.primaryKey)) {
+                this._keys.add(new SortKey(field, path, ObjectCore.CRITERIA_ORDER_DESC.equals(term.substring(eq + 1))));
+            }
+        }
+        // Sayfalar arası sıranın kararlı olması için son anahtar her zaman birincil anahtardır.
+        SuField pk = this._props.fields.get(this._props.primaryKey);
+        this._keys.add(new SortKey(pk, root.get(this._props.primaryKey), false));
+
+        List<Order> orders = new ArrayList<>(this._keys.size());
+        for (SortKey key : this._keys) {
+            orders.add(key.desc ? builder.desc(key.path) : builder.asc(key.path));
+        }
+        return orders;
+    }
+
+    private record SortKey(SuField field, Path<?> path, boolean desc) {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate predicate(CriteriaBuilder builder, Path<?> path, SuField field, String value) {
+        char op = value.isEmpty() ? 0 : value.charAt(0);
+        if (op == '>' || op == '<') {
+            value = value.substring(1);
+        }
+        if (field.fieldType == SuField.FT.BYTE_ARRAY) {
+            try {
+                return builder.equal(path, RecordCore.h2B(value));
+            } catch (Exception e) {
+                return builder.disjunction();
+            }
+        } else if (field.fieldType == SuField.FT.STRING) {
+            String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return builder.like((Expression<String>) path, "%" + escaped + "%", '\\');
+        }
+        Comparable parsed = parse(field, value);
+        if (parsed == null) {
+            // Alan tipine çevrilemeyen değer hiçbir kayıtla eşleşmez.
+            return builder.disjunction();
+        }
+        Expression expr = path;
+        boolean isDate = parsed instanceof Date;
+        if (op == '>') {
+            return isDate ? builder.greaterThanOrEqualTo(expr, parsed) : builder.greaterThan(expr, parsed);
+        } else if (op == '<') {
+            return isDate ? builder.lessThanOrEqualTo(expr, parsed) : builder.lessThan(expr, parsed);
+        }
+        return builder.equal(path, parsed);
+    }
+
+    private static Comparable<?> parse(SuField field, String value) {
+        try {
+            switch (field.fieldType) {
+                case INTEGER:
+                    return Integer.parseInt(value.trim());
+                case BOOLEAN:
+                    return "true".equalsIgnoreCase(value) || "1".equals(value);
+                case DOUBLE:
+                case DOUBLE_2:
+                case DOUBLE_3:
+                case CURRENCY:
+                case CURRENCY_2:
+                    return Double.parseDouble(value.trim().replace(',', '.'));
+                default:
+                    return parseDate(value.trim());
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Date parseDate(String value) throws ParseException {
+        try {
+            return new SimpleDateFormat(ServerUtility.DATETIME_FORMAT).parse(value);
+        } catch (ParseException e) {
+            return new SimpleDateFormat(ServerUtility.DATE_FORMAT).parse(value);
+        }
+    }
+
+    private static Path<?> path(Root<?> root, SuField field) {
+        if (field == null) {
+            return null;
+        }
+        try {
+            return root.get(field.name);
+        } catch (IllegalArgumentException e) {
+            // Kayıtta olup pojo'da karşılığı olmayan alan (ör. ilişki gösterim alanı)
+            return null;
+        }
+    }
+
+    private static int toInt(String value, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
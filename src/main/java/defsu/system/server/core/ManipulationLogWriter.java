@@ -0,0 +1,270 @@
+package defsu.system.server.core;
+
+import defsu.system.projects.sys.record.User;
+import defsu.system.server.maps.MapUserlog;
+import defsu.system.server.utils.Logger;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Manipülasyon loglarının sınırlı kuyruk ve tek yazıcı thread ile yazılması.
+ * Kaydeden thread sadece kaydın anlık görüntüsünü kuyruğa koyar; yazıcı, hedef PK başına son logun
+ * alan hash'lerini bellekte tutarak değişmeyen kayıtları atlar, sadece değişen alanları ChangeLogCodec ile
+ * yazar ve logları JDBC batch ile ekler.
+ * Kuyruk doluysa kaydeden en fazla OFFER_TIMEOUT_MS bekler, sonra log düşürülür.
+ * Delta'lar kuyruk sırasında zincirlenir; bu sıra yazıcı thread'inde verilen artan bir numarayla loga yazılır ve
+ * geçmiş bu numaraya göre kurulur. manipulationLogDT kaydın kaydedildiği (kullanıcı saatine göre) an, createdDate
+ * yazıcının sunucu saatidir.
+ */
+public class ManipulationLogWriter {
+    public static int CAPACITY = 10_000;
+    public static int BATCH_SIZE = 200;
+    public static int DIGEST_CACHE_SIZE = 10_000;
+    public static long OFFER_TIMEOUT_MS = 50;
+
+    private static volatile BlockingQueue<Entry> queue;
+    private static Thread writer;
+    // Hedef PK (hex) -> son yazılan durumun alan hash'leri; en eski erişilen önce atılır
+    private static final Map<String, long[]> digests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return this.size() > DIGEST_CACHE_SIZE;
+        }
+    };
+
+    // Sadece yazıcı thread'i kullanır; mikro saniye çözünürlüğünde, her logda en az bir artar
+    private static long lastSequence;
+
+    private static final LongAdder submitted = new LongAdder();
+    private static final LongAdder written = new LongAdder();
+    private static final LongAdder unchanged = new LongAdder();
+    private static final LongAdder overflows = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder batches = new LongAdder();
+
+    private static class Entry {
+        byte[] userPK;
+        String recordClass;
+        String title;
+        byte[] targetPK;
+        ChangeLogCodec.Snapshot snapshot;
+        boolean isNew;
+        boolean visible;
+        Date date;
+    }
+
+    public static void submit(User user, SuRecord r, boolean isNew, byte[] pkValue) {
+        if (r.disableLog() || pkValue == null) {
+            return;
+        }
+        Entry e = new Entry();
+        e.userPK = user == null ? null : user.getUserPK();
+        e.recordClass = r.getClass().getName();
+        e.title = r.getField().title;
+        e.targetPK = pkValue;
+        // Kayıt sonradan değişebileceği için anlık görüntü kaydeden thread'de alınır.
+        e.snapshot = ChangeLogCodec.snapshot(r);
+        e.isNew = isNew;
+        e.visible = Boolean.TRUE.equals(ObjectCore.getFieldValue(r, "visible"));
+        // ServerUtility.now() oturum bağlamına bakar; yazıcı thread'inde çağrılırsa boş oturum açar.
+        e.date = ServerUtility.now();
+        // Geri alınan yazmaların logu tutulmaz.
+        UnitOfWork.afterCommit(() -> enqueue(e));
+    }
+
+    private static void enqueue(Entry e) {
+        BlockingQueue<Entry> q = start();
+        submitted.increment();
+        if (q.offer(e)) {
+            return;
+        }
+        overflows.increment();
+        try {
+            if (!q.offer(e, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                dropped.increment();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private static synchronized BlockingQueue<Entry> start() {
+        if (writer == null) {
+            queue = new ArrayBlockingQueue<>(CAPACITY);
+            writer = new Thread(ManipulationLogWriter::run, "manipulation-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        return queue;
+    }
+
+    private static void run() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                Logger.Error(e, "ManipulationLogWriter", true);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void write(List<Entry> batch) {
+        List<Object> logs = new ArrayList<>(batch.size());
+        // Aynı batch'teki aynı hedefin ardışık kopyaları da bu harita ile birleştirilir.
+        Map<String, long[]> pending = new LinkedHashMap<>();
+
+        for (Entry e : batch) {
+            long sequence = nextSequence();
+            String key = RecordCore.b2H(e.targetPK);
+            long[] hashes = e.snapshot.getHashes();
+            byte[] data;
+            if (e.isNew) {
+                if (!e.visible) {
+                    unchanged.increment();
+                    continue;
+                }
+                data = e.snapshot.encode(null, sequence);
+            } else {
+                long[] previous = pending.containsKey(key) ? pending.get(key) : cached(key);
+                if (previous != null) {
+                    if (Arrays.equals(previous, hashes)) {
+                        unchanged.increment();
+                        continue;
+                    }
+                    data = e.snapshot.encode(previous, sequence);
+                } else {
+                    // Önbellekte yoksa sadece en son log satırının durum hash'ine bakılır.
+                    Long lastState = ChangeLogCodec.stateHash(lastLogData(e.targetPK));
+                    if (lastState != null && lastState == e.snapshot.getStateHash()) {
+                        pending.put(key, hashes);
+                        unchanged.increment();
+                        continue;
+                    }
+                    data = e.snapshot.encode(null, sequence);
+                }
+            }
+            pending.put(key, hashes);
+            logs.add(toLog(e, data, sequence));
+        }
+
+        if (!pending.isEmpty()) {
+            synchronized (digests) {
+                digests.putAll(pending);
+            }
+        }
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (HibernateCore.saveAllMain(logs, Collections.emptyList())) {
+            written.add(logs.size());
+            batches.increment();
+            ObjectCore.LOGCOUNT += logs.size();
+        } else {
+            // Yazılamayan delta'lar kaybolduğu için bu hedeflerin sonraki logu tam görüntü olmalı.
+            synchronized (digests) {
+                digests.keySet().removeAll(pending.keySet());
+            }
+        }
+    }
+
+    private static long nextSequence() {
+        lastSequence = Math.max(System.currentTimeMillis() * 1000, lastSequence + 1);
+        return lastSequence;
+    }
+
+    private static long[] cached(String key) {
+        synchronized (digests) {
+            return digests.get(key);
+        }
+    }
+
+    private static byte[] lastLogData(byte[] targetPK) {
+        try (Session session = HibernateCore.getMainSessionFactory().openSession()) {
+            CriteriaBuilder builder = session.getCriteriaBuilder();
+            CriteriaQuery<byte[]> criteria = builder.createQuery(byte[].class);
+            Root<MapUserlog> root = criteria.from(MapUserlog.class);
+            criteria.select(root.get("manipulationLogData")).where(
+                    builder.equal(root.get("manipulationLogTargetFK"), targetPK)
+            ).orderBy(builder.desc(root.get("createdDate")));
+            // createdDate saniye hassasiyetinde; aynı saniyedeki loglar arasından sırası en büyük olan alınır
+            byte[] last = null;
+            for (byte[] data : session.createQuery(criteria).setMaxResults(10).getResultList()) {
+                if (last == null || ChangeLogCodec.sequence(data) > ChangeLogCodec.sequence(last)) {
+                    last = data;
+                }
+            }
+            return last;
+        } catch (Exception ex) {
+            Logger.Error(ex, true);
+            return null;
+        }
+    }
+
+    private static MapUserlog toLog(Entry e, byte[] data, long sequence) {
+        MapUserlog log = new MapUserlog();
+        log.setManipulationLogPK(RecordCore.guid());
+        log.setManipulationLogTypeFK(e.isNew ? RecordCore.i2B(1) : RecordCore.i2B(2));
+        if (e.userPK != null) {
+            log.setUserFK(e.userPK);
+        }
+        log.setManipulationLogStatusFK(RecordCore.i2B(1));
+        log.setManipulationLogDT(e.date);
+        log.setManipulationLogData(data);
+        log.setManipulationLogClass(e.recordClass);
+        log.setManipulationLogTargetFK(e.targetPK);
+        log.setManipulationLogClassTitle(e.title);
+        log.setCreatedDate(new Date(sequence / 1000));
+        return log;
+    }
+
+    public static int getQueued() {
+        BlockingQueue<Entry> q = queue;
+        return q == null ? 0 : q.size();
+    }
+
+    public static long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public static long getWritten() {
+        return written.sum();
+    }
+
+    public static long getUnchanged() {
+        return unchanged.sum();
+    }
+
+    public static long getOverflows() {
+        return overflows.sum();
+    }
+
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    public static long getBatches() {
+        return batches.sum();
+    }
+}
@@ -0,0 +1,863 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Enums;
+import defsu.system.server.utils.Logger;
+import org.apache.http.HttpMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConnectionCore'un selector tabanlı alternatifi. Bağlantılar birkaç event-loop thread'i
+ * üzerinde çoklanır, processMessage ve HTTP sayfaları worker havuzunda çalışır.
+ * Protokol tespiti (GET/POST koklama, SocketType) ConnectionCore ile aynıdır.
+ */
+public class NioConnectionCore {
+    private static final String LOG_UNIT = "NioConnection";
+    private static final int READ_BUFFER_SIZE = 16384;
+    private static final int MAX_HEADER_SIZE = 65536;
+    private static final int MAX_HEADER_LINES = 30;
+    private static final long TICK_MILLIS = 100L;
+    private static final int GATHER_SIZE = 16;
+    private static final int PING_TICKS = 10;
+
+    private int _port = 1920;
+    private ServerSocketChannel _serverChannel;
+    private EventLoop[] _loops;
+    private ExecutorService _workers;
+    private final AtomicInteger _nextLoop = new AtomicInteger();
+
+    public NioConnectionCore(int port, int eventLoops, int workers) {
+        this._port = port;
+        this.ready(Math.max(1, eventLoops), Math.max(1, workers));
+    }
+
+    private void ready(int eventLoops, int workers) {
+        try {
+            System.out.println("Server is running (nio)... on port " + this._port);
+            this._serverChannel = ServerSocketChannel.open();
+            this._serverChannel.bind(new InetSocketAddress(this._port));
+            ConnectionCore.registerMimes();
+            this._workers = Executors.newFixedThreadPool(workers);
+            this._loops = new EventLoop[eventLoops];
+            for (int k = 0; k < eventLoops; k++) {
+                this._loops[k] = new EventLoop();
+                Thread thread = new Thread(this._loops[k], "nio-loop-" + k);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (Exception e) {
+            System.out.println("Error2: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public void startListening() {
+        while (true) {
+            try {
+                SocketChannel channel = this._serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                System.out.println("Client connected: " + channel.socket().getInetAddress().getHostAddress());
+                EventLoop loop = this._loops[Math.floorMod(this._nextLoop.getAndIncrement(), this._loops.length)];
+                loop.register(new Connection(channel, loop));
+            } catch (Exception e) {
+                System.out.println("Error1: " + e.getMessage());
+            }
+        }
+    }
+
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private long lastTick = System.currentTimeMillis();
+        private volatile Thread thread;
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void register(Connection connection) {
+            execute(() -> {
+                try {
+                    connection.key = connection.channel.register(this.selector, SelectionKey.OP_READ, connection);
+                    this.connections.add(connection);
+                } catch (IOException e) {
+                    connection.close();
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            this.tasks.add(task);
+            this.selector.wakeup();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == this.thread;
+        }
+
+        @Override
+        public void run() {
+            this.thread = Thread.currentThread();
+            while (true) {
+                try {
+                    this.selector.select(TICK_MILLIS);
+                    Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        if (!key.isValid()) {
+                            connection.close();
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            connection.onReadable(this.readBuffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+
+                    Runnable task;
+                    while ((task = this.tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now - this.lastTick >= TICK_MILLIS) {
+                        this.lastTick = now;
+                        for (Connection connection : this.connections) {
+                            connection.tick();
+                        }
+                    }
+                } catch (Exception e) {
+                    Logger.Error(e, LOG_UNIT + ".EventLoop", true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Önbellekteki cevabın kanala sırayla yazılacak parçaları: başlık, bağlantı satırları ile başlık sonu ve varsa gövde.
+     */
+    static List<byte[]> assetChunks(ConnectionCore.ClientHandler ch, StaticAssetCache.Response asset) {
+        byte[] end = ch.endHeader().getBytes(StandardCharsets.ISO_8859_1);
+        return asset.body() != null ? List.of(asset.header(), end, asset.body()) : List.of(asset.header(), end);
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final ConnectionContext context = ConnectionContext.open();
+        private final InetAddress remoteAddress;
+        private SelectionKey key;
+        private volatile Enums.SocketType type = Enums.SocketType.NOTSELECTED;
+        private volatile boolean closed = false;
+        private boolean closeAfterWrite = false;
+        private byte[] inbound = new byte[1024];
+        private int inboundSize = 0;
+        private String pendingHeader;
+        private int pendingBodyLength;
+        private boolean pendingChunked;
+        // Kalıcı HTTP bağlantısı: işlenen istek sayısı ve son okuma/cevap zamanı
+        private int requests = 0;
+        private volatile boolean requestInFlight = false;
+        private volatile long lastActivity = System.currentTimeMillis();
+        private final ByteArrayOutputStream fragments = new ByteArrayOutputStream();
+        private boolean compressedMessage = false;
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        // Kanala henüz yazılmamış baytlar; WS yazıcısı HIGH_WATER üstünde bekler
+        private final WSOutbound.Watermark pending = new WSOutbound.Watermark();
+        private final ByteBuffer[] gather = new ByteBuffer[GATHER_SIZE];
+        private final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        private final AtomicBoolean processing = new AtomicBoolean(false);
+        private final AtomicBoolean pumping = new AtomicBoolean(false);
+        private final AtomicBoolean pumpRequested = new AtomicBoolean(false);
+        private final Runnable onSignal = this::requestPump;
+        private WSUpdateCore.Signal signal;
+        private int pingCount = 0;
+        private ConnectionCore.ClientHandler handler;
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            this.remoteAddress = channel.socket().getInetAddress();
+        }
+
+        void onReadable(ByteBuffer buffer) {
+            try {
+                buffer.clear();
+                int read = this.channel.read(buffer);
+                if (read < 0) {
+                    close();
+                    return;
+                }
+                buffer.flip();
+                this.lastActivity = System.currentTimeMillis();
+                append(buffer);
+                parse();
+            } catch (Exception e) {
+                System.out.println("Error3: " + e.getMessage());
+                close();
+            }
+        }
+
+        private void append(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            if (this.inboundSize + length > this.inbound.length) {
+                byte[] grown = new byte[Math.max(this.inbound.length * 2, this.inboundSize + length)];
+                System.arraycopy(this.inbound, 0, grown, 0, this.inboundSize);
+                this.inbound = grown;
+            }
+            buffer.get(this.inbound, this.inboundSize, length);
+            this.inboundSize += length;
+        }
+
+        private void consume(int length) {
+            System.arraycopy(this.inbound, length, this.inbound, 0, this.inboundSize - length);
+            this.inboundSize -= length;
+        }
+
+        private void parse() {
+            while (!this.closed && this.inboundSize > 0) {
+                int consumed;
+                if (this.type == Enums.SocketType.WEBSOCKET) {
+                    consumed = parseFrame();
+                } else if (this.type == Enums.SocketType.RAW) {
+                    consumed = parseLine();
+                } else {
+                    consumed = parseRequest();
+                }
+                if (consumed <= 0) {
+                    return;
+                }
+            }
+        }
+
+        private int lineEnd(int from) {
+            for (int k = from; k < this.inboundSize; k++) {
+                if (this.inbound[k] == '\n') {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        private String lineAt(int from, int end) {
+            int last = end > from && this.inbound[end - 1] == '\r' ? end - 1 : end;
+            return new String(this.inbound, from, last - from, StandardCharsets.UTF_8);
+        }
+
+        private int parseLine() {
+            int end = lineEnd(0);
+            if (end < 0) {
+                return 0;
+            }
+            String line = lineAt(0, end);
+            consume(end + 1);
+            this.inbox.add(line);
+            schedule();
+            return end + 1;
+        }
+
+        private int parseRequest() {
+            if (this.pendingHeader == null) {
+                int position = 0;
+                int lines = 0;
+                StringBuilder header = new StringBuilder();
+                while (true) {
+                    int end = lineEnd(position);
+                    if (end < 0) {
+                        if (this.inboundSize > MAX_HEADER_SIZE) {
+                            closeWith("Too many headers.");
+                        }
+                        return 0;
+                    }
+                    String line = lineAt(position, end);
+                    position = end + 1;
+                    if (lines == 0 && this.type == Enums.SocketType.NOTSELECTED
+                            && !line.startsWith("GET") && !line.startsWith("POST")) {
+                        closeWith("Can not determine socket type.");
+                        return 0;
+                    }
+                    if (line.isEmpty()) {
+                        if (lines == 0) {
+                            consume(position);
+                            return position;
+                        }
+                        break;
+                    }
+                    if (lines > 0) {
+                        header.append("\r\n");
+                    }
+                    header.append(line);
+                    if (++lines > MAX_HEADER_LINES) {
+                        closeWith("Too many headers.");
+                        return 0;
+                    }
+                }
+                consume(position);
+                this.pendingHeader = header.toString();
+                this.pendingBodyLength = ConnectionCore.getContentLength(this.pendingHeader);
+                String encoding = ConnectionCore.getHeader(this.pendingHeader, "Transfer-Encoding");
+                this.pendingChunked = encoding != null && encoding.toLowerCase().contains("chunked");
+            }
+
+            String header = this.pendingHeader;
+            byte[] body;
+            if (this.pendingChunked) {
+                body = dechunk();
+                if (body == null) {
+                    return 0;
+                }
+                // ClientHandler çözülmüş gövdeyi Content-Length ile okur
+                header = withoutTransferEncoding(header) + "\r\nContent-Length: " + body.length;
+            } else {
+                if (this.inboundSize < this.pendingBodyLength) {
+                    return 0;
+                }
+                body = new byte[this.pendingBodyLength];
+                System.arraycopy(this.inbound, 0, body, 0, body.length);
+                consume(body.length);
+            }
+            this.pendingHeader = null;
+            this.pendingBodyLength = 0;
+            this.pendingChunked = false;
+            this.requestInFlight = true;
+
+            // Tam bir istek alınana kadar okumayı durdurup, cevabı worker'da üretiyoruz.
+            this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+            String request = header;
+            NioConnectionCore.this._workers.execute(() -> handleRequest(request, body));
+            return 0;
+        }
+
+        /**
+         * inbound başındaki chunked gövde tamamlandıysa çözüp tüketir; eksikse null döner ve hiçbir şey tüketmez.
+         */
+        private byte[] dechunk() {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int position = 0;
+            while (true) {
+                int end = lineEnd(position);
+                if (end < 0) {
+                    return null;
+                }
+                String line = lineAt(position, end);
+                int extension = line.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? line : line.substring(0, extension)).trim(), 16);
+                position = end + 1;
+                if (size == 0) {
+                    break;
+                }
+                if (position + size > this.inboundSize) {
+                    return null;
+                }
+                body.write(this.inbound, position, size);
+                end = lineEnd(position + size);
+                if (end < 0) {
+                    return null;
+                }
+                position = end + 1;
+            }
+            while (true) {
+                int end = lineEnd(position);
+                if (end < 0) {
+                    return null;
+                }
+                boolean last = end == position || (end == position + 1 && this.inbound[position] == '\r');
+                position = end + 1;
+                if (last) {
+                    break;
+                }
+            }
+            consume(position);
+            return body.toByteArray();
+        }
+
+        private String withoutTransferEncoding(String header) {
+            StringBuilder result = new StringBuilder();
+            for (String line : header.split("\r\n")) {
+                if (!line.regionMatches(true, 0, "Transfer-Encoding:", 0, 18)) {
+                    if (!result.isEmpty()) {
+                        result.append("\r\n");
+                    }
+                    result.append(line);
+                }
+            }
+            return result.toString();
+        }
+
+        private int parseFrame() {
+            if (this.inboundSize < 2) {
+                return 0;
+            }
+            byte[] data = this.inbound;
+            boolean fin = (data[0] & 0x80) != 0;
+            int opcode = data[0] & 0x0F;
+            boolean masked = (data[1] & 0x80) != 0;
+            long length = data[1] & 0x7F;
+            int position = 2;
+            if (length == 126) {
+                if (this.inboundSize < 4) {
+                    return 0;
+                }
+                length = ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+                position = 4;
+            } else if (length == 127) {
+                if (this.inboundSize < 10) {
+                    return 0;
+                }
+                length = 0;
+                for (int k = 2; k < 10; k++) {
+                    length = (length << 8) | (data[k] & 0xFF);
+                }
+                position = 10;
+            }
+            if (length < 0 || length + this.fragments.size() > WSFrameCodec.MAX_MESSAGE_SIZE) {
+                close();
+                return 0;
+            }
+            int maskPosition = position;
+            if (masked) {
+                position += 4;
+            }
+            if (this.inboundSize < position + length) {
+                return 0;
+            }
+
+            if (masked) {
+                WSFrameCodec.unmask(data, position, (int) length, WSFrameCodec.getInt(data, maskPosition), 0);
+            }
+            int consumed = position + (int) length;
+
+            if (opcode == WSFrameCodec.OP_CLOSE) {
+                consume(consumed);
+                close();
+                return 0;
+            }
+            if (opcode == WSFrameCodec.OP_PING) {
+                // Pong da giden kuyruktan geçer; doğrudan kanala yazılırsa yarım kalmış bir çerçevenin arasına girebilir.
+                byte[] payload = Arrays.copyOfRange(data, position, position + (int) length);
+                WSOutbound outbound = this.handler.get_webSocket().getOutbound();
+                NioConnectionCore.this._workers.execute(() -> outbound.send(WSFrameCodec.OP_PONG, payload, payload.length));
+            }
+            if (opcode != WSFrameCodec.OP_PING && opcode != WSFrameCodec.OP_PONG) {
+                if (opcode != WSFrameCodec.OP_CONTINUATION) {
+                    this.compressedMessage = (data[0] & WSFrameCodec.RSV1) != 0;
+                }
+                this.fragments.write(data, position, (int) length);
+            }
+            consume(consumed);
+            if (fin && (opcode & 0x08) == 0) {
+                WSDeflate deflate = this.handler != null ? this.handler.get_webSocket().getDeflate() : null;
+                String body;
+                if (this.compressedMessage && deflate != null) {
+                    try {
+                        body = new String(deflate.inflate(this.fragments.toByteArray(), 0, this.fragments.size()), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        Logger.Error(e, LOG_UNIT + ".inflate", true);
+                        close();
+                        return 0;
+                    }
+                } else {
+                    body = this.fragments.toString(StandardCharsets.UTF_8);
+                }
+                this.fragments.reset();
+                this.inbox.add(body);
+                schedule();
+            }
+            return consumed;
+        }
+
+        private void handleRequest(String header, byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ConnectionCore.ClientHandler ch = new ConnectionCore.ClientHandler(
+                    this.remoteAddress.getHostAddress(), new ByteArrayInputStream(body), out, this.type) {
+                @Override
+                protected void writeAsset(StaticAssetCache.Response asset) {
+                    // Önbellekteki diziler ara tampona kopyalanmadan kanala sıralanır.
+                    for (byte[] chunk : assetChunks(this, asset)) {
+                        send(chunk);
+                    }
+                }
+            };
+            this.context.bind();
+            try {
+                HttpMessage httpMessage = this.type == Enums.SocketType.NOTSELECTED ? ConnectionCore.parseHttp(header) : null;
+                if (httpMessage != null && httpMessage.containsHeader(ConnectionCore.WEB_SOCKET_KEY)) {
+                    upgrade(ch, httpMessage, out);
+                } else {
+                    ch.setType(Enums.SocketType.HTTP);
+                    ch.setRequestCount(this.requests++);
+                    this.type = Enums.SocketType.HTTP;
+                    ch.processRequest(header, true);
+                    ch.get_writer().flush();
+                    send(out.toByteArray());
+                    if (ch.isCloseRequest()) {
+                        closeAfterWrite();
+                    }
+                }
+                listen();
+            } catch (Exception e) {
+                Logger.Error(e, LOG_UNIT + ".handleRequest", true);
+                closeWith("");
+            } finally {
+                ConnectionContext.unbind();
+                this.lastActivity = System.currentTimeMillis();
+                this.requestInFlight = false;
+                resumeReading();
+            }
+        }
+
+        private void upgrade(ConnectionCore.ClientHandler ch, HttpMessage httpMessage, ByteArrayOutputStream out) throws NoSuchAlgorithmException {
+            SessionCore sc = SessionCore.getCurrentContext();
+            StringDictionary<String> cookies = ConnectionCore.parseCookies(httpMessage);
+            if (cookies.containsKey(ConnectionCore.WEB_SOCKET_COOKIE_NAME)) {
+                SessionCore changedContext = SessionCore.change(cookies.get(ConnectionCore.WEB_SOCKET_COOKIE_NAME));
+                if (changedContext == null) {
+                    closeWith("Cannot change session context for session id: " + cookies.get(ConnectionCore.WEB_SOCKET_COOKIE_NAME));
+                    return;
+                }
+            }
+            if (cookies.containsKey(ConnectionCore.WEB_SOCKET_COOKIE_LANG)) {
+                ServerUtility.setParameter("lang", cookies.get(ConnectionCore.WEB_SOCKET_COOKIE_LANG));
+            }
+
+            WSDeflate deflate = ConnectionCore.webSocketDeflate(httpMessage);
+            String response = ConnectionCore.WEB_SOCKET_RESPONSE + "\r\n"
+                    + ConnectionCore.WEB_SOCKET_ACCEPT + ": "
+                    + ConnectionCore.webSocketAccept(httpMessage.getHeaders(ConnectionCore.WEB_SOCKET_KEY)[0].getValue()) + "\r\n"
+                    + (deflate != null ? deflate.responseHeader() : "") + "\r\n";
+            ch.setType(Enums.SocketType.WEBSOCKET);
+            ch.set_webSocket(new ChannelWebSocket(this));
+            ch.get_webSocket().setDeflate(deflate);
+            send(response.getBytes(StandardCharsets.UTF_8));
+
+            this.handler = ch;
+            this.type = Enums.SocketType.WEBSOCKET;
+            sc.setClientHandler(ch);
+        }
+
+        private void resumeReading() {
+            this.loop.execute(() -> {
+                if (!this.closed && this.key.isValid()) {
+                    this.key.interestOps(this.key.interestOps() | SelectionKey.OP_READ);
+                    parse();
+                }
+            });
+        }
+
+        private void schedule() {
+            if (this.processing.compareAndSet(false, true)) {
+                NioConnectionCore.this._workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            this.context.bind();
+            try {
+                String message;
+                while ((message = this.inbox.poll()) != null && !this.closed) {
+                    ConnectionCore.processReply(message, this.remoteAddress, reply -> {
+                        if (this.type == Enums.SocketType.WEBSOCKET) {
+                            this.handler.get_webSocket().stream(out -> {
+                                out.write('>');
+                                reply.writeTo(out);
+                            });
+                        } else {
+                            send((">" + reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    });
+                }
+                listen();
+            } catch (Exception e) {
+                System.out.println("Error4: " + e.getMessage());
+            } finally {
+                ConnectionContext.unbind();
+                this.processing.set(false);
+            }
+            if (!this.inbox.isEmpty() && !this.closed) {
+                schedule();
+            }
+        }
+
+        void tick() {
+            if (this.type == Enums.SocketType.WEBSOCKET && ++this.pingCount > PING_TICKS) {
+                this.pingCount = 0;
+                // Kuyruk doluysa yazan bekler; seçici thread'i beklerse kendi flush'ını da durdurur.
+                WS webSocket = this.handler.get_webSocket();
+                NioConnectionCore.this._workers.execute(() -> webSocket.write("sa"));
+            }
+            // Cevabı bitmiş ve KEEP_ALIVE_TIMEOUT boyunca yeni istek göndermemiş HTTP bağlantısı kapatılır
+            if ((this.type == Enums.SocketType.HTTP || this.type == Enums.SocketType.NOTSELECTED)
+                    && !this.requestInFlight && this.pending.get() == 0
+                    && System.currentTimeMillis() - this.lastActivity > ConnectionCore.KEEP_ALIVE_TIMEOUT) {
+                close();
+            }
+        }
+
+        /**
+         * Bağlantının session sinyalini dinler; session id değiştiyse veya session silinip sinyali yenilendiyse
+         * dinleyiciyi güncel sinyale taşır. Context bağlı bir worker thread'inden çağrılır.
+         */
+        private synchronized void listen() {
+            SessionCore sc = SessionCore.getCurrentContext(false);
+            if (this.closed || sc == null) {
+                return;
+            }
+            WSUpdateCore.Signal current = WSUpdateCore.getSignal(sc.getSessionID());
+            if (current == this.signal) {
+                return;
+            }
+            if (this.signal != null) {
+                this.signal.removeListener(this.onSignal);
+            }
+            this.signal = current;
+            this.signal.addListener(this.onSignal);
+            requestPump();
+        }
+
+        private void requestPump() {
+            if (this.closed || (this.type != Enums.SocketType.WEBSOCKET && this.type != Enums.SocketType.RAW)) {
+                return;
+            }
+            this.pumpRequested.set(true);
+            if (this.pumping.compareAndSet(false, true)) {
+                NioConnectionCore.this._workers.execute(this::pump);
+            }
+        }
+
+        private void pump() {
+            this.context.bind();
+            try {
+                while (this.pumpRequested.getAndSet(false) && !this.closed) {
+                    SessionCore sc = SessionCore.getCurrentContext(false);
+                    if (sc == null) {
+                        break;
+                    }
+                    // Bırakılan sinyalden gelen uyandırmada session yeniden açıldıysa yeni sinyale geçilir
+                    listen();
+                    List<WSUpdateCore.Payload> payloads = WSUpdateCore.processQueue();
+                    if (payloads.size() > 0) {
+                        String message = '+' + SuResponse.getGSON().toJson(payloads);
+                        if (this.type == Enums.SocketType.WEBSOCKET) {
+                            this.handler.get_webSocket().write(message);
+                        } else {
+                            send((message + "\r\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                System.out.println("Dynamic update error: " + e);
+                close();
+            } finally {
+                ConnectionContext.unbind();
+                this.pumping.set(false);
+            }
+            if (this.pumpRequested.get()) {
+                requestPump();
+            }
+        }
+
+        void send(byte[] data) {
+            if (this.closed || data.length == 0) {
+                return;
+            }
+            this.pending.add(data.length);
+            this.outbound.add(ByteBuffer.wrap(data));
+            this.loop.execute(this::flush);
+        }
+
+        /**
+         * Kuyruktaki tamponlar GATHER_SIZE'lık gruplar halinde tek write çağrısıyla yazılır.
+         */
+        void flush() {
+            if (this.closed) {
+                return;
+            }
+            try {
+                while (!this.outbound.isEmpty()) {
+                    int count = 0;
+                    for (ByteBuffer buffer : this.outbound) {
+                        this.gather[count++] = buffer;
+                        if (count == this.gather.length) {
+                            break;
+                        }
+                    }
+                    this.channel.write(this.gather, 0, count);
+                    long written = 0;
+                    boolean blocked = false;
+                    for (int k = 0; k < count; k++) {
+                        if (!blocked && !this.gather[k].hasRemaining()) {
+                            this.outbound.poll();
+                            written += this.gather[k].limit();
+                        } else {
+                            blocked = true;
+                        }
+                        this.gather[k] = null;
+                    }
+                    this.pending.remove(written);
+                    if (blocked) {
+                        this.key.interestOps(this.key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_WRITE);
+                if (this.closeAfterWrite) {
+                    close();
+                }
+            } catch (Exception e) {
+                close();
+            }
+        }
+
+        void offload(Runnable task) {
+            NioConnectionCore.this._workers.execute(task);
+        }
+
+        private void closeAfterWrite() {
+            this.loop.execute(() -> {
+                this.closeAfterWrite = true;
+                flush();
+            });
+        }
+
+        private void closeWith(String lastMessage) {
+            send(lastMessage.getBytes(StandardCharsets.UTF_8));
+            closeAfterWrite();
+        }
+
+        void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.pending.remove(0);
+            this.loop.connections.remove(this);
+            if (this.handler != null && this.handler.get_webSocket() != null) {
+                this.handler.get_webSocket().close();
+            }
+            if (this.signal != null) {
+                this.signal.removeListener(this.onSignal);
+            }
+            try {
+                if (this.key != null) {
+                    this.key.cancel();
+                }
+                this.channel.close();
+            } catch (IOException e) {
+                System.out.println("Error closing connection: " + e);
+            }
+        }
+    }
+
+    /**
+     * Bağlantının WS nesnesi. Yazılan çerçeveler kanal kuyruğuna, okumalar (SynchInteraction)
+     * bağlantının gelen mesaj kuyruğuna yönlenir.
+     */
+    private static class ChannelWebSocket extends WS {
+        private final Connection connection;
+
+        ChannelWebSocket(Connection connection) {
+            super(null, null);
+            this.connection = connection;
+        }
+
+        @Override
+        public boolean write(WS.WebSocketMessage message) {
+            if (this.connection.closed) {
+                return false;
+            }
+            return super.write(message);
+        }
+
+        @Override
+        public boolean stream(WS.MessageBody body) {
+            if (this.connection.closed) {
+                return false;
+            }
+            return super.stream(body);
+        }
+
+        /**
+         * Kanal kuyruğu HIGH_WATER'ı aşarsa seçici LOW_WATER'a indirene kadar beklenir; inmezse bağlantı kapanır.
+         */
+        @Override
+        protected void transmit(byte[] data, int offset, int length) throws IOException {
+            if (this.connection.closed) {
+                throw new IOException("Connection closed");
+            }
+            // Tampon tekrar kullanılacağı için kuyruğa kopyası konur.
+            this.connection.send(Arrays.copyOfRange(data, offset, offset + length));
+            WSOutbound.Watermark pending = this.connection.pending;
+            if (pending.get() > WSOutbound.HIGH_WATER && !this.connection.loop.inLoop()
+                    && !pending.await(() -> !this.connection.closed && pending.get() > WSOutbound.LOW_WATER)) {
+                throw new IOException("Slow consumer, " + pending.get() + " bytes pending");
+            }
+        }
+
+        /**
+         * Seçici thread'inden gelen yazmalarda drain worker'a bırakılır; kanal kuyruğunu sadece seçici boşalttığı için
+         * orada beklemek kendi kendini kilitler.
+         */
+        @Override
+        protected boolean offload(Runnable task) {
+            if (!this.connection.loop.inLoop()) {
+                return false;
+            }
+            this.connection.offload(task);
+            return true;
+        }
+
+        @Override
+        protected void abort() {
+            this.connection.close();
+        }
+
+        @Override
+        public WS.WebSocketMessage read() {
+            try {
+                while (!this.connection.closed) {
+                    String body = this.connection.inbox.poll(1, TimeUnit.SECONDS);
+                    if (body != null) {
+                        WS.WebSocketFrame frame = new WS.WebSocketFrame(false);
+                        frame.setPayload(body.getBytes(StandardCharsets.UTF_8));
+                        return new WS.WebSocketMessage(new WS.WebSocketFrame[]{frame});
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+    }
+}
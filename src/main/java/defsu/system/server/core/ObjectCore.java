@@ -1,7 +1,6 @@
 package defsu.system.server.core;
 
 import defsu.system.SystemApplication;
-import defsu.system.projects.sys.record.Manipulationlog;
 import defsu.system.projects.sys.record.User;
 import defsu.system.server.auth.Permission;
 import defsu.system.server.components.*;
@@ -14,7 +13,6 @@ import defsu.system.server.utils.Logger;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
-import org.hibernate.Session;
 import org.hibernate.query.Query;
 
 import java.io.ByteArrayInputStream;
@@ -25,7 +23,6 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
 public class ObjectCore {
 
@@ -34,6 +31,7 @@ public class ObjectCore {
     public static final String CRITERIA_START = "@start";
     public static final String CRITERIA_LIMIT = "@limit";
     public static final String CRITERIA_ORDER = "@sort";
+    public static final String CRITERIA_CURSOR = "@cursor";
     public static final String CRITERIA_ORDER_ASC = "A";
     public static final String CRITERIA_ORDER_DESC = "D";
     public static final String DBNULL = "DBNULL";
@@ -102,24 +100,7 @@ public class ObjectCore {
     }
 
     public static Object copyPojoToRecord(Object o, SuRecord obj){
-        Method[] sourceMethods = o.getClass().getMethods();
-        Method[] targetMethods = obj.getClass().getMethods();
-        for (Method sourceMethod : sourceMethods) {
-            if (sourceMethod.getName().startsWith("get")) {
-                for (Method targetMethod : targetMethods) {
-                    if (targetMethod.getName().startsWith("set")) {
-                        if (sourceMethod.getName().substring(3).equals(targetMethod.getName().substring(3))) {
-                            try {
-                                targetMethod.invoke(obj, sourceMethod.invoke(o));
-                            } catch (Exception e) {
-                                Logger.Error(e, true);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return obj;
+        return PojoMapper.of(o.getClass(), obj.getClass()).copy(o, obj);
     }
 
     public static String convertToString(Object value, SuField.FT type) {
@@ -195,6 +176,8 @@ public class ObjectCore {
         boolean result = isNew ? hh.saveMain(pojo) : hh.updateMain(pojo);
 
         if (result) {
+            EntityCache.evict(r.getClass(), pkValue);
+            ComboCache.upsert(r);
             if (pumpMessage && (Boolean) getFieldValue(r, "visible")) {
                 sendPumpMessage(r, pkValue, isNew);
             }
@@ -211,11 +194,131 @@ public class ObjectCore {
         return result;
     }
 
-    private static void sendPumpMessage(SuRecord r, byte[] pkValue, boolean isNew) {
-        load(r.getClass(), pkValue);
-        WSUpdateCore.Payload p = new WSUpdateCore.Payload();
-        p.manipulations = new ArrayList<>();
+    public static boolean saveAll(List<SuRecord> records) {
+        return saveAll(records, true);
+    }
+
+    /**
+     * Kayıtları tek transaction'da, JDBC batch ile kaydeder. Handler'lar, pump mesajı (sınıf başına tek payload)
+     * ve manipülasyon logu (tek async batch) kayıt işlemi başarılı olduktan sonra toplu olarak çalıştırılır.
+     */
+    public static boolean saveAll(List<SuRecord> records, boolean pumpMessage) {
+        List<SuRecord> saved = new ArrayList<>(records.size());
+        List<Boolean> isNew = new ArrayList<>(records.size());
+        List<Object> inserts = new ArrayList<>();
+        List<Object> updates = new ArrayList<>();
+        // Yeni kayıtlara verilen PK ve createdDate kayıt başarısız olursa geri alınır; yoksa tekrar denemede UPDATE yapılır.
+        List<SuRecord> created = new ArrayList<>();
+        List<Object> createdDates = new ArrayList<>();
+
+        for (SuRecord r : records) {
+            if (r == null) {
+                continue;
+            }
+            SuRecord.RecordProperties props = r.getField();
+            byte[] pkValue = (byte[]) getFieldValue(r, props.primaryKey);
+            boolean create = pkValue == null;
+            if (create) {
+                created.add(r);
+                createdDates.add(getFieldValue(r, "createdDate"));
+                setFieldValue(r, props.primaryKey, RecordCore.guid());
+                addDate(r);
+            }
+            r.process();
+            Object pojo = newPojo(r);
+            if (pojo == null) {
+                resetCreated(created, createdDates);
+                return false;
+            }
+            (create ? inserts : updates).add(pojo);
+            saved.add(r);
+            isNew.add(create);
+        }
+
+        if (saved.isEmpty()) {
+            return true;
+        }
+        if (!HibernateCore.saveAllMain(inserts, updates)) {
+            resetCreated(created, createdDates);
+            return false;
+        }
+
+        Map<Class<? extends SuRecord>, List<RecordManipulation>> pumps = new LinkedHashMap<>();
+        for (int k = 0; k < saved.size(); k++) {
+            SuRecord r = saved.get(k);
+            EntityCache.evict(r.getClass(), getPrimaryKeyValue(r));
+            ComboCache.upsert(r);
+            if (pumpMessage && Boolean.TRUE.equals(getFieldValue(r, "visible"))) {
+                pumps.computeIfAbsent(r.getClass(), c -> new ArrayList<>())
+                        .add(createManipulation(r, getPrimaryKeyValue(r), isNew.get(k)));
+            }
+            processInsertOrUpdate(r, isNew.get(k));
+        }
+        for (Map.Entry<Class<? extends SuRecord>, List<RecordManipulation>> e : pumps.entrySet()) {
+            WSUpdateCore.Payload p = new WSUpdateCore.Payload();
+            p.manipulations = new ArrayList<>(e.getValue());
+            pump(e.getKey(), p);
+        }
+
+        if (LOG) {
+            User user = ServerUtility.getUser();
+            for (int k = 0; k < saved.size(); k++) {
+                logHandler(user, saved.get(k), isNew.get(k), getPrimaryKeyValue(saved.get(k)));
+            }
+        }
+        return true;
+    }
+
+    private static void resetCreated(List<SuRecord> created, List<Object> createdDates) {
+        for (int k = 0; k < created.size(); k++) {
+            SuRecord r = created.get(k);
+            setFieldValue(r, r.getField().primaryKey, null);
+            try {
+                RecordAccessors.of(r.getClass()).set(r, "createdDate", Date.class, createdDates.get(k));
+            } catch (Throwable e) {
+                Logger.Error(asException(e), "Error setting field:" + r.getClass().getName() + ":createdDate", true);
+            }
+        }
+    }
+
+    public static boolean delete(SuRecord r) {
+        return delete(r, true);
+    }
+
+    public static boolean delete(SuRecord r, boolean pumpMessage) {
+        byte[] pkValue = getPrimaryKeyValue(r);
+        if (pkValue == null) {
+            return false;
+        }
+        Object pojo = newPojo(r);
+        if (pojo == null || !HibernateCore.deleteMain(pojo)) {
+            return false;
+        }
+        EntityCache.evict(r.getClass(), pkValue);
+        ComboCache.remove(r.getClass(), pkValue);
+        if (pumpMessage) {
+            RecordManipulation manipulation = createManipulation(r, pkValue, false);
+            manipulation.type = Enums.ManipulationType.DELETE;
+            WSUpdateCore.Payload p = new WSUpdateCore.Payload();
+            p.manipulations = new ArrayList<>();
+            p.manipulations.add(manipulation);
+            pump(r.getClass(), p);
+        }
+        processDelete(r);
+        return true;
+    }
+
+    private static Object newPojo(SuRecord r) {
+        try {
+            Object pojo = PojoMapper.pojoClass(r.getClass()).getDeclaredConstructor().newInstance();
+            return PojoMapper.of(r.getClass(), pojo.getClass()).copy(r, pojo);
+        } catch (Exception e) {
+            Logger.Error(e, true);
+            return null;
+        }
+    }
 
+    private static RecordManipulation createManipulation(SuRecord r, byte[] pkValue, boolean isNew) {
         RecordManipulation manipulation = new RecordManipulation();
         manipulation.record = getRecord(r);
         manipulation.row = getRecordRow(r);
@@ -224,10 +327,24 @@ public class ObjectCore {
         manipulation.type = isNew ? Enums.ManipulationType.INSERT : Enums.ManipulationType.UPDATE;
         manipulation.owner = ServerUtility.getUser().getUserRealName();
         manipulation.targetPK = RecordCore.b2H(pkValue);
+        return manipulation;
+    }
 
-        p.manipulations.add(manipulation);
-        WSUpdateCore.pump(r.getClass(), p);
-        Combo.updateRegisters(r.getClass());
+    private static void sendPumpMessage(SuRecord r, byte[] pkValue, boolean isNew) {
+        WSUpdateCore.Payload p = new WSUpdateCore.Payload();
+        p.manipulations = new ArrayList<>();
+        p.manipulations.add(createManipulation(r, pkValue, isNew));
+        pump(r.getClass(), p);
+    }
+
+    /**
+     * Aktif UnitOfWork varsa commit sonrasında gönderilir; geri alınan yazmalar abonelere gitmez.
+     */
+    private static void pump(Class<? extends SuRecord> cls, WSUpdateCore.Payload p) {
+        UnitOfWork.afterCommit(() -> {
+            WSUpdateCore.pump(cls, p);
+            Combo.updateRegisters(cls);
+        });
     }
 
     private static void processInsertOrUpdate(SuRecord r, boolean isNew) {
@@ -265,41 +382,7 @@ public class ObjectCore {
         }
     }
     public static void logHandler(final User user, final SuRecord r, final Boolean isNew, final byte[] pkValue) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                Manipulationlog log = new Manipulationlog();
-                byte[] logData = ObjectCore.serialize(r);
-
-                boolean changedNothing = isNew
-                        ? !(Boolean) ObjectCore.getFieldValue(r, "visible")
-                        : Arrays.equals(Manipulationlog.getLastLog(pkValue), logData);
-
-                if (!changedNothing) {
-                    log.setManipulationLogTypeFK(isNew ? RecordCore.i2B(1) : RecordCore.i2B(2));
-
-                    if (user.getUserPK() != null) {
-                        log.setUserFK(user.getUserPK());
-                    }
-
-                    SessionCore sc = SessionCore.getCurrentContext();
-                    sc.getHibernateHandler().beginTransaction();
-
-                    log.setManipulationLogStatusFK(RecordCore.i2B(1));
-                    log.setManipulationLogDT(ServerUtility.now());
-                    log.setManipulationLogData(logData);
-                    log.setManipulationLogClass(r.getClass().getName());
-                    log.setManipulationLogTargetFK(pkValue);
-                    log.setManipulationLogClassTitle(r.getField().title);
-
-                    ObjectCore.save(log, false);
-                    sc.getHibernateHandler().commitMain();
-                    Logger.Info("LOGCOUNT:"+(++LOGCOUNT));
-                }
-            } catch (Exception e) {
-                System.err.println("Error in logHandler: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+        ManipulationLogWriter.submit(user, r, isNew, pkValue);
     }
 
 
@@ -311,7 +394,7 @@ public class ObjectCore {
         for (int k = 0; k < fields.getCount(); k++) {
             try {
                 SuField f = fields.get(k);
-                RecordValue v = createRecordValue(r, f);
+                RecordValue v = createRecordValue(r, fields, k);
                 output.getValues().add(v);
 
                 // İlişkili alanları işlemek için yardımcı metot
@@ -326,9 +409,9 @@ public class ObjectCore {
         return output;
     }
 
-    private static RecordValue createRecordValue(SuRecord r, SuField f) {
-        RecordValue v = new RecordValue(f);
-        v.setValue(toString(getFieldValue(r, f.name)));
+    private static RecordValue createRecordValue(SuRecord r, SuField.SuFieldList fields, int k) {
+        RecordValue v = new RecordValue(fields.get(k));
+        v.setValue(toString(getFieldValue(r, fields, k)));
         return v;
     }
 
@@ -346,16 +429,9 @@ public class ObjectCore {
 
     private static String findRelatedValue(SuRecord r, SuField field, String relName) {
         String relVal = "";
-        List<SuField> path = (List<SuField>) field.path.get(r.getClass().getName());
-        Object related = r;
-
-        // İlgili alana ulaşmak için path'i takip et
-        for (int j = path.size() - 1; j >= 0; j--) {
-            SuField cField = path.get(j);
-            related = getFieldValue(related, cField.name.replace("FK", ""));
-            if (related == null) {
-                return "";
-            }
+        Object related = followPath(r, relName);
+        if (related == null) {
+            return "";
         }
 
         // İlgili değeri al
@@ -369,6 +445,24 @@ public class ObjectCore {
         return relVal;
     }
 
+    /**
+     * relName'in bulunduğu ilişkili nesne; yol üzerindeki bir ilişki boşsa null.
+     */
+    private static Object followPath(SuRecord r, String relName) {
+        RelationGraph.Node node = RelationGraph.of(r.getClass()).get(relName);
+        if (node == null) {
+            return null;
+        }
+        Object related = r;
+        for (String accessor : node.accessors) {
+            related = getFieldValue(related, accessor);
+            if (related == null) {
+                return null;
+            }
+        }
+        return related;
+    }
+
     private static String getComboBoxDisplayedValue(Object related, SuField field, String relName, String relVal) {
         try {
             SuRecord dRelated = (SuRecord) field.relation.targetClass.getDeclaredConstructor().newInstance();
@@ -386,6 +480,13 @@ public class ObjectCore {
     }
 
     public static RecordRow getRecordRow(SuRecord r, ObjectCore.ListResultParams params) {
+        return getRecordRow(r, params, null);
+    }
+
+    /**
+     * relations verilirse ilişki sütunları satır başına sorgu yerine RelationPrefetcher'ın topladığı değerlerden okunur.
+     */
+    public static RecordRow getRecordRow(SuRecord r, ObjectCore.ListResultParams params, RelationPrefetcher.Batch relations) {
         RecordRow row = new RecordRow();
         String langCode = SystemApplication.DEFAULT_LANGUAGE;
 
@@ -394,11 +495,11 @@ public class ObjectCore {
             try {
                 SuField f = fields.get(k);
                 if (params.isColumnAllowed(f.name)) {
-                    RecordRow.RecordColumnData cData = createColumnData(r, f, langCode);
+                    RecordRow.RecordColumnData cData = createColumnData(r, fields, k, langCode);
                     row.getColumns().add(cData);
 
                     if (f.relation != null) {
-                        row.getColumns().addAll(getRelationData(r, f));
+                        row.getColumns().addAll(getRelationData(r, f, relations));
                     }
                 }
             } catch (Exception e) {
@@ -411,9 +512,10 @@ public class ObjectCore {
         return row;
     }
 
-    private static RecordRow.RecordColumnData createColumnData(SuRecord r, SuField f, String langCode) {
+    private static RecordRow.RecordColumnData createColumnData(SuRecord r, SuField.SuFieldList fields, int k, String langCode) {
+        SuField f = fields.get(k);
         RecordRow.RecordColumnData cData = new RecordRow.RecordColumnData();
-        String val = getLanguageSpecificValue(r, f, langCode);
+        String val = getLanguageSpecificValue(r, fields, k, langCode);
 
         cData.setName(f.name);
         /*if (f.translateable && val.startsWith("??") && val.endsWith("??")) {
@@ -437,21 +539,26 @@ public class ObjectCore {
         return cData;
     }
 
-    private static String getLanguageSpecificValue(SuRecord r, SuField f, String langCode) {
+    private static String getLanguageSpecificValue(SuRecord r, SuField.SuFieldList fields, int k, String langCode) {
+        SuField f = fields.get(k);
         if (f.getLanguageColumns() != null) {
             StringDictionary<SuField.LanguageColumn> languageColumns = f.getLanguageColumns();
             if (languageColumns.containsKey(langCode)) {
                 return convertToString(getFieldValue(r, languageColumns.get(langCode).columnName), f.fieldType);
             }
         }
-        return convertToString(getFieldValue(r, f.name), f.fieldType);
+        return convertToString(getFieldValue(r, fields, k), f.fieldType);
     }
 
-    private static List<RecordRow.RecordColumnData> getRelationData(SuRecord r, SuField f) {
+    private static List<RecordRow.RecordColumnData> getRelationData(SuRecord r, SuField f, RelationPrefetcher.Batch relations) {
         List<RecordRow.RecordColumnData> relatedColumns = new ArrayList<>();
-        for (String relName : f.relation.displayFields) {
+        String[] displayFields = f.relation.displayFields;
+        for (int i = 0; i < displayFields.length; i++) {
+            String relName = displayFields[i];
             RecordRow.RecordColumnData relData = new RecordRow.RecordColumnData();
-            String relVal = getRelatedFieldValue(r, relName, f);
+            String relVal = relations != null && relations.covers(f, i)
+                    ? relations.value(f, i, (byte[]) getFieldValue(r, f.name))
+                    : getRelatedFieldValue(r, relName, f);
             relData.setName(relName);
             relData.setValue(relVal);
             relatedColumns.add(relData);
@@ -463,11 +570,8 @@ public class ObjectCore {
         SuField field = findForeignField(r, relName, r.getClass());
         if (field == null) return "";
 
-        Object related = r;
-        for (SuField cField : field.path.getOrDefault(r.getClass().getName(), Collections.emptyList())) {
-            related = getFieldValue(related, cField.name.replace("FK", ""));
-            if (related == null) return "";
-        }
+        Object related = followPath(r, relName);
+        if (related == null) return "";
 
         String relVal = toString(getFieldValue(related, relName));
         if (field.displayAs == SuField.DT.COMBOBOX) {
@@ -560,15 +664,9 @@ public class ObjectCore {
     }
 
     private static String getDynamicComboAdapterValue(DynamicComboAdapter dca, SuField f, String value, boolean translate, String fieldName) {
-        dca.resetPairs();
-        String translatedValue = getComboAdapterValue(dca, value, translate);
-        if (translatedValue != null) {
-            return translatedValue;
-        }
-
         try {
-            Class<?> cls = dca.getTargetClass();
-            return getFieldValue(f.displayField, (Class<SuRecord>)cls, RecordCore.h2B(value), fieldName);
+            String displayed = dca.lookup(value);
+            return displayed != null ? translateIfNeeded(displayed, translate) : "-";
         } catch (Exception e) {
             e.printStackTrace();
             return "";
@@ -601,32 +699,12 @@ public class ObjectCore {
         return value;
     }
 
+    /**
+     * İlişkiler üzerinden erişilen gösterim alanı; yol RelationGraph'tan okunur.
+     */
     public static SuField findForeignField(SuRecord r, String fieldName, Class<? extends SuRecord> forClass) {
-        SuField.SuFieldList fields = r.getField().fields;
-
-        for (int k = 0; k < fields.getCount(); k++) {
-            SuField field = fields.get(k);
-            if (field.relation != null) {
-                SuRecord instance = createInstance((Class<? extends SuRecord>) field.relation.targetClass);
-                if (instance == null) {
-                    System.out.println("Error initiating foreign field class: " + r.getClass().getName() + "." + field.name);
-                    return null;
-                }
-
-                SuField targetField = findInDisplayFields(instance, field, fieldName, forClass);
-                if (targetField != null) {
-                    return targetField;
-                }
-
-                SuField f2 = findForeignField(instance, fieldName, forClass);
-                if (f2 != null) {
-                    f2.path.get(forClass.getName()).add(field);
-                    return f2;
-                }
-            }
-        }
-
-        return null;
+        RelationGraph.Node node = RelationGraph.of(forClass).get(fieldName);
+        return node != null ? node.field : null;
     }
     
     
@@ -781,107 +859,60 @@ public class ObjectCore {
         }
     }
 
-    private static SuField findInDisplayFields(SuRecord instance, SuField field, String fieldName, Class<?> forClass) {
-        if (field.relation.displayFields == null) {
-            return null;
-        }
-
-        for (String s : field.relation.displayFields) {
-            if (s.equals(fieldName)) {
-                SuField targetField = instance.getField().fields.get(fieldName);
-                if (targetField != null) {
-                    targetField.path.put(forClass.getName(), new ArrayList<>());
-                    targetField.path.get(forClass.getName()).add(field);
-                    return targetField;
-                }
-            }
-        }
-
-        return null;
-    }
-
-
-
-
-
+    /**
+     * Kaydın detached entity karşılığı. Kayıt Map* sınıfının tüm alanlarını taşıdığı için
+     * satır veritabanından yüklenmez; updateMain tek bir UPDATE ile yazar.
+     */
     public static Object getPojo(SuRecord r){
-        Class pojoCls;
-        Object pojo;
-        try{
-            for (pojoCls = r.getClass().getSuperclass(); !pojoCls.getSimpleName().startsWith("Map"); pojoCls = pojoCls.getSuperclass()) {
-            }
-            byte[] primaryKey = getPrimaryKeyValue(r);
-            if(primaryKey != null){
-                pojo = HibernateCore.getMain(pojoCls, primaryKey);
-            }else{
-                pojo = null;
-            }
+        return newPojo(r);
+    }
 
-            if(pojo == null){
-                pojo = pojoCls.newInstance();
-            }
 
-            Method[] targetMethods = pojo.getClass().getMethods();
-            Method[] sourceMethods = r.getClass().getMethods();
-
-            for (Method targetMethod : targetMethods) {
-                if (targetMethod.getName().startsWith("set")) {
-                    for (Method sourceMethod : sourceMethods) {
-                        if (sourceMethod.getName().startsWith("get")) {
-                            if (sourceMethod.getName().substring(3).equals(targetMethod.getName().substring(3))) {
-                                targetMethod.invoke(pojo, sourceMethod.invoke(r));
-                            }
-                        }
-                    }
-                }
-            }
-            return pojo;
-        }catch (Exception e){
-            Logger.Error(e, true);
+    public static Object getFieldValue(Object r, String fieldName) {
+        try {
+            return RecordAccessors.of(r.getClass()).get(r, fieldName);
+        } catch (Throwable e) {
+            Logger.Error(asException(e),"Error setting field:"+r.getClass().getName()+":"+fieldName, true);
             return null;
         }
     }
 
-
-    private static String generateAccessorName(String prefix, String fieldName) {
-        return prefix + fieldName.substring(0, 1).replace("i","I").toUpperCase(Locale.getDefault()) + fieldName.substring(1);
-    }
-
-    public static Object getFieldValue(Object r, String fieldName) {
-        String accessorName = generateAccessorName("get", fieldName);
-
+    /**
+     * fields listesindeki k. alanın değeri; getter tablosundan sıra ile okunur.
+     */
+    public static Object getFieldValue(SuRecord r, SuField.SuFieldList fields, int k) {
         try {
-            Method getAccessor = r.getClass().getMethod(accessorName);
-            Object value = getAccessor.invoke(r);
-            return value;
-        } catch (Exception e) {
-            Logger.Error(e,"Error setting field:"+r.getClass().getName()+":"+fieldName, true);
+            return RecordAccessors.of(r.getClass()).get(r, fields, k);
+        } catch (Throwable e) {
+            Logger.Error(asException(e),"Error setting field:"+r.getClass().getName()+":"+fields.get(k).name, true);
             return null;
         }
     }
 
     public static void setFieldValue(SuRecord r, String fieldName, Object value) {
         String langCode = SystemApplication.DEFAULT_LANGUAGE;
-        String accessorName = generateAccessorName("set", fieldName);
+        String accessorField = fieldName;
 
         SuField field = r.getField().fields.get(fieldName);
         if (field != null && field.getLanguageColumns() != null) {
             StringDictionary<SuField.LanguageColumn> languageColumns = field.getLanguageColumns();
             if (languageColumns.containsKey(langCode)) {
-                String languageColumn = languageColumns.get(langCode).columnName;
-                accessorName = generateAccessorName("set", languageColumn);
+                accessorField = languageColumns.get(langCode).columnName;
             }
         }
 
         try {
             Class<?> vCls = determineValueClass(value);
-            Method setAccessor = r.getClass().getMethod(accessorName, vCls);
-            setAccessor.invoke(r, value);
-        } catch (Exception e) {
-            Logger.Error(e,"Error setting field:"+r.getClass().getName()+":"+fieldName, true);
+            RecordAccessors.of(r.getClass()).set(r, accessorField, vCls, value);
+        } catch (Throwable e) {
+            Logger.Error(asException(e),"Error setting field:"+r.getClass().getName()+":"+fieldName, true);
         }
     }
 
+    private static Exception asException(Throwable e) {
+        return e instanceof Exception ? (Exception) e : new RuntimeException(e);
+    }
+
     private static Class<?> determineValueClass(Object value) {
         if (value == null) {
             return byte[].class;
@@ -939,18 +970,21 @@ public class ObjectCore {
         return convertToString(value, (SuField.FT) null);
     }
 
+    @SuppressWarnings("unchecked")
     public static <T> ListResult list(Class<T> cls, CriteriaQuery<T> criteria, ListParameter params) {
         ListResult output = new ListResult();
 
-        try (Session session = HibernateCore.getMainSessionFactory().openSession()) {
-            CriteriaBuilder builder = session.getCriteriaBuilder();
+        try {
             output.numTotal = 0;
-            Query<T> query = session.createQuery(criteria);
-            if (params != null) {
-                query.setFirstResult(params.start);
-                query.setMaxResults(params.limit);
-            }
-            output.records = (List<SuRecord>) query.getResultList();
+            output.records = HibernateCore.read(session -> {
+                Query<T> query = session.createQuery(criteria);
+                query.setCacheable(EntityCache.isCached(cls));
+                if (params != null) {
+                    query.setFirstResult(params.start);
+                    query.setMaxResults(params.limit);
+                }
+                return (List<SuRecord>) query.getResultList();
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -960,12 +994,13 @@ public class ObjectCore {
     public static <T> ListResult list(Class<? extends SuRecord> cls, CriteriaQuery<T> criteria) {
         ListResult output = new ListResult();
 
-        try (Session session = HibernateCore.getMainSessionFactory().openSession()) {
-            CriteriaBuilder builder = session.getCriteriaBuilder();
+        try {
             output.numTotal = 0;
-            Query<T> query = session.createQuery(criteria);
-            // output.records = (List<Object>) query.getResultList();
-            List<Object> records = (List<Object>) query.getResultList();
+            List<?> records = HibernateCore.read(session -> {
+                Query<T> query = session.createQuery(criteria);
+                query.setCacheable(EntityCache.isCached(cls));
+                return query.getResultList();
+            });
             for (Object record : records) {
                 output.records.add((SuRecord) copyPojoToRecord(record, cls.newInstance()));
             }
@@ -978,6 +1013,24 @@ public class ObjectCore {
 
 
 
+    /**
+     * Liste servislerinin ortak sorgusu: filtre, sıralama ve sayfa bilgisi mem'den okunur,
+     * numTotal ayrı bir count sorgusuyla doldurulur. Aboneliğin canlı güncelleme limitleri de burada kaydedilir.
+     */
+    public static ListResult listAsRecordRow(Class<? extends SuRecord> cls, StringDictionary<String> mem) {
+        return listAsRecordRow(cls, mem, new ListResultParams());
+    }
+
+    public static ListResult listAsRecordRow(Class<? extends SuRecord> cls, StringDictionary<String> mem, ListResultParams params) {
+        WSUpdateCore.limitSubscriber(cls, mem);
+        ListResult output = new ListQuery(cls, mem).execute();
+        RelationPrefetcher.Batch relations = RelationPrefetcher.load(cls, output.records);
+        for (SuRecord r : output.records) {
+            output.rows.add(getRecordRow(r, params, relations));
+        }
+        return output;
+    }
+
     public static class ListParameter {
         public int start;
         public int limit;
@@ -990,6 +1043,10 @@ public class ObjectCore {
         public List<SuRecord> records = new ArrayList();
         public List<RecordRow> rows = new ArrayList();
         public int numTotal = 0;
+        /**
+         * Sonraki sayfa için keyset cursor'ı; son sayfada veya üretilemediğinde null
+         */
+        public String cursor;
         public String dateFormat;
 
         public ListResult() {
@@ -0,0 +1,114 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kayıt (SuRecord) ile Map* pojo'su arasında alan kopyalayıcı. Her (kaynak, hedef) sınıf çifti için
+ * eşleşen getXxx/setXxx çiftleri bir kez bulunur; kopyalama bu çiftler üzerinde düz bir döngüdür.
+ */
+public final class PojoMapper {
+    private static final MethodHandles.Lookup _lookup = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<Map<Class<?>, PojoMapper>> _mappers = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, PojoMapper> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final ClassValue<Class<?>> _pojoClasses = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            Class<?> pojoCls = type.getSuperclass();
+            while (pojoCls != null && !pojoCls.getSimpleName().startsWith("Map")) {
+                pojoCls = pojoCls.getSuperclass();
+            }
+            return pojoCls;
+        }
+    };
+
+    private final String[] _names;
+    private final MethodHandle[] _getters;
+    private final MethodHandle[] _setters;
+
+    private PojoMapper(Class<?> source, Class<?> target) {
+        Map<String, List<Method>> setters = new HashMap<>();
+        for (Method m : target.getMethods()) {
+            if (!Modifier.isStatic(m.getModifiers()) && m.getName().startsWith("set") && m.getParameterCount() == 1) {
+                setters.computeIfAbsent(m.getName().substring(3), k -> new ArrayList<>()).add(m);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> targetSetters = new ArrayList<>();
+        for (Method getter : source.getMethods()) {
+            if (Modifier.isStatic(getter.getModifiers()) || !getter.getName().startsWith("get") || getter.getParameterCount() != 0) {
+                continue;
+            }
+            String name = getter.getName().substring(3);
+            for (Method setter : setters.getOrDefault(name, List.of())) {
+                // Tipi uymayan setter her çağrıda hata verirdi; çifte alınmaz.
+                if (!wrap(setter.getParameterTypes()[0]).isAssignableFrom(wrap(getter.getReturnType()))) {
+                    continue;
+                }
+                try {
+                    getters.add(_lookup.unreflect(getter).asType(GETTER_TYPE));
+                    targetSetters.add(_lookup.unreflect(setter).asType(SETTER_TYPE));
+                    names.add(name);
+                } catch (IllegalAccessException e) {
+                    Logger.Error(e, true);
+                }
+            }
+        }
+        this._names = names.toArray(new String[0]);
+        this._getters = getters.toArray(new MethodHandle[0]);
+        this._setters = targetSetters.toArray(new MethodHandle[0]);
+    }
+
+    public static PojoMapper of(Class<?> source, Class<?> target) {
+        Map<Class<?>, PojoMapper> byTarget = _mappers.get(source);
+        PojoMapper mapper = byTarget.get(target);
+        if (mapper == null) {
+            mapper = byTarget.computeIfAbsent(target, t -> new PojoMapper(source, t));
+        }
+        return mapper;
+    }
+
+    /**
+     * Kayıt sınıfının üst sınıflarından ilk Map* sınıfı; bulunamazsa null.
+     */
+    public static Class<?> pojoClass(Class<?> recordCls) {
+        return _pojoClasses.get(recordCls);
+    }
+
+    public <T> T copy(Object source, T target) {
+        for (int k = 0; k < this._getters.length; k++) {
+            try {
+                this._setters[k].invokeExact((Object) target, (Object) this._getters[k].invokeExact(source));
+            } catch (Throwable e) {
+                Logger.Error(e instanceof Exception ? (Exception) e : new RuntimeException(e), "PojoMapper:" + this._names[k], true);
+            }
+        }
+        return target;
+    }
+
+    public int getPropertyCount() {
+        return this._getters.length;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
@@ -0,0 +1,129 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.SuField;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sınıf başına bir kez oluşturulan getter/setter tablosu. ObjectCore.getFieldValue ve setFieldValue
+ * her çağrıda getMethod/invoke yapmak yerine buradaki MethodHandle'ları kullanır.
+ */
+public final class RecordAccessors {
+    private static final MethodHandles.Lookup _lookup = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<RecordAccessors> _tables = new ClassValue<>() {
+        @Override
+        protected RecordAccessors computeValue(Class<?> type) {
+            return new RecordAccessors(type);
+        }
+    };
+
+    private final Class<?> _type;
+    // Accessor adı -> handle; sınıf yüklenirken bir kez doldurulur
+    private final Map<String, MethodHandle> _gettersByName = new HashMap<>();
+    private final Map<String, Map<Class<?>, MethodHandle>> _settersByName = new HashMap<>();
+    // Alan adı -> handle; accessor adı üretimi alan başına bir kez yapılır
+    private final Map<String, MethodHandle> _getters = new ConcurrentHashMap<>();
+    private final Map<String, Map<Class<?>, MethodHandle>> _setters = new ConcurrentHashMap<>();
+    // SuField sırasına göre getter'lar; kayıt sınıflarının alan listesi statik olduğu için bir kez kurulur
+    private volatile Positions _positions;
+
+    private RecordAccessors(Class<?> type) {
+        this._type = type;
+        for (Method m : type.getMethods()) {
+            if (Modifier.isStatic(m.getModifiers()) || m.isBridge()) {
+                continue;
+            }
+            try {
+                String name = m.getName();
+                if (name.startsWith("get") && m.getParameterCount() == 0) {
+                    this._gettersByName.putIfAbsent(name, _lookup.unreflect(m).asType(GETTER_TYPE));
+                } else if (name.startsWith("set") && m.getParameterCount() == 1) {
+                    this._settersByName.computeIfAbsent(name, k -> new HashMap<>())
+                            .putIfAbsent(m.getParameterTypes()[0], _lookup.unreflect(m).asType(SETTER_TYPE));
+                }
+            } catch (IllegalAccessException ignored) {
+                // Erişilemeyen metot tabloya girmez; çağrıldığında NoSuchMethodException alınır.
+            }
+        }
+    }
+
+    public static RecordAccessors of(Class<?> type) {
+        return _tables.get(type);
+    }
+
+    static String accessorName(String prefix, String fieldName) {
+        return prefix + fieldName.substring(0, 1).replace("i", "I").toUpperCase(Locale.getDefault()) + fieldName.substring(1);
+    }
+
+    public MethodHandle getter(String fieldName) throws NoSuchMethodException {
+        MethodHandle h = this._getters.get(fieldName);
+        if (h == null) {
+            String accessorName = accessorName("get", fieldName);
+            h = this._gettersByName.get(accessorName);
+            if (h == null) {
+                throw new NoSuchMethodException(this._type.getName() + "." + accessorName + "()");
+            }
+            this._getters.put(fieldName, h);
+        }
+        return h;
+    }
+
+    public MethodHandle setter(String fieldName, Class<?> valueClass) throws NoSuchMethodException {
+        Map<Class<?>, MethodHandle> byType = this._setters.get(fieldName);
+        if (byType == null) {
+            byType = this._settersByName.getOrDefault(accessorName("set", fieldName), Collections.emptyMap());
+            this._setters.put(fieldName, byType);
+        }
+        MethodHandle h = byType.get(valueClass);
+        if (h == null) {
+            throw new NoSuchMethodException(this._type.getName() + "." + accessorName("set", fieldName) + "(" + valueClass.getName() + ")");
+        }
+        return h;
+    }
+
+    /**
+     * fields listesindeki k. alanın getter'ı.
+     */
+    public MethodHandle getter(SuField.SuFieldList fields, int k) throws NoSuchMethodException {
+        Positions positions = this._positions;
+        if (positions == null || positions.fields != fields) {
+            positions = new Positions(fields, new MethodHandle[fields.getCount()]);
+            for (int i = 0; i < positions.getters.length; i++) {
+                positions.getters[i] = this._gettersByName.get(accessorName("get", fields.get(i).name));
+            }
+            this._positions = positions;
+        }
+        MethodHandle[] getters = positions.getters;
+        if (k >= getters.length) {
+            return this.getter(fields.get(k).name);
+        }
+        MethodHandle h = getters[k];
+        return h != null ? h : this.getter(fields.get(k).name);
+    }
+
+    private record Positions(SuField.SuFieldList fields, MethodHandle[] getters) {
+    }
+
+    public Object get(Object target, String fieldName) throws Throwable {
+        return (Object) this.getter(fieldName).invokeExact(target);
+    }
+
+    public Object get(Object target, SuField.SuFieldList fields, int k) throws Throwable {
+        return (Object) this.getter(fields, k).invokeExact(target);
+    }
+
+    public void set(Object target, String fieldName, Class<?> valueClass, Object value) throws Throwable {
+        this.setter(fieldName, valueClass).invokeExact(target, value);
+    }
+}
@@ -0,0 +1,98 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.SuField;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kayıt sınıfı başına bir kez kurulan ilişki grafiği: gösterim alanı adı -> (hedef alan, erişim yolu).
+ * findForeignField ve ilişki sütunları hedef kayıtları her çağrıda oluşturmak yerine buradan okur.
+ * Aynı ad birden fazla yoldan erişilebiliyorsa, eski arama sırası korunur (ilk ilişki, önce doğrudan hedef).
+ */
+public final class RelationGraph {
+    private static final ClassValue<RelationGraph> _graphs = new ClassValue<>() {
+        @Override
+        protected RelationGraph computeValue(Class<?> type) {
+            return new RelationGraph(build(type, new HashSet<>()));
+        }
+    };
+
+    /**
+     * path dıştan içe ilişki alanlarıdır; accessors her adımda çağrılacak getter'ın alan adı (FK'sız).
+     */
+    public static final class Node {
+        public final SuField field;
+        public final SuField[] path;
+        public final String[] accessors;
+
+        private Node(SuField field, SuField[] path) {
+            this.field = field;
+            this.path = path;
+            this.accessors = new String[path.length];
+            for (int k = 0; k < path.length; k++) {
+                this.accessors[k] = path[k].name.replace("FK", "");
+            }
+        }
+    }
+
+    private final Map<String, Node> _nodes;
+
+    private RelationGraph(Map<String, Node> nodes) {
+        this._nodes = nodes;
+    }
+
+    public static RelationGraph of(Class<? extends SuRecord> cls) {
+        return _graphs.get(cls);
+    }
+
+    public Node get(String fieldName) {
+        return this._nodes.get(fieldName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Node> build(Class<?> type, Set<Class<?>> visiting) {
+        if (!SuRecord.class.isAssignableFrom(type) || !visiting.add(type)) {
+            // Döngüsel ilişkiler bir kez açılır.
+            return Collections.emptyMap();
+        }
+        SuRecord instance = ObjectCore.createInstance((Class<? extends SuRecord>) type);
+        if (instance == null) {
+            visiting.remove(type);
+            return Collections.emptyMap();
+        }
+        Map<String, Node> nodes = new HashMap<>();
+        SuField.SuFieldList fields = instance.getField().fields;
+        for (int k = 0; k < fields.getCount(); k++) {
+            SuField field = fields.get(k);
+            if (field.relation == null) {
+                continue;
+            }
+            SuRecord target = ObjectCore.createInstance((Class<? extends SuRecord>) field.relation.targetClass);
+            if (target == null) {
+                continue;
+            }
+            if (field.relation.displayFields != null) {
+                for (String name : field.relation.displayFields) {
+                    SuField targetField = target.getField().fields.get(name);
+                    if (targetField != null) {
+                        nodes.putIfAbsent(name, new Node(targetField, new SuField[]{field}));
+                    }
+                }
+            }
+            for (Map.Entry<String, Node> e : build(target.getClass(), visiting).entrySet()) {
+                if (!nodes.containsKey(e.getKey())) {
+                    SuField[] path = new SuField[e.getValue().path.length + 1];
+                    path[0] = field;
+                    System.arraycopy(e.getValue().path, 0, path, 1, e.getValue().path.length);
+                    nodes.put(e.getKey(), new Node(e.getValue().field, path));
+                }
+            }
+        }
+        visiting.remove(type);
+        return nodes;
+    }
+}
@@ -0,0 +1,167 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.SuField;
+import defsu.system.server.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liste sayfasındaki ilişki sütunları için toplu yükleyici. Sayfadaki kayıtların FK değerleri ilişki başına
+ * toplanır, hedefler tek bir çoklu yükleme (IN sorgusu, önbellekteki hedefler atlanır) ile getirilir ve
+ * gösterim alanları hedef başına bir kez hesaplanır. getRecordRow satır başına sorgu yerine buradan okur.
+ * Sadece ilişkinin doğrudan hedefindeki gösterim alanları toplanır; daha derin yollar eski yoldan çözülür.
+ */
+public final class RelationPrefetcher {
+    public static int CHUNK_SIZE = 500;
+
+    private static final ClassValue<Relation[]> _relations = new ClassValue<>() {
+        @Override
+        protected Relation[] computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private static final class Relation {
+        final SuField field;
+        final int slot;
+        final Class<? extends SuRecord> targetClass;
+        final Class<?> pojoClass;
+        final String[] names;
+        final SuField[] targetFields;
+
+        Relation(SuField field, int slot, Class<? extends SuRecord> targetClass, Class<?> pojoClass, SuField[] targetFields) {
+            this.field = field;
+            this.slot = slot;
+            this.targetClass = targetClass;
+            this.pojoClass = pojoClass;
+            this.names = field.relation.displayFields;
+            this.targetFields = targetFields;
+        }
+    }
+
+    /**
+     * Bir sayfanın ilişki değerleri: ilişki alanı -> hedef PK (hex) -> gösterim değerleri.
+     */
+    public static class Batch {
+        private final Map<SuField, Relation> _relations = new IdentityHashMap<>();
+        private final Map<SuField, Map<String, String[]>> _values = new IdentityHashMap<>();
+
+        /**
+         * f ilişkisinin i. gösterim alanı bu batch'ten çözülebiliyor mu.
+         */
+        public boolean covers(SuField f, int i) {
+            Relation relation = this._relations.get(f);
+            return relation != null && relation.targetFields[i] != null;
+        }
+
+        /**
+         * covers true ise çağrılır; hedef bulunamadıysa boş metin.
+         */
+        public String value(SuField f, int i, byte[] fk) {
+            if (fk == null) {
+                return "";
+            }
+            String[] values = this._values.get(f).get(RecordCore.b2H(fk));
+            return values == null || values[i] == null ? "" : values[i];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Relation[] build(Class<?> type) {
+        SuRecord instance = ObjectCore.createInstance((Class<? extends SuRecord>) type);
+        if (instance == null) {
+            return new Relation[0];
+        }
+        SuField.SuFieldList fields = instance.getField().fields;
+        List<Relation> output = new ArrayList<>();
+        for (int k = 0; k < fields.getCount(); k++) {
+            SuField f = fields.get(k);
+            if (f.relation == null || f.relation.displayFields == null || !SuRecord.class.isAssignableFrom(f.relation.targetClass)) {
+                continue;
+            }
+            Class<? extends SuRecord> targetClass = (Class<? extends SuRecord>) f.relation.targetClass;
+            Class<?> pojoClass = PojoMapper.pojoClass(targetClass);
+            SuRecord target = ObjectCore.createInstance(targetClass);
+            if (pojoClass == null || target == null) {
+                continue;
+            }
+            SuField[] targetFields = new SuField[f.relation.displayFields.length];
+            for (int i = 0; i < targetFields.length; i++) {
+                targetFields[i] = target.getField().fields.get(f.relation.displayFields[i]);
+            }
+            output.add(new Relation(f, k, targetClass, pojoClass, targetFields));
+        }
+        return output.toArray(new Relation[0]);
+    }
+
+    public static Batch load(Class<? extends SuRecord> cls, List<? extends SuRecord> records) {
+        Batch batch = new Batch();
+        if (records.isEmpty()) {
+            return batch;
+        }
+        SuField.SuFieldList fields = records.get(0).getField().fields;
+        for (Relation relation : _relations.get(cls)) {
+            Map<String, byte[]> keys = new LinkedHashMap<>();
+            for (SuRecord r : records) {
+                Object fk = ObjectCore.getFieldValue(r, fields, relation.slot);
+                if (fk instanceof byte[] bytes && !isEmpty(bytes)) {
+                    keys.putIfAbsent(RecordCore.b2H(bytes), bytes);
+                }
+            }
+            Map<String, String[]> values = keys.isEmpty() ? Collections.emptyMap() : resolve(relation, new ArrayList<>(keys.values()));
+            if (values == null) {
+                // Toplu yükleme başarısızsa bu ilişki satır satır eski yoldan çözülür.
+                continue;
+            }
+            batch._relations.put(relation.field, relation);
+            batch._values.put(relation.field, values);
+        }
+        return batch;
+    }
+
+    private static Map<String, String[]> resolve(Relation relation, List<byte[]> ids) {
+        Map<String, String[]> output = new LinkedHashMap<>();
+        try {
+            List<?> targets = HibernateCore.read(session -> session.byMultipleIds(relation.pojoClass)
+                    .withBatchSize(CHUNK_SIZE)
+                    .multiLoad(ids));
+            for (int j = 0; j < targets.size() && j < ids.size(); j++) {
+                Object pojo = targets.get(j);
+                if (pojo == null) {
+                    continue;
+                }
+                SuRecord target = (SuRecord) ObjectCore.copyPojoToRecord(pojo, ObjectCore.createInstance(relation.targetClass));
+                String[] values = new String[relation.names.length];
+                for (int i = 0; i < values.length; i++) {
+                    SuField targetField = relation.targetFields[i];
+                    if (targetField == null) {
+                        continue;
+                    }
+                    values[i] = ObjectCore.toString(ObjectCore.getFieldValue(target, relation.names[i]));
+                    if (targetField.displayAs == SuField.DT.COMBOBOX) {
+                        values[i] = ObjectCore.getFieldDisplayedValue(target, relation.names[i], values[i]);
+                    }
+                }
+                output.put(RecordCore.b2H(ids.get(j)), values);
+            }
+        } catch (Exception e) {
+            Logger.Error(e, "RelationPrefetcher:" + relation.field.name, true);
+            return null;
+        }
+        return output;
+    }
+
+    private static boolean isEmpty(byte[] fk) {
+        for (byte b : fk) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
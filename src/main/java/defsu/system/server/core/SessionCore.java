@@ -10,14 +10,11 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
 public class SessionCore {
     private static final String LOG_UNIT = "SessionContext";
-    private static List<SessionCore> _sessions = new CopyOnWriteArrayList<>();
     private String _client = "desktop";
     private long _threadID;
     private String _sessionID;
@@ -37,13 +34,13 @@ public class SessionCore {
 
     private SessionCore(String sessionID) {
         this._sessionID = sessionID;
-        this._threadID = Thread.currentThread().getId();
+        this._threadID = currentContextID();
         this._hibernateHandler = new HibernateCore();
     }
 
     public static SessionCore start(String sessionID) {
         SessionCore sc = getCurrentContext();
-        sc._sessionID = sessionID;
+        sc.rename(sessionID);
         return sc;
     }
 
@@ -59,7 +56,7 @@ public class SessionCore {
                 removeSession(oldsc);
             }
 
-            sc._sessionID = sessionID;
+            sc.rename(sessionID);
             if (oldsc != null) {
                 sc.setUser(oldsc.getUser());
                 oldsc.setAlive(false);
@@ -89,22 +86,29 @@ public class SessionCore {
         return getCurrentContext(true);
     }
 
-    public static SessionCore getCurrentContext(boolean createNew) {
+    private static long currentContextID() {
+        ConnectionContext connection = ConnectionContext.current();
+        if (connection != null) {
+            return connection.getId();
+        }
         Thread cThread = Thread.currentThread();
-        long cThreadID = cThread instanceof ConnectionCore.ExtendedThread
+        return cThread instanceof ConnectionCore.ExtendedThread
                 ? ((ConnectionCore.ExtendedThread) cThread).uHandler.parent.getId()
                 : cThread.getId();
+    }
 
-        return _sessions.stream()
-                .filter(sc -> sc._threadID == cThreadID)
-                .findFirst()
-                .orElseGet(() -> createNew ? createNewSession() : null);
+    public static SessionCore getCurrentContext(boolean createNew) {
+        return SessionRegistry.byContext(currentContextID(), createNew ? SessionCore::createNewSession : null);
     }
 
     private static SessionCore createNewSession() {
-        SessionCore sc = new SessionCore(UUID.randomUUID().toString());
-        _sessions.add(sc);
-        return sc;
+        return new SessionCore(UUID.randomUUID().toString());
+    }
+
+    private void rename(String sessionID) {
+        String oldSessionID = this._sessionID;
+        SessionRegistry.changeSessionID(this, oldSessionID, () -> this._sessionID = sessionID);
+        WSUpdateCore.sessionRenamed(this, oldSessionID);
     }
 
     public String getSessionID() {
@@ -120,23 +124,16 @@ public class SessionCore {
     }
 
     public static List<SessionCore> getUserContexts(User user) {
-        return _sessions.stream()
-                .filter(sc -> sc.getUser() != null && Arrays.equals(sc.getUser().getUserPK(), user.getUserPK()))
-                .collect(Collectors.toList());
+        return SessionRegistry.byUser(user.getUserPK());
     }
 
     public static SessionCore find(String sessionId) {
-        return _sessions.stream()
-                .filter(sc -> sc.getSessionID().equals(sessionId))
-                .findFirst()
-                .orElse(null);
+        return SessionRegistry.bySession(sessionId);
     }
 
     public static SessionCore findUserContext(User user) {
-        return _sessions.stream()
-                .filter(sc -> sc.getUser() != null && Arrays.equals(sc.getUser().getUserPK(), user.getUserPK()))
-                .findFirst()
-                .orElse(null);
+        List<SessionCore> contexts = SessionRegistry.byUser(user.getUserPK());
+        return contexts.isEmpty() ? null : contexts.get(0);
     }
 
     public HibernateCore getHibernateHandler() {
@@ -149,22 +146,24 @@ public class SessionCore {
 
     public void setUser(User user) {
         this._client = ServerUtility.getParameter("client").isEmpty() ? "desktop" : ServerUtility.getParameter("client");
-        this._user = user;
+        SessionRegistry.changeUser(this, () -> this._user = user);
     }
 
     public static List<SessionCore> getSessions() {
-        return _sessions;
+        return SessionRegistry.all();
     }
 
     public static void removeSession(SessionCore session) {
         Logger.Info("RemoveSession.Removing Ghost session: " + session._sessionID,true);
-        _sessions.removeIf(sc -> sc._sessionID.equals(session._sessionID));
+        SessionRegistry.removeAll(session._sessionID);
+        WSUpdateCore.sessionRemoved(session._sessionID);
         session._hibernateHandler.commitMain();
     }
 
     public void removeSession() {
         Logger.Info("RemoveSession.Removing Ghost session: " + this._sessionID,true);
-        _sessions.removeIf(sc -> sc._sessionID.equals(this._sessionID));
+        SessionRegistry.removeAll(this._sessionID);
+        WSUpdateCore.sessionRemoved(this._sessionID);
         this._hibernateHandler.commitMain();
     }
 
@@ -0,0 +1,189 @@
+package defsu.system.server.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * SessionCore'ların bağlantı (thread) id, session id ve kullanıcı PK'sına göre indeksleri.
+ * Okumalar kilitsizdir; ekleme, silme ve yeniden indeksleme tek kilit altında yapılır.
+ */
+public class SessionRegistry {
+    private static final Object _lock = new Object();
+    private static final Map<Long, SessionCore> _byContext = new ConcurrentHashMap<>();
+    private static final Map<String, List<SessionCore>> _bySession = new ConcurrentHashMap<>();
+    private static final Map<String, List<SessionCore>> _byUser = new ConcurrentHashMap<>();
+    /**
+     * Süresi ölçülen arama oranı (1/SAMPLE_RATE); her getCurrentContext'te iki nanoTime çağrısı yapılmasın diye.
+     */
+    public static int SAMPLE_RATE = 64;
+    private static final LongAdder _lookupCount = new LongAdder();
+    private static final LongAdder _sampledCount = new LongAdder();
+    private static final LongAdder _lookupNanos = new LongAdder();
+    private static final LongAccumulator _maxLookupNanos = new LongAccumulator(Math::max, 0);
+
+    static SessionCore byContext(long contextID, Supplier<SessionCore> factory) {
+        long start = start();
+        SessionCore sc = _byContext.get(contextID);
+        if (sc == null && factory != null) {
+            synchronized (_lock) {
+                sc = _byContext.get(contextID);
+                if (sc == null) {
+                    sc = factory.get();
+                    add(sc);
+                }
+            }
+        }
+        record(start);
+        return sc;
+    }
+
+    static SessionCore bySession(String sessionID) {
+        long start = start();
+        List<SessionCore> list = sessionID == null ? null : _bySession.get(sessionID);
+        SessionCore sc = list == null || list.isEmpty() ? null : list.get(0);
+        record(start);
+        return sc;
+    }
+
+    static List<SessionCore> byUser(byte[] userPK) {
+        long start = start();
+        List<SessionCore> list = userPK == null ? null : _byUser.get(RecordCore.b2H(userPK));
+        List<SessionCore> result = list == null ? Collections.emptyList() : new ArrayList<>(list);
+        record(start);
+        return result;
+    }
+
+    static void add(SessionCore sc) {
+        synchronized (_lock) {
+            _byContext.put(sc.get_threadID(), sc);
+            index(_bySession, sc.getSessionID(), sc);
+            index(_byUser, userKey(sc), sc);
+        }
+    }
+
+    static void remove(SessionCore sc) {
+        synchronized (_lock) {
+            _byContext.remove(sc.get_threadID(), sc);
+            unindex(_bySession, sc.getSessionID(), sc);
+            unindex(_byUser, userKey(sc), sc);
+        }
+    }
+
+    /**
+     * Verilen session id'yi taşıyan tüm context'leri kaldırır ve kaldırılanları döner.
+     */
+    static List<SessionCore> removeAll(String sessionID) {
+        synchronized (_lock) {
+            List<SessionCore> list = _bySession.get(sessionID);
+            List<SessionCore> removed = list == null ? Collections.emptyList() : new ArrayList<>(list);
+            for (SessionCore sc : removed) {
+                remove(sc);
+            }
+            return removed;
+        }
+    }
+
+    static void changeSessionID(SessionCore sc, String oldSessionID, Runnable change) {
+        synchronized (_lock) {
+            unindex(_bySession, oldSessionID, sc);
+            change.run();
+            if (_byContext.get(sc.get_threadID()) == sc) {
+                index(_bySession, sc.getSessionID(), sc);
+            }
+        }
+    }
+
+    static void changeUser(SessionCore sc, Runnable change) {
+        synchronized (_lock) {
+            unindex(_byUser, userKey(sc), sc);
+            change.run();
+            if (_byContext.get(sc.get_threadID()) == sc) {
+                index(_byUser, userKey(sc), sc);
+            }
+        }
+    }
+
+    static List<SessionCore> all() {
+        return new ArrayList<>(_byContext.values());
+    }
+
+    private static String userKey(SessionCore sc) {
+        return sc.getUser() == null || sc.getUser().getUserPK() == null ? null : RecordCore.b2H(sc.getUser().getUserPK());
+    }
+
+    private static void index(Map<String, List<SessionCore>> index, String key, SessionCore sc) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(sc);
+        }
+    }
+
+    private static void unindex(Map<String, List<SessionCore>> index, String key, SessionCore sc) {
+        if (key == null) {
+            return;
+        }
+        List<SessionCore> list = index.get(key);
+        if (list != null) {
+            list.remove(sc);
+            if (list.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Aramayı sayar; örneklenen aramalar için başlangıç zamanını, diğerleri için 0 döner.
+     */
+    private static long start() {
+        _lookupCount.increment();
+        return SAMPLE_RATE <= 1 || ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0 ? System.nanoTime() : 0;
+    }
+
+    private static void record(long start) {
+        if (start == 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        _sampledCount.increment();
+        _lookupNanos.add(elapsed);
+        _maxLookupNanos.accumulate(elapsed);
+    }
+
+    public static int getSessionCount() {
+        return _byContext.size();
+    }
+
+    public static int getUserCount() {
+        return _byUser.size();
+    }
+
+    public static long getLookupCount() {
+        return _lookupCount.sum();
+    }
+
+    /**
+     * Örneklenen aramaların ortalaması.
+     */
+    public static double getAverageLookupNanos() {
+        long count = _sampledCount.sum();
+        return count == 0 ? 0 : (double) _lookupNanos.sum() / count;
+    }
+
+    public static long getMaxLookupNanos() {
+        return _maxLookupNanos.get();
+    }
+
+    public static void resetMetrics() {
+        _lookupCount.reset();
+        _sampledCount.reset();
+        _lookupNanos.reset();
+        _maxLookupNanos.reset();
+    }
+}
@@ -0,0 +1,249 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * sources/ altındaki classpath dosyalarının bellek önbelleği. Dosya ilk istekte (veya PRELOAD ile açılışta)
+ * bir kez okunur; içerik, gzip hali, ETag ve 200/304 başlıkları değişmez dizilerde tutulur ve her istekte
+ * kopyalanmadan sokete yazılır. Önbellek MAX_TOTAL_SIZE'ı aşarsa yeni dosyalar önbelleğe alınmadan sunulur.
+ */
+public final class StaticAssetCache {
+    public static boolean ENABLED = true;
+    public static boolean PRELOAD = false;
+    public static String PRELOAD_PATTERN = "classpath*:sources/**/*.*";
+    public static long MAX_TOTAL_SIZE = 256L * 1024 * 1024;
+    public static int GZIP_MIN_SIZE = 1024;
+    // html tarayıcıda her seferinde doğrulanır, diğer dosyalar MAX_AGE saniye boyunca sorulmadan kullanılır
+    public static int MAX_AGE = 86400;
+    private static final String LOG_UNIT = "StaticAssetCache";
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final long STARTED = System.currentTimeMillis();
+
+    private static final Map<String, Asset> _assets = new ConcurrentHashMap<>();
+    private static final AtomicLong _size = new AtomicLong();
+
+    /**
+     * Bir dosyanın sunulmaya hazır hali; diziler paylaşılır, değiştirilmemelidir.
+     */
+    public static final class Asset {
+        final byte[] content;
+        final byte[] gzip;
+        final String etag;
+        final long lastModified;
+        final byte[] header;
+        final byte[] gzipHeader;
+        final byte[] notModified;
+
+        private Asset(byte[] content, byte[] gzip, String contentType, long lastModified) {
+            this.content = content;
+            this.gzip = gzip;
+            this.lastModified = lastModified / 1000 * 1000;
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            this.etag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(content.length);
+            String common = "Last-Modified: " + HTTP_DATE.format(Instant.ofEpochMilli(this.lastModified)) + "\r\n"
+                    + "Cache-Control: " + (contentType.startsWith("text/html") ? "no-cache" : "public, max-age=" + MAX_AGE) + "\r\n"
+                    + (gzip != null ? "Vary: Accept-Encoding\r\n" : "");
+            this.header = ("HTTP/1.1 200 OK\r\nContent-Length: " + content.length + "\r\nContent-Type: " + contentType + "\r\n"
+                    + "ETag: \"" + this.etag + "\"\r\n" + common).getBytes(StandardCharsets.ISO_8859_1);
+            this.gzipHeader = gzip == null ? null : ("HTTP/1.1 200 OK\r\nContent-Length: " + gzip.length + "\r\nContent-Type: " + contentType + "\r\n"
+                    + "Content-Encoding: gzip\r\nETag: \"" + this.etag + "-gz\"\r\n" + common).getBytes(StandardCharsets.ISO_8859_1);
+            this.notModified = ("HTTP/1.1 304 Not Modified\r\n" + "ETag: \"" + this.etag + "\"\r\n" + common).getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        int size() {
+            return this.content.length + (this.gzip != null ? this.gzip.length : 0);
+        }
+    }
+
+    /**
+     * Yazılacak cevap: başlık ve varsa gövde (304'te null). Başlık boş satır olmadan biter; bağlantı başlıkları
+     * yazılırken eklenir. Diziler önbellekteki dizilerin kendisidir.
+     */
+    public record Response(byte[] header, byte[] body) {
+    }
+
+    /**
+     * İstek başlıklarına göre uygun cevabı döner; dosya yoksa null.
+     */
+    public static Response respond(String uri, String requestHeaders) {
+        Asset asset = get(uri);
+        if (asset == null) {
+            return null;
+        }
+        if (isNotModified(asset, ConnectionCore.getHeader(requestHeaders, "If-None-Match"),
+                ConnectionCore.getHeader(requestHeaders, "If-Modified-Since"))) {
+            return new Response(asset.notModified, null);
+        }
+        if (asset.gzip != null && acceptsGzip(ConnectionCore.getHeader(requestHeaders, "Accept-Encoding"))) {
+            return new Response(asset.gzipHeader, asset.gzip);
+        }
+        return new Response(asset.header, asset.content);
+    }
+
+    public static Asset get(String uri) {
+        String path = path(uri);
+        Asset asset = _assets.get(path);
+        if (asset != null) {
+            return asset;
+        }
+        asset = load(new ClassPathResource(path));
+        if (asset == null || !ENABLED) {
+            return asset;
+        }
+        if (_size.addAndGet(asset.size()) > MAX_TOTAL_SIZE) {
+            _size.addAndGet(-asset.size());
+            return asset;
+        }
+        Asset existing = _assets.putIfAbsent(path, asset);
+        if (existing != null) {
+            _size.addAndGet(-asset.size());
+            return existing;
+        }
+        return asset;
+    }
+
+    /**
+     * PRELOAD açıksa PRELOAD_PATTERN'e uyan tüm dosyaları önbelleğe alır.
+     */
+    public static void preload() {
+        if (!ENABLED || !PRELOAD) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(PRELOAD_PATTERN)) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                String url = resource.getURL().toString();
+                int index = url.lastIndexOf("/sources/");
+                if (index >= 0 && get(url.substring(index)) != null) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            Logger.Error(e, LOG_UNIT + ".preload", true);
+        }
+        Logger.Info(LOG_UNIT + ": " + count + " files, " + _size.get() / 1024 + " KB in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public static void clear() {
+        _assets.clear();
+        _size.set(0);
+    }
+
+    public static long getSize() {
+        return _size.get();
+    }
+
+    private static String path(String uri) {
+        String path = StringUtils.cleanPath(uri);
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static Asset load(Resource resource) {
+        byte[] content;
+        try (InputStream is = resource.getInputStream()) {
+            content = is.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+        long lastModified;
+        try {
+            lastModified = resource.lastModified();
+        } catch (IOException e) {
+            lastModified = 0;
+        }
+        if (lastModified <= 0) {
+            lastModified = STARTED;
+        }
+        String contentType = contentType(resource.getFilename());
+        return new Asset(content, compressible(contentType) ? gzip(content) : null, contentType, lastModified);
+    }
+
+    private static String contentType(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return "text/html";
+        }
+        String contentType = ConnectionCore.mimeTypes != null ? ConnectionCore.mimeTypes.get(fileName.substring(fileName.lastIndexOf('.') + 1)) : null;
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+
+    private static boolean compressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json")
+                || contentType.contains("xml") || contentType.contains("svg");
+    }
+
+    /**
+     * %10'dan az kazanç sağlayan veya GZIP_MIN_SIZE'dan küçük içerik için null.
+     */
+    private static byte[] gzip(byte[] content) {
+        if (content.length < GZIP_MIN_SIZE) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.size() < content.length * 0.9 ? out.toByteArray() : null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            if (params[0].trim().equalsIgnoreCase("gzip")) {
+                return params.length < 2 || !params[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(Asset asset, String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String value = tag.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                value = value.replace("\"", "");
+                if (value.equals("*") || value.equals(asset.etag) || value.equals(asset.etag + "-gz")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (ifModifiedSince != null) {
+            try {
+                return ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toInstant().toEpochMilli() >= asset.lastModified;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
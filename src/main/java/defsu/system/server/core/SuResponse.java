@@ -74,6 +74,9 @@ public class SuResponse {
     @SerializedName("totalRows")
     private int _totalRows;
     @Expose
+    @SerializedName("cursor")
+    private String _cursor;
+    @Expose
     @SerializedName("dateFormat")
     private String _dateFormat;
     @Expose
@@ -271,9 +274,18 @@ public class SuResponse {
     public void setListResult(ObjectCore.ListResult result) {
         this._rows = result.rows;
         this._totalRows = result.numTotal;
+        this._cursor = result.cursor;
         this._dateFormat = result.dateFormat;
     }
 
+    public String getCursor() {
+        return this._cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this._cursor = cursor;
+    }
+
     public List<SuResponse.ToolTip> getToolTips() {
         return this._toolTips;
     }
@@ -0,0 +1,256 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.RecordManipulation;
+import defsu.system.server.helpers.RecordValue;
+import defsu.system.server.helpers.SuField;
+import defsu.system.server.utils.Enums;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bir abonenin görünüm limitlerinin (@search) derlenmiş hali. limitSubscriber her kayıtta bir kez derler;
+ * checkLimit manipülasyonu sadece eşleşebileceği görünümlerle, metin ayrıştırmadan dener.
+ * Tam eşleşme aranan (STRING olmayan) alanlar değere göre indekslenir.
+ */
+public class SubscriberFilter {
+    public static final SubscriberFilter EMPTY = new SubscriberFilter(new View[0]);
+    private final View[] _views;
+    // Alan tipleri ilk kayıttan okunduğu için indeks ilk manipülasyonda kurulur.
+    private volatile Index _index;
+
+    private SubscriberFilter(View[] views) {
+        this._views = views;
+    }
+
+    public static SubscriberFilter compile(StringDictionary<StringDictionary<String>> limits) {
+        List<View> views = new ArrayList<>();
+        for (String key : limits.keyList()) {
+            StringDictionary<String> params = limits.get(key);
+            if (params != null && params.containsKey("@viewId")) {
+                views.add(View.compile(params.get("@viewId"), params.get("@search", "")));
+            }
+        }
+        return views.isEmpty() ? EMPTY : new SubscriberFilter(views.toArray(new View[0]));
+    }
+
+    public int getViewCount() {
+        return this._views.length;
+    }
+
+    /**
+     * Manipülasyonu eşleşen her görünüm için targetView'li bir kopya olarak out'a ekler.
+     */
+    public boolean route(RecordManipulation manip, List<RecordManipulation> out) {
+        if (this._views.length == 0) {
+            return false;
+        }
+        if (manip.type != Enums.ManipulationType.INSERT && manip.type != Enums.ManipulationType.UPDATE) {
+            for (View view : this._views) {
+                out.add(view.target(manip));
+            }
+            return true;
+        }
+
+        List<RecordValue> values = manip.record == null ? Collections.emptyList() : manip.record.getValues();
+        Index index = this._index;
+        if (index == null) {
+            index = Index.build(this._views, values);
+            this._index = index;
+        }
+
+        boolean found = false;
+        for (View view : index.unindexed) {
+            if (view.matches(values)) {
+                out.add(view.target(manip));
+                found = true;
+            }
+        }
+        for (int i = 0; i < index.keys.length; i++) {
+            RecordValue value = index.keys[i].lookup(values);
+            String str = valueOf(value);
+            View[] candidates = str == null ? null : index.byValue.get(i).get(str);
+            if (candidates == null) {
+                continue;
+            }
+            for (View view : candidates) {
+                if (view.matches(values)) {
+                    out.add(view.target(manip));
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String valueOf(RecordValue value) {
+        if (value == null) {
+            return "";
+        }
+        String raw = value.rawValue();
+        return raw == null || raw.isEmpty() ? value.getValue() : raw;
+    }
+
+    private static boolean isString(RecordValue value) {
+        return value != null && value.getField() != null && value.getField().fieldType == SuField.FT.STRING;
+    }
+
+    static final class View {
+        final String id;
+        final Term[] terms;
+
+        private View(String id, Term[] terms) {
+            this.id = id;
+            this.terms = terms;
+        }
+
+        static View compile(String id, String search) {
+            if (search == null || search.isEmpty()) {
+                return new View(id, new Term[0]);
+            }
+            String[] params = search.split(";");
+            Term[] terms = new Term[params.length];
+            for (int i = 0; i < params.length; i++) {
+                terms[i] = Term.compile(params[i]);
+            }
+            return new View(id, terms);
+        }
+
+        boolean matches(List<RecordValue> values) {
+            for (Term term : this.terms) {
+                if (!term.matches(values)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        RecordManipulation target(RecordManipulation manip) {
+            RecordManipulation mm = manip.copy();
+            mm.targetView = this.id;
+            return mm;
+        }
+    }
+
+    static final class Term {
+        final String field;
+        final String[] values;
+        // "~" ile biten değer arama kutusundan gelir, canlı güncellemede süzülmez.
+        final boolean any;
+        // Alanın kayıttaki son bulunduğu sıra; kayıtlar aynı sınıftan geldiği için çoğunlukla tutar.
+        private int _slot = -1;
+
+        private Term(String field, String[] values, boolean any) {
+            this.field = field;
+            this.values = values;
+            this.any = any;
+        }
+
+        static Term compile(String param) {
+            String[] parts = param.split("=");
+            if (parts.length < 2) {
+                // Hatalı terim hiçbir kayıtla eşleşmez.
+                return new Term(parts.length == 0 ? "" : parts[0], new String[0], false);
+            }
+            return new Term(parts[0], parts[1].split("\\|"), parts[1].endsWith("~"));
+        }
+
+        boolean indexable(List<RecordValue> sample) {
+            if (this.any || this.values.length == 0) {
+                return false;
+            }
+            RecordValue value = this.lookup(sample);
+            return value != null && !isString(value);
+        }
+
+        RecordValue lookup(List<RecordValue> values) {
+            int slot = this._slot;
+            if (slot >= 0 && slot < values.size()) {
+                RecordValue value = values.get(slot);
+                if (value != null && value.getField() != null && this.field.equals(value.getField().name)) {
+                    return value;
+                }
+            }
+            for (int i = 0; i < values.size(); i++) {
+                RecordValue value = values.get(i);
+                if (value != null && value.getField() != null && this.field.equals(value.getField().name)) {
+                    this._slot = i;
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        boolean matches(List<RecordValue> record) {
+            if (this.any) {
+                return true;
+            }
+            RecordValue value = this.lookup(record);
+            String str = valueOf(value);
+            if (str == null) {
+                return false;
+            }
+            boolean contains = isString(value);
+            for (String v : this.values) {
+                if (contains ? str.contains(v) : str.equals(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Index {
+        final View[] unindexed;
+        final Term[] keys;
+        final List<Map<String, View[]>> byValue;
+
+        private Index(View[] unindexed, Term[] keys, List<Map<String, View[]>> byValue) {
+            this.unindexed = unindexed;
+            this.keys = keys;
+            this.byValue = byValue;
+        }
+
+        static Index build(View[] views, List<RecordValue> sample) {
+            List<View> unindexed = new ArrayList<>();
+            Map<String, Map<String, List<View>>> byField = new LinkedHashMap<>();
+            for (View view : views) {
+                Term key = null;
+                for (Term term : view.terms) {
+                    if (term.indexable(sample)) {
+                        key = term;
+                        break;
+                    }
+                }
+                if (key == null) {
+                    unindexed.add(view);
+                    continue;
+                }
+                Map<String, List<View>> byValue = byField.computeIfAbsent(key.field, k -> new HashMap<>());
+                for (String v : key.values) {
+                    List<View> list = byValue.computeIfAbsent(v, k -> new ArrayList<>());
+                    if (!list.contains(view)) {
+                        list.add(view);
+                    }
+                }
+            }
+
+            Term[] keys = new Term[byField.size()];
+            List<Map<String, View[]>> byValue = new ArrayList<>(byField.size());
+            int i = 0;
+            for (Map.Entry<String, Map<String, List<View>>> e : byField.entrySet()) {
+                keys[i++] = new Term(e.getKey(), new String[0], false);
+                Map<String, View[]> map = new HashMap<>();
+                for (Map.Entry<String, List<View>> v : e.getValue().entrySet()) {
+                    map.put(v.getKey(), v.getValue().toArray(new View[0]));
+                }
+                byValue.add(map);
+            }
+            return new Index(unindexed.toArray(new View[0]), keys, byValue);
+        }
+    }
+}
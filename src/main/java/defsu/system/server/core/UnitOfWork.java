@@ -0,0 +1,207 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bir processMessage çağrısı boyunca tek Session, tek bağlantı ve tek transaction.
+ * Session ilk veritabanı işinde açılır; HibernateCore'un yazma ve okuma metotları aktif kapsam varsa onu kullanır.
+ * Yazmalar hemen flush edilir (hata anında görülsün diye), commit kapsam kapanırken bir kez yapılır.
+ * Bir yazma hata verirse kapsam geri alınmak üzere işaretlenir ve sonraki yazmalar yapılmaz.
+ * İstemciden cevap beklenen yerlerde (SynchInteraction) checkpoint ile o ana kadarki iş commit edilir;
+ * bağlantı ve satır kilitleri kullanıcı beklenirken tutulmaz.
+ */
+public final class UnitOfWork {
+    private static final ThreadLocal<UnitOfWork> _current = new ThreadLocal<>();
+
+    private Session _session;
+    private Transaction _transaction;
+    private boolean _rollbackOnly;
+    private int _depth;
+    private boolean _finished;
+    private boolean _committed;
+    private final List<Runnable> _afterCommit = new ArrayList<>();
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Aktif kapsam varsa ona katılır, yoksa yenisini açar. Her begin için bir end çağrılmalıdır.
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork uow = _current.get();
+        if (uow == null) {
+            uow = new UnitOfWork();
+            _current.set(uow);
+        }
+        uow._depth++;
+        return uow;
+    }
+
+    public static UnitOfWork current() {
+        return _current.get();
+    }
+
+    /**
+     * Aktif kapsam varsa iş commit sonrasına ertelenir, yoksa hemen çalışır.
+     * Pump mesajları ve loglar geri alınan yazmalar için gönderilmesin diye buradan geçer.
+     */
+    public static void afterCommit(Runnable work) {
+        UnitOfWork uow = _current.get();
+        if (uow == null) {
+            work.run();
+        } else {
+            uow._afterCommit.add(work);
+        }
+    }
+
+    public Session session() {
+        if (this._session == null) {
+            this._session = HibernateCore.getMainSessionFactory().openSession();
+            this._session.setJdbcBatchSize(HibernateCore.JDBC_BATCH_SIZE);
+            this._transaction = this._session.beginTransaction();
+        }
+        return this._session;
+    }
+
+    public boolean isRollbackOnly() {
+        return this._rollbackOnly;
+    }
+
+    public void setRollbackOnly() {
+        this._rollbackOnly = true;
+    }
+
+    /**
+     * Kapsam içinde bir yazma; flush edilir ve persistence context boşaltılır.
+     */
+    boolean write(HibernateCore.SessionWork<?> work) {
+        if (this._rollbackOnly) {
+            Logger.Error("UnitOfWork is marked for rollback, write skipped", true);
+            return false;
+        }
+        try {
+            Session session = this.session();
+            work.run(session);
+            session.flush();
+            session.clear();
+            return true;
+        } catch (Exception e) {
+            this._rollbackOnly = true;
+            Logger.Error(e, true);
+            return false;
+        }
+    }
+
+    /**
+     * Kapsam içinde bir okuma; dönen entity'ler, kapsam dışındaki gibi detached olur.
+     */
+    <T> T read(HibernateCore.SessionWork<T> work) throws Exception {
+        Session session = this.session();
+        try {
+            return work.run(session);
+        } finally {
+            session.clear();
+        }
+    }
+
+    /**
+     * Aktif kapsamda o ana kadar yapılan işi commit (geri alınacaksa rollback) eder ve session'ı kapatır; kapsam
+     * açık kalır, sonraki veritabanı işleri yeni bir transaction açar. İstemciyi bekleyen işlemlerden önce çağrılır.
+     * Geri alınan kapsam işaretli kalır, böylece mesajın cevabı yine hata olur.
+     */
+    public static void checkpoint() {
+        UnitOfWork uow = _current.get();
+        if (uow == null || uow._session == null) {
+            return;
+        }
+        if (!uow.complete()) {
+            uow._rollbackOnly = true;
+        }
+        uow.closeSession();
+    }
+
+    /**
+     * En dıştaki kapsamı commit (veya rollback) eder ama session'ı açık bırakır; commit başarılıysa true.
+     * Kapsam bu andan itibaren aktif değildir, sonraki veritabanı işleri ona katılmaz. İç kapsamlarda ve
+     * ikinci çağrıda yalnızca sonucu döner. Cevabın session kapanmadan yazılması için kullanılır.
+     */
+    public boolean commit() {
+        if (this._depth > 1 || this._finished) {
+            return this._finished ? this._committed : !this._rollbackOnly;
+        }
+        this._finished = true;
+        if (_current.get() == this) {
+            _current.remove();
+        }
+        this._committed = this.complete();
+        return this._committed;
+    }
+
+    /**
+     * Açık transaction'ı bitirir ve commit edildiyse bekleyen afterCommit işlerini çalıştırır.
+     */
+    private boolean complete() {
+        boolean committed = !this._rollbackOnly;
+        if (this._session != null) {
+            try {
+                if (this._rollbackOnly) {
+                    this._transaction.rollback();
+                } else {
+                    this._transaction.commit();
+                }
+            } catch (Exception e) {
+                committed = false;
+                Logger.Error(e, "UnitOfWork", true);
+                try {
+                    if (this._transaction.isActive()) {
+                        this._transaction.rollback();
+                    }
+                } catch (Exception ee) {
+                    Logger.Error(ee, true);
+                }
+            }
+        }
+        if (committed) {
+            for (Runnable work : this._afterCommit) {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    Logger.Error(e, "UnitOfWork.afterCommit", true);
+                }
+            }
+        }
+        this._afterCommit.clear();
+        return committed;
+    }
+
+    private void closeSession() {
+        if (this._session != null) {
+            try {
+                this._session.close();
+            } catch (Exception e) {
+                Logger.Error(e, "UnitOfWork", true);
+            }
+            this._session = null;
+            this._transaction = null;
+        }
+    }
+
+    /**
+     * En dıştaki end, commit edilmediyse commit eder ve session'ı kapatır; commit başarılıysa true.
+     */
+    public boolean end() {
+        if (--this._depth > 0) {
+            return !this._rollbackOnly;
+        }
+        try {
+            return this.commit();
+        } finally {
+            this.closeSession();
+        }
+    }
+}
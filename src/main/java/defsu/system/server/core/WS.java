@@ -1,5 +1,6 @@
 package defsu.system.server.core;
 
+import defsu.system.server.utils.Logger;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,235 +8,164 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Getter
 @Setter
 public class WS {
     private static final String LOG_UNIT = "WebSocket";
+    public static int READ_BUFFER_RETAIN = 256 * 1024;
     private DataInputStream dataInputStream;
     private DataOutputStream dataOutputStream;
-    private boolean busy = false;
+    // Yazmalar bu kuyruktan tek yazıcıyla gider
+    private final WSOutbound outbound = new WSOutbound(this);
+    private final WSFrameCodec codec = new WSFrameCodec();
+    // Okunan mesajın yükü; bağlantı boyunca tekrar kullanılır, büyük mesajdan sonra bırakılır
+    private byte[] readBuffer;
+    // El sıkışmada permessage-deflate kabul edildiyse dolu
+    private volatile WSDeflate deflate;
+
+    // outbound yalnızca referansı saklar, kurucu bitmeden WS'e dokunmaz
+    @SuppressWarnings("this-escape")
     public WS(DataInputStream dataInputStream, DataOutputStream dataOutputStream) {
         setDataInputStream(dataInputStream);
         setDataOutputStream(dataOutputStream);
     }
 
-
-
-    public static BitSet bitSetFromByte(byte b) {
-        BitSet bits = new BitSet(8);
-        for (int i = 0; i < 8; ++i) {
-            bits.set(i, (b & 1) == 1);
-            b = (byte) (b >> 1);
-        }
-        return bits;
-    }
-
-    public static BitSet bitSetFromShort(short s) {
-        BitSet bits = new BitSet(16);
-        for (int i = 0; i < 16; ++i) {
-            bits.set(i, (s & 1) == 1);
-            s = (short) (s >> 1);
-        }
-        return bits;
-    }
-
-    public static BitSet bitSetFromInt(int v) {
-        BitSet bits = new BitSet(32);
-        for (int i = 0; i < 32; ++i) {
-            bits.set(i, (v & 1) == 1);
-            v >>= 1;
-        }
-        return bits;
+    public boolean write(WS.WebSocketMessage message) {
+        return write(message.getBody());
     }
 
-    public static BitSet bitSetFromLong(long l) {
-        BitSet bits = new BitSet(64);
-        for (int i = 0; i < 64; ++i) {
-            bits.set(i, (l & 1L) == 1L);
-            l >>= 1;
-        }
-        return bits;
-    }
-    private long getFrameLength(BitSet maskAndLength) {
-        long length = 0;
-        for (int readCount = 6; readCount > -1; --readCount) {
-            length <<= 1;
-            if (maskAndLength.get(readCount)) {
-                ++length;
-            }
-        }
-        return length;
+    public boolean write(String message) {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        return this.outbound.send(WSFrameCodec.OP_TEXT, payload, payload.length);
     }
 
-    private long readExtendedLengthLong() throws IOException {
-        BitSet eLength = bitSetFromLong(getDataInputStream().readLong());
-        long length = 0;
-        for (int k = 63; k > -1; --k) {
-            length <<= 1;
-            if (eLength.get(k)) {
-                ++length;
-            }
-        }
-        return length;
+    /**
+     * Hazır çerçeveleri (bir veya birkaç) sokete yazar. Sadece WSOutbound'un drainer'ı çağırır.
+     */
+    protected void transmit(byte[] data, int offset, int length) throws IOException {
+        getDataOutputStream().write(data, offset, length);
+        getDataOutputStream().flush();
     }
 
-    private long readExtendedLengthShort() throws IOException {
-        BitSet eLength = bitSetFromShort(getDataInputStream().readShort());
-        long length = 0;
-        for (int k = 15; k > -1; --k) {
-            length <<= 1;
-            if (eLength.get(k)) {
-                ++length;
-            }
-        }
-        return length;
+    /**
+     * Çağıran thread bloklanmamalıysa (NIO seçici thread'i) task başka bir thread'e verilir ve true döner;
+     * WSOutbound bu durumda ne drainer olur ne de backpressure'da bekler.
+     */
+    protected boolean offload(Runnable task) {
+        return false;
     }
 
-    private byte[] readMask() throws IOException {
-        byte[] mask = new byte[4];
-        for (int i = 0; i < 4; i++) {
-            mask[i] = getDataInputStream().readByte();
+    /**
+     * Yavaş istemci veya yazma hatası; bağlantı kapatılır, okuyan taraf da hatayla çıkar.
+     */
+    protected void abort() {
+        try {
+            getDataOutputStream().close();
+        } catch (IOException e) {
+            System.out.println("Error closing connection: " + e.getMessage());
         }
-        return mask;
     }
 
-    private void unmaskPayload(WS.WebSocketFrame frame) {
-        for (int readCount = 0; readCount < frame.getPayload().length; ++readCount) {
-            byte mask = frame.getMask()[readCount % 4];
-            frame.getPayload()[readCount] ^= mask;
-        }
+    @FunctionalInterface
+    public interface MessageBody {
+        void writeTo(Writer out) throws IOException;
     }
-    private byte[] readPayload(WS.WebSocketFrame frame) throws IOException, InterruptedException {
-        byte[] payload = new byte[(int) frame.length];
-
-        if (frame.length > 65536L) {
-            long remainingBytes = frame.length;
-            int bytesRead = 0;
-
-            while (remainingBytes > 0) {
-                while (getDataInputStream().available() < Math.min(65536, remainingBytes)) {
-                    Thread.sleep(300L);
-                }
-
-                int availableBytes = getDataInputStream().available();
-                int toRead = (int) Math.min(availableBytes, remainingBytes);
 
-                getDataInputStream().read(payload, bytesRead, toRead);
-
-                bytesRead += toRead;
-                remainingBytes -= toRead;
-            }
-        } else {
-            while (getDataInputStream().available() < frame.length) {
-                Thread.sleep(200L);
+    /**
+     * Mesajı String'e çevirmeden gönderir: gövde UTF-8 olarak havuz tamponlarına yazılır ve tampon doldukça
+     * gönderim kuyruğuna eklenir. Büyük cevaplarda bellek kullanımı mesaj boyundan bağımsızdır.
+     */
+    public boolean stream(MessageBody body) {
+        OutputStream out = this.outbound.open(WSFrameCodec.OP_TEXT);
+        try {
+            try {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                body.writeTo(writer);
+                writer.flush();
+            } finally {
+                out.close();
             }
-            getDataInputStream().read(payload);
+            return !this.outbound.isBroken();
+        } catch (IOException e) {
+            Logger.Error(e, LOG_UNIT, true);
+            return false;
+        } catch (Exception e) {
+            Logger.Error(e, LOG_UNIT, true);
+            return false;
         }
-
-        return payload;
     }
 
-    public boolean write(WS.WebSocketMessage message) {
-        WS.WebSocketFrame[] frames = message.getFrames();
-
-        for (int k = 0; k < frames.length; k++) {
-            try {
-                synchronized (this) {
-                    while (isBusy()) {
-                        try {
-                            wait(200L);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            System.out.println("Error21: " + e.getMessage());
-                            return false;
-                        }
+    /**
+     * Sıradaki metin mesajını okur; parçalı mesajlar birleştirilir, araya giren ping'e pong ile cevap verilir.
+     * Bağlantı kapanırsa (close çerçevesi dahil) null döner.
+     */
+    public WS.WebSocketMessage read() {
+        DataInputStream in = getDataInputStream();
+        int size = 0;
+        boolean compressed = false;
+        try {
+            while (true) {
+                this.codec.readHeader(in);
+                int length = (int) this.codec.length;
+                if (this.codec.isControl()) {
+                    byte[] payload = new byte[length];
+                    this.codec.readPayload(in, payload, 0);
+                    if (this.codec.opcode == WSFrameCodec.OP_CLOSE) {
+                        return null;
+                    }
+                    if (this.codec.opcode == WSFrameCodec.OP_PING) {
+                        writeControl(WSFrameCodec.OP_PONG, payload);
                     }
-                    setBusy(true);
+                    continue;
                 }
-                getDataOutputStream().write(frames[k].payload);
-                getDataOutputStream().flush();
-                synchronized (this) {
-                    setBusy(false);
-                    notifyAll();
+                if (size + (long) length > WSFrameCodec.MAX_MESSAGE_SIZE) {
+                    throw new IOException("Message too large");
                 }
-            } catch (IOException e) {
-                System.out.println("Error32: " + e.getMessage());
-                return false;
-            } catch (Exception e) {
-                System.out.println("Error12: " + e.getMessage());
-                return false;
-            }
-        }
-
-        return true;
-    }
-    public WS.WebSocketMessage read() {
-        boolean isFinalFrame = false;
-        ArrayList<WS.WebSocketFrame> frames = new ArrayList<>();
-
-        while (!isFinalFrame) {
-            try {
-                WS.WebSocketFrame frame = new WS.WebSocketFrame(false);
-
-                byte bFrameStart = getDataInputStream().readByte();
-                BitSet frameStartBits = bitSetFromByte(bFrameStart);
-                BitSet maskAndLengthBits = bitSetFromByte(getDataInputStream().readByte());
-
-                frame.setFine(frameStartBits.get(7));
-                frame.setRsv1(frameStartBits.get(6));
-                frame.setRsv2(frameStartBits.get(5));
-                frame.setRsv3(frameStartBits.get(4));
-
-                frame.setOpcode(extractOpCode(frameStartBits));
-
-                frame.setHashMask(maskAndLengthBits.get(7));
-
-                frame.setLength(getFrameLength(maskAndLengthBits));
-
-                if (frame.length == 127L) {
-                    frame.length = readExtendedLengthLong();
-                } else if (frame.length == 126L) {
-                    frame.length = readExtendedLengthShort();
+                if (this.readBuffer == null || this.readBuffer.length < size + length) {
+                    int capacity = Math.max(size + length, this.readBuffer == null ? 4096 : this.readBuffer.length * 2);
+                    this.readBuffer = Arrays.copyOf(this.readBuffer == null ? new byte[0] : this.readBuffer,
+                            (int) Math.min(capacity, WSFrameCodec.MAX_MESSAGE_SIZE));
                 }
-
-                if (frame.isHashMask()) {
-                    frame.setMask(readMask());
+                if (size == 0 && this.codec.opcode != WSFrameCodec.OP_CONTINUATION) {
+                    compressed = this.codec.rsv1 && this.deflate != null;
                 }
-
-                frame.setPayload(readPayload(frame));
-
-                if (frame.payload != null && frame.isHashMask()) {
-                    unmaskPayload(frame);
+                this.codec.readPayload(in, this.readBuffer, size);
+                size += length;
+                if (this.codec.fin) {
+                    break;
                 }
-
-                isFinalFrame = frame.fine;
-                frames.add(frame);
-
-            } catch (EOFException eof) {
-                System.out.println("End of stream reached unexpectedly: " + eof.getMessage());
-                return null;  // Dosya sonuna ulaşıldıysa veya veri bittiğinde işlem durdurulur
-            } catch (IOException e) {
-                System.out.println("I/O Error: " + e.getMessage());
-                return null;  // Diğer IO hataları yönetilir
-            } catch (Exception e) {
-                System.out.println("Error: " + e.getMessage());
-                return null;  // Genel hata yönetimi
+            }
+            if (compressed) {
+                return WebSocketMessage.received(new String(this.deflate.inflate(this.readBuffer, 0, size), StandardCharsets.UTF_8));
+            }
+            return WebSocketMessage.received(new String(this.readBuffer, 0, size, StandardCharsets.UTF_8));
+        } catch (EOFException eof) {
+            System.out.println("End of stream reached unexpectedly: " + eof.getMessage());
+            return null;  // Dosya sonuna ulaşıldıysa veya veri bittiğinde işlem durdurulur
+        } catch (IOException e) {
+            System.out.println("I/O Error: " + e.getMessage());
+            return null;  // Diğer IO hataları yönetilir
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return null;  // Genel hata yönetimi
+        } finally {
+            if (this.readBuffer != null && this.readBuffer.length > READ_BUFFER_RETAIN) {
+                this.readBuffer = null;
             }
         }
+    }
 
-        return new WS.WebSocketMessage(frames.toArray(new WS.WebSocketFrame[0]));
+    /**
+     * Bağlantı kapanırken çağrılır; gönderilmemiş mesajlar atılır, deflate istatistikleri loglanır.
+     */
+    public void close() {
+        this.outbound.close();
     }
 
-    private byte extractOpCode(BitSet frameStartBits) {
-        byte opCode = 0;
-        for (int i = 3; i >= 0; i--) {
-            opCode = (byte) (opCode << 1);
-            if (frameStartBits.get(i)) {
-                opCode++;
-            }
-        }
-        return opCode;
+    private void writeControl(int opcode, byte[] payload) {
+        this.outbound.send(opcode, payload, payload.length);
     }
 
     @Getter
@@ -261,45 +191,26 @@ public class WS {
         }
 
         private void processPayload(byte[] payload) {
-            int maskLength = hashMask ? 4 : 0;
-            int headerLength = (payload.length < 126) ? 2 : 4;
-            byte[] frame = new byte[headerLength + maskLength + payload.length];
-
-            ByteBuffer buffer = ByteBuffer.wrap(frame);
-
-            byte frameStart = (byte) ((fine ? 1 : 0) << 7 | opcode);
-            buffer.put(frameStart);
-
-            byte maskAndLength = (byte) ((hashMask ? 1 : 0) << 7);
+            processPayload(payload, 0, payload.length);
+        }
 
-            if (payload.length < 126) {
-                buffer.put((byte) (maskAndLength | payload.length));
-            } else {
-                buffer.put((byte) (maskAndLength | 126));
-                buffer.putShort((short) payload.length);
-            }
+        private void processPayload(byte[] payload, int offset, int length) {
+            int maskLength = hashMask ? 4 : 0;
+            int headerLength = WSFrameCodec.headerLength(length);
+            byte[] frame = new byte[headerLength + maskLength + length];
+            WSFrameCodec.writeHeader(frame, 0, fine, opcode, length);
+            System.arraycopy(payload, offset, frame, headerLength + maskLength, length);
 
             if (hashMask) {
-                mask = generateMask();
-                buffer.put(mask);
-                applyMask(payload);
+                frame[1] |= (byte) 0x80;
+                int maskKey = ThreadLocalRandom.current().nextInt();
+                mask = new byte[]{(byte) (maskKey >>> 24), (byte) (maskKey >>> 16), (byte) (maskKey >>> 8), (byte) maskKey};
+                System.arraycopy(mask, 0, frame, headerLength, 4);
+                WSFrameCodec.unmask(frame, headerLength + 4, length, maskKey, 0);
             }
 
-            buffer.put(payload);
             this.payload = frame;
         }
-
-        private void applyMask(byte[] payload) {
-            for (int i = 0; i < payload.length; i++) {
-                payload[i] ^= mask[i % 4]; // XOR the payload with the mask
-            }
-        }
-
-        private static byte[] generateMask() {
-            byte[] mask = new byte[4];
-            new Random().nextBytes(mask); // More concise mask generation
-            return mask;
-        }
     }
 
     @Getter
@@ -308,33 +219,21 @@ public class WS {
         private String body;
         private WS.WebSocketFrame[] frames;
 
+        /**
+         * Gönderilecek mesaj; çerçeveleme gönderimde WSOutbound tarafından yapıldığı için burada çerçeve üretilmez.
+         */
         public WebSocketMessage(String body){
             setBody(body);
-            processMessage();
+            setFrames(new WS.WebSocketFrame[0]);
         }
 
-        private void processMessage(){
-            byte[] payLoad;
-            payLoad = getBody().getBytes(StandardCharsets.UTF_8);
-            int maxFrameSize = 65535;
-            if (payLoad.length < maxFrameSize) {
-                setFrames(new WS.WebSocketFrame[1]);
-                getFrames()[0] = new WS.WebSocketFrame(payLoad, true);
-            } else {
-                int numFrames = (int) Math.ceil((double) payLoad.length / maxFrameSize);
-                setFrames(new WS.WebSocketFrame[numFrames]);
-
-                for (int k = 0; k < numFrames; k++) {
-                    getFrames()[k] = new WS.WebSocketFrame(true);
-                    getFrames()[k].setFine(k == numFrames - 1);
-                    getFrames()[k].setOpcode((byte) (k == 0 ? 1 : 0));
-
-                    int start = k * maxFrameSize;
-                    int end = Math.min((k + 1) * maxFrameSize, payLoad.length);
-                    getFrames()[k].processPayload(Arrays.copyOfRange(payLoad, start, end));
-                }
-            }
+        /**
+         * Okunan mesaj; yük zaten birleştirilmiş olduğu için çerçeveler tutulmaz.
+         */
+        static WebSocketMessage received(String body) {
+            return new WebSocketMessage(body);
         }
+
         public WebSocketMessage(WS.WebSocketFrame[] frames) {
             setFrames(frames);
 
@@ -0,0 +1,164 @@
+package defsu.system.server.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bağlantı başına permessage-deflate (RFC 7692) durumu. El sıkışmada istemcinin teklifinden biri kabul edilirse
+ * WS'e bağlanır; MIN_SIZE altındaki mesajlar sıkıştırılmadan gider. Deflater pencere boyutunu desteklemediği için
+ * server_max_window_bits 15'ten küçük istenen teklifler reddedilir. Bağlantı kapanırken oran ve süre loglanır.
+ */
+public final class WSDeflate {
+    public static final String EXTENSION = "permessage-deflate";
+    public static final String HEADER = "Sec-WebSocket-Extensions";
+    public static boolean ENABLED = true;
+    public static int MIN_SIZE = 1024;
+    public static int LEVEL = 6;
+    // true ise sözlük her mesajda sıfırlanır; bağlantı başına bellek azalır, oran düşer
+    public static boolean SERVER_NO_CONTEXT_TAKEOVER = false;
+    public static boolean CLIENT_NO_CONTEXT_TAKEOVER = false;
+    private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+
+    private final Deflater deflater = new Deflater(LEVEL, true);
+    private final Inflater inflater = new Inflater(true);
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    private long rawOut;
+    private long wireOut;
+    private long rawIn;
+    private long wireIn;
+    private long deflateNanos;
+    private long inflateNanos;
+    private int compressedMessages;
+    private int plainMessages;
+
+    private WSDeflate(boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    /**
+     * Sec-WebSocket-Extensions değerindeki teklifler sırayla denenir; kabul edilen yoksa null.
+     */
+    public static WSDeflate negotiate(String offers) {
+        if (!ENABLED || offers == null) {
+            return null;
+        }
+        for (String offer : offers.split(",")) {
+            String[] params = offer.split(";");
+            if (!params[0].trim().equalsIgnoreCase(EXTENSION)) {
+                continue;
+            }
+            boolean accepted = true;
+            boolean serverNoContextTakeover = SERVER_NO_CONTEXT_TAKEOVER;
+            boolean clientNoContextTakeover = CLIENT_NO_CONTEXT_TAKEOVER;
+            for (int k = 1; k < params.length && accepted; k++) {
+                String[] pair = params[k].trim().split("=", 2);
+                String name = pair[0].trim().toLowerCase();
+                String value = pair.length > 1 ? pair[1].trim().replace("\"", "") : null;
+                switch (name) {
+                    case "server_no_context_takeover" -> serverNoContextTakeover = true;
+                    case "client_no_context_takeover" -> clientNoContextTakeover = true;
+                    // Inflater her pencere boyutunu açabilir, istemci tarafı için cevap gerekmez.
+                    case "client_max_window_bits" -> {
+                    }
+                    case "server_max_window_bits" -> accepted = "15".equals(value);
+                    default -> accepted = false;
+                }
+            }
+            if (accepted) {
+                return new WSDeflate(serverNoContextTakeover, clientNoContextTakeover);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 101 cevabına eklenecek başlık satırı (\r\n dahil).
+     */
+    public String responseHeader() {
+        return HEADER + ": " + EXTENSION
+                + (this.serverNoContextTakeover ? "; server_no_context_takeover" : "")
+                + (this.clientNoContextTakeover ? "; client_no_context_takeover" : "") + "\r\n";
+    }
+
+    Deflater deflater() {
+        return this.deflater;
+    }
+
+    /**
+     * Gönderilen bir mesajın sonunda çağrılır.
+     */
+    void sent(long raw, long wire, long nanos, boolean compressed) {
+        this.rawOut += raw;
+        this.wireOut += wire;
+        this.deflateNanos += nanos;
+        if (compressed) {
+            this.compressedMessages++;
+            if (this.serverNoContextTakeover) {
+                this.deflater.reset();
+            }
+        } else {
+            this.plainMessages++;
+        }
+    }
+
+    /**
+     * RSV1 işaretli bir mesajın birleştirilmiş yükünü açar.
+     */
+    public byte[] inflate(byte[] data, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(256, length * 3));
+        byte[] chunk = new byte[8192];
+        try {
+            this.inflater.setInput(data, offset, length);
+            inflateAll(out, chunk);
+            this.inflater.setInput(TAIL);
+            inflateAll(out, chunk);
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid deflate data", e);
+        } finally {
+            if (this.clientNoContextTakeover) {
+                this.inflater.reset();
+            }
+        }
+        this.rawIn += out.size();
+        this.wireIn += length;
+        this.inflateNanos += System.nanoTime() - start;
+        return out.toByteArray();
+    }
+
+    private void inflateAll(ByteArrayOutputStream out, byte[] chunk) throws DataFormatException, IOException {
+        int n;
+        while ((n = this.inflater.inflate(chunk)) > 0) {
+            out.write(chunk, 0, n);
+            if (out.size() > WSFrameCodec.MAX_MESSAGE_SIZE) {
+                throw new IOException("Message too large");
+            }
+        }
+    }
+
+    public double getCompressionRatio() {
+        return this.wireOut == 0 ? 1 : (double) this.rawOut / this.wireOut;
+    }
+
+    /**
+     * Native tamponları bırakır; bağlantı kapanırken bir kez çağrılır.
+     */
+    public void end() {
+        this.deflater.end();
+        this.inflater.end();
+    }
+
+    @Override
+    public String toString() {
+        return "out " + this.rawOut + "->" + this.wireOut + " bytes (x" + String.format("%.2f", this.getCompressionRatio())
+                + ", " + this.compressedMessages + " compressed, " + this.plainMessages + " plain, "
+                + this.deflateNanos / 1_000_000 + " ms), in " + this.wireIn + "->" + this.rawIn + " bytes ("
+                + this.inflateNanos / 1_000_000 + " ms)";
+    }
+}
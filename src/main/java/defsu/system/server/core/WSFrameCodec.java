@@ -0,0 +1,111 @@
+package defsu.system.server.core;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * WebSocket çerçeve başlığı ve maske işlemleri (RFC 6455). Başlık bit işlemleriyle çözülür, yük blocking
+ * readFully ile okunur ve maske 8 baytlık bloklar halinde uygulanır. Bir örnek son okunan başlığı tutar;
+ * bağlantı başına bir kez oluşturulur, okuma sırasında nesne üretilmez.
+ */
+public final class WSFrameCodec {
+    public static final int OP_CONTINUATION = 0;
+    public static final int OP_TEXT = 1;
+    public static final int OP_BINARY = 2;
+    public static final int OP_CLOSE = 8;
+    public static final int OP_PING = 9;
+    public static final int OP_PONG = 10;
+    public static final int RSV1 = 0x40;
+    public static long MAX_MESSAGE_SIZE = 64L * 1024 * 1024;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    public boolean fin;
+    public boolean rsv1;
+    public int opcode;
+    public boolean masked;
+    public int mask;
+    public long length;
+
+    /**
+     * Sıradaki çerçevenin başlığını okur; yük akışta kalır.
+     */
+    public void readHeader(DataInputStream in) throws IOException {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        this.fin = (b0 & 0x80) != 0;
+        this.rsv1 = (b0 & RSV1) != 0;
+        this.opcode = b0 & 0x0F;
+        this.masked = (b1 & 0x80) != 0;
+        long length = b1 & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        if (length < 0 || length > MAX_MESSAGE_SIZE) {
+            throw new IOException("Frame too large: " + length);
+        }
+        this.length = length;
+        this.mask = this.masked ? in.readInt() : 0;
+    }
+
+    /**
+     * Başlığı okunmuş çerçevenin yükünü dst'ye okur ve maskeyi kaldırır.
+     */
+    public void readPayload(DataInputStream in, byte[] dst, int offset) throws IOException {
+        in.readFully(dst, offset, (int) this.length);
+        if (this.masked) {
+            unmask(dst, offset, (int) this.length, this.mask, 0);
+        }
+    }
+
+    public boolean isControl() {
+        return (this.opcode & 0x08) != 0;
+    }
+
+    /**
+     * XOR maskesi; position, bu parçanın çerçeve yükü içindeki başlangıç konumudur. İşlem kendi tersidir.
+     */
+    public static void unmask(byte[] buf, int offset, int length, int mask, long position) {
+        int shift = (int) (position & 3) * 8;
+        int m = Integer.rotateLeft(mask, shift);
+        long m8 = ((long) m << 32) | (m & 0xFFFFFFFFL);
+        int k = 0;
+        for (; k + 8 <= length; k += 8) {
+            LONGS.set(buf, offset + k, (long) LONGS.get(buf, offset + k) ^ m8);
+        }
+        for (; k < length; k++) {
+            buf[offset + k] ^= (byte) (m >>> (24 - 8 * (k & 3)));
+        }
+    }
+
+    public static int getInt(byte[] buf, int offset) {
+        return (int) INTS.get(buf, offset);
+    }
+
+    public static int headerLength(long length) {
+        return length < 126 ? 2 : (length <= 0xFFFF ? 4 : 10);
+    }
+
+    /**
+     * Sunucu çerçevesi başlığı (maskesiz); headerLength(length) bayt yazar.
+     */
+    public static void writeHeader(byte[] dst, int offset, boolean fin, int opcode, long length) {
+        dst[offset] = (byte) ((fin ? 0x80 : 0) | opcode);
+        if (length < 126) {
+            dst[offset + 1] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            dst[offset + 1] = 126;
+            dst[offset + 2] = (byte) (length >>> 8);
+            dst[offset + 3] = (byte) length;
+        } else {
+            dst[offset + 1] = 127;
+            LONGS.set(dst, offset + 2, length);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.zip.Deflater;
+
+/**
+ * Bağlantı başına giden mesaj kuyruğu. Yazan thread'ler (istek, pump) mesajı sıraya koyar ve ham parçalarını
+ * ekler; soketi tek seferde tek bir thread (CAS ile drainer olan) yazar. Mesajlar sırayla ve bütün halinde
+ * gider: baştaki mesaj tamamlanmadan sonrakine geçilmez, ama sonraki mesajların yazanları beklemez.
+ * Drainer çerçeveleri bir tamponda toplar, birden fazla çerçeve tek write ile gider; deflate de burada,
+ * gönderim sırasıyla yapılır. Kuyruk HIGH_WATER'ı aşarsa yazanlar LOW_WATER'a inene kadar bekler,
+ * SLOW_CONSUMER_TIMEOUT içinde inmezse bağlantı kapatılır.
+ */
+public final class WSOutbound {
+    private static final String LOG_UNIT = "WebSocket";
+    public static int CHUNK_SIZE = 64 * 1024;
+    public static int BUFFER_POOL = 64;
+    public static long HIGH_WATER = 8L * 1024 * 1024;
+    public static long LOW_WATER = 2L * 1024 * 1024;
+    public static long SLOW_CONSUMER_TIMEOUT = 30_000L;
+    private static final int MAX_HEADER = 10;
+    private static final int TAIL = 4;
+    private static final ArrayBlockingQueue<byte[]> _buffers = new ArrayBlockingQueue<>(256);
+
+    private final WS ws;
+    private final ConcurrentLinkedQueue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean ended = new AtomicBoolean(false);
+    private final Watermark watermark = new Watermark();
+    private volatile boolean broken;
+
+    // Sadece drainer kullanır
+    private byte[] staging;
+    private int stagingPosition;
+    private byte[] packed;
+    private int packedPosition;
+
+    private record Chunk(byte[] data, int length, boolean pooled, boolean last) {
+    }
+
+    public static final class Message {
+        private final int opcode;
+        private final ConcurrentLinkedQueue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong pending = new AtomicLong();
+        private volatile boolean complete;
+        // Drainer durumu
+        private boolean started;
+        private boolean compressing;
+        private long raw;
+        private long wire;
+        private long nanos;
+
+        private Message(int opcode) {
+            this.opcode = opcode;
+        }
+    }
+
+    /**
+     * Bekleyen bayt sayacı; azaldıkça bekleyen yazanlar uyandırılır.
+     */
+    static final class Watermark {
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition drained = this.lock.newCondition();
+
+        void add(long n) {
+            this.bytes.addAndGet(n);
+        }
+
+        void remove(long n) {
+            this.bytes.addAndGet(-n);
+            if (this.waiters.get() > 0) {
+                this.lock.lock();
+                try {
+                    this.drained.signalAll();
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+        }
+
+        long get() {
+            return this.bytes.get();
+        }
+
+        /**
+         * full true olduğu sürece bekler; süre dolarsa false.
+         */
+        boolean await(BooleanSupplier full) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(SLOW_CONSUMER_TIMEOUT);
+            this.lock.lock();
+            this.waiters.incrementAndGet();
+            try {
+                while (full.getAsBoolean()) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = this.drained.awaitNanos(nanos);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                this.waiters.decrementAndGet();
+                this.lock.unlock();
+            }
+        }
+    }
+
+    WSOutbound(WS ws) {
+        this.ws = ws;
+    }
+
+    static byte[] acquire() {
+        byte[] buffer = _buffers.poll();
+        return buffer != null && buffer.length == CHUNK_SIZE ? buffer : new byte[CHUNK_SIZE];
+    }
+
+    static void release(byte[] buffer) {
+        if (buffer != null && buffer.length == CHUNK_SIZE && _buffers.size() < BUFFER_POOL) {
+            _buffers.offer(buffer);
+        }
+    }
+
+    public boolean isBroken() {
+        return this.broken;
+    }
+
+    public long getQueuedBytes() {
+        return this.watermark.get();
+    }
+
+    /**
+     * Tek parça mesaj; payload kuyruğa kopyalanmadan konur, çağıran sonra değiştirmemelidir.
+     */
+    public boolean send(int opcode, byte[] payload, int length) {
+        Message message = this.begin(opcode);
+        return this.append(message, new Chunk(payload, length, false, true));
+    }
+
+    /**
+     * Mesaj akışı; yazılanlar CHUNK_SIZE'lık havuz tamponlarında kuyruğa eklenir, close mesajı tamamlar.
+     */
+    public OutputStream open(int opcode) {
+        return new MessageOutputStream(this, this.begin(opcode));
+    }
+
+    private Message begin(int opcode) {
+        Message message = new Message(opcode);
+        this.queue.add(message);
+        return message;
+    }
+
+    private boolean append(Message message, Chunk chunk) {
+        if (this.broken) {
+            if (chunk.pooled) {
+                release(chunk.data);
+            }
+            message.complete = message.complete || chunk.last;
+            return false;
+        }
+        message.pending.addAndGet(chunk.length);
+        this.watermark.add(chunk.length);
+        message.chunks.add(chunk);
+        if (chunk.last) {
+            message.complete = true;
+        }
+        if (this.ws.offload(this::schedule)) {
+            return !this.broken;
+        }
+        this.schedule();
+        if (!this.over(message, HIGH_WATER)) {
+            return !this.broken;
+        }
+        boolean ok = this.watermark.await(() -> !this.broken && this.over(message, LOW_WATER));
+        if (!ok && !this.broken) {
+            Logger.Error(LOG_UNIT + ": slow consumer, " + this.watermark.get() + " bytes queued; closing", true);
+            this.fail();
+        }
+        return !this.broken;
+    }
+
+    /**
+     * Baştaki mesajın yazanı sadece kendi parçalarına bakar; arkadaki mesajlar onun bitmesini beklediği için
+     * toplamı beklemesi kilitlenmeye yol açar.
+     */
+    private boolean over(Message message, long limit) {
+        return this.queue.peek() == message ? message.pending.get() > limit : this.watermark.get() > limit;
+    }
+
+    /**
+     * Drainer yoksa bu thread drainer olur. Bayrak bırakıldıktan sonra gelen iş kaçmasın diye tekrar bakılır.
+     */
+    private void schedule() {
+        while (this.draining.compareAndSet(false, true)) {
+            try {
+                this.drain();
+                if (this.broken) {
+                    this.cleanup();
+                    return;
+                }
+            } finally {
+                this.draining.set(false);
+            }
+            if (!this.hasWork()) {
+                return;
+            }
+        }
+    }
+
+    private boolean hasWork() {
+        Message head = this.queue.peek();
+        return head != null && (head.complete || !head.chunks.isEmpty());
+    }
+
+    private void drain() {
+        try {
+            Message message;
+            while (!this.broken && (message = this.queue.peek()) != null) {
+                // complete parçalar okunmadan önce okunur; true ise tüm parçalar görünürdür
+                boolean complete = message.complete;
+                Chunk chunk;
+                while (!this.broken && (chunk = message.chunks.poll()) != null) {
+                    try {
+                        this.write(message, chunk);
+                    } finally {
+                        if (chunk.pooled) {
+                            release(chunk.data);
+                        }
+                        message.pending.addAndGet(-chunk.length);
+                        this.watermark.remove(chunk.length);
+                    }
+                }
+                if (!complete) {
+                    break;
+                }
+                this.queue.poll();
+            }
+            this.flush();
+        } catch (IOException e) {
+            Logger.Error(e, LOG_UNIT, true);
+            this.fail();
+        } catch (Exception e) {
+            Logger.Error(e, LOG_UNIT, true);
+            this.fail();
+        }
+    }
+
+    private void write(Message message, Chunk chunk) throws IOException {
+        WSDeflate deflate = this.ws.getDeflate();
+        if (!message.started && !message.compressing) {
+            message.compressing = deflate != null && message.opcode == WSFrameCodec.OP_TEXT
+                    && (!chunk.last || chunk.length >= WSDeflate.MIN_SIZE);
+        }
+        message.raw += chunk.length;
+        if (message.compressing) {
+            this.compress(deflate, message, chunk);
+        } else {
+            this.frame(message, chunk.data, 0, chunk.length, chunk.last, false);
+        }
+        if (chunk.last && deflate != null && message.opcode == WSFrameCodec.OP_TEXT) {
+            deflate.sent(message.raw, message.wire, message.nanos, message.compressing);
+        }
+    }
+
+    /**
+     * SYNC_FLUSH sonundaki 00 00 FF FF atılacağı için her çerçevede son 4 bayt sonraki çerçeveye bırakılır.
+     */
+    private void compress(WSDeflate deflate, Message message, Chunk chunk) throws IOException {
+        long start = System.nanoTime();
+        if (this.packed == null) {
+            this.packed = acquire();
+        }
+        Deflater deflater = deflate.deflater();
+        deflater.setInput(chunk.data, 0, chunk.length);
+        int mode = chunk.last ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH;
+        while (true) {
+            this.packedPosition += deflater.deflate(this.packed, this.packedPosition, this.packed.length - this.packedPosition, mode);
+            if (this.packedPosition < this.packed.length && (chunk.last || deflater.needsInput())) {
+                break;
+            }
+            if (this.packedPosition == this.packed.length) {
+                this.framePacked(message, false);
+            }
+        }
+        if (chunk.last) {
+            this.framePacked(message, true);
+            release(this.packed);
+            this.packed = null;
+            this.packedPosition = 0;
+        }
+        message.nanos += System.nanoTime() - start;
+    }
+
+    private void framePacked(Message message, boolean last) throws IOException {
+        int length = this.packedPosition - TAIL;
+        this.frame(message, this.packed, 0, length, last, !message.started);
+        System.arraycopy(this.packed, length, this.packed, 0, TAIL);
+        this.packedPosition = TAIL;
+    }
+
+    private void frame(Message message, byte[] data, int offset, int length, boolean last, boolean compressed) throws IOException {
+        if (this.staging == null) {
+            this.staging = new byte[MAX_HEADER + CHUNK_SIZE];
+        }
+        if (this.staging.length - this.stagingPosition < MAX_HEADER) {
+            this.flush();
+        }
+        int opcode = message.started ? WSFrameCodec.OP_CONTINUATION : message.opcode;
+        WSFrameCodec.writeHeader(this.staging, this.stagingPosition, last, opcode, length);
+        if (compressed) {
+            this.staging[this.stagingPosition] |= WSFrameCodec.RSV1;
+        }
+        this.stagingPosition += WSFrameCodec.headerLength(length);
+        if (length > this.staging.length - this.stagingPosition) {
+            // Büyük yük kopyalanmadan gönderilir
+            this.flush();
+            this.ws.transmit(data, offset, length);
+        } else {
+            System.arraycopy(data, offset, this.staging, this.stagingPosition, length);
+            this.stagingPosition += length;
+        }
+        message.started = true;
+        message.wire += length;
+    }
+
+    private void flush() throws IOException {
+        if (this.staging != null && this.stagingPosition > 0) {
+            int length = this.stagingPosition;
+            this.stagingPosition = 0;
+            this.ws.transmit(this.staging, 0, length);
+        }
+    }
+
+    private void fail() {
+        if (!this.broken) {
+            this.broken = true;
+            this.ws.abort();
+        }
+        this.watermark.remove(0);
+    }
+
+    /**
+     * Bağlantı kapanırken; kuyruk boşaltılır, deflate istatistikleri loglanır ve native tamponlar bırakılır.
+     * Drainer çalışıyorsa temizliği o bitince yapar.
+     */
+    public void close() {
+        this.broken = true;
+        this.watermark.remove(0);
+        if (this.draining.compareAndSet(false, true)) {
+            this.cleanup();
+        }
+    }
+
+    private void cleanup() {
+        if (!this.ended.compareAndSet(false, true)) {
+            return;
+        }
+        Message message;
+        while ((message = this.queue.poll()) != null) {
+            Chunk chunk;
+            while ((chunk = message.chunks.poll()) != null) {
+                if (chunk.pooled) {
+                    release(chunk.data);
+                }
+                this.watermark.remove(chunk.length);
+            }
+        }
+        release(this.packed);
+        this.packed = null;
+        this.staging = null;
+        this.stagingPosition = 0;
+        WSDeflate deflate = this.ws.getDeflate();
+        if (deflate != null) {
+            this.ws.setDeflate(null);
+            Logger.Info(LOG_UNIT + " permessage-deflate " + deflate, true);
+            deflate.end();
+        }
+    }
+
+    /**
+     * close ile mesaj tamamlanır; gövde yarıda kalsa da son çerçeve gider, yoksa sonraki mesaj devamı sanılır.
+     */
+    private static final class MessageOutputStream extends OutputStream {
+        private final WSOutbound outbound;
+        private final Message message;
+        private byte[] buffer = acquire();
+        private int position;
+
+        MessageOutputStream(WSOutbound outbound, Message message) {
+            this.outbound = outbound;
+            this.message = message;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.position == this.buffer.length) {
+                this.push(false);
+            }
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (this.position == this.buffer.length) {
+                    this.push(false);
+                }
+                int n = Math.min(len, this.buffer.length - this.position);
+                System.arraycopy(b, off, this.buffer, this.position, n);
+                this.position += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void push(boolean last) throws IOException {
+            byte[] buffer = this.buffer;
+            this.buffer = last ? null : acquire();
+            int length = this.position;
+            this.position = 0;
+            if (!this.outbound.append(this.message, new Chunk(buffer, length, true, last)) && !last) {
+                throw new IOException("Connection closed");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.buffer != null) {
+                this.push(true);
+            }
+        }
+    }
+}
@@ -10,7 +10,12 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -19,9 +24,21 @@ import java.util.logging.Logger;
 public class WSUpdateCore {
     private static final Logger logger = Logger.getLogger(WSUpdateCore.class.getName());
     public static final String CHNL_LOGIN = "admin.logins";
-    private static List<WSUpdateCore.Channel> channels = new ArrayList();
+    /**
+     * Kanalın halkasından geride kalan aboneye gönderilen payload fn değeri; istemci görünümü yeniden yükler.
+     */
+    public static final String FN_RESYNC = "resync";
+    private static List<WSUpdateCore.Channel> channels = new CopyOnWriteArrayList<>();
+    /**
+     * Session id'ye göre abonelikler; processQueue sadece o session'ın abonelerini dolaşır.
+     */
+    private static final Map<String, List<WSUpdateCore.Subscriber>> subscribersBySession = new ConcurrentHashMap<>();
+    /**
+     * Session id'ye göre bekleme sinyalleri; pump edilen kanalın abonelerini uyandırır.
+     */
+    private static final Map<String, WSUpdateCore.Signal> signals = new ConcurrentHashMap<>();
     private static final Lock cleaningsLock = new ReentrantLock();
-    private static boolean isCleaning = false;
+    private static final LongAdder resyncCount = new LongAdder();
     /**
      * Payload'ların saklanacağı maksimum süre (milisaniye cinsinden) - varsayılan 1 saat
      */
@@ -37,7 +54,7 @@ public class WSUpdateCore {
 
     /**
      * Belirli bir süreden daha eski olan payload'ları tüm kanallardan temizler.
-     * Bu metod thread-safe olarak çalışır ve temizleme işlemi sırasında diğer işlemleri engellemez.
+     * Her kanal yalnızca kendi halkası temizlenirken kilitlenir, okuyucular beklemez.
      * 
      * @param maxAgeMs Saklanacak maksimum payload yaşı (milisaniye cinsinden)
      * @return Temizlenen payload sayısı
@@ -48,14 +65,11 @@ public class WSUpdateCore {
         }
         
         try {
-            isCleaning = true;
             int totalRemoved = 0;
             Date threshold = new Date(System.currentTimeMillis() - maxAgeMs);
             
             for (WSUpdateCore.Channel channel : channels) {
-                int initialSize = channel._payloads.size();
-                channel._payloads.removeIf(p -> p.date.before(threshold));
-                int removed = initialSize - channel._payloads.size();
+                int removed = channel.removeOlderThan(threshold);
                 totalRemoved += removed;
                 
                 if (removed > 0) {
@@ -69,7 +83,6 @@ public class WSUpdateCore {
             logger.log(Level.SEVERE, "Error during payload cleanup", e);
             return 0;
         } finally {
-            isCleaning = false;
             cleaningsLock.unlock();
         }
     }
@@ -85,49 +98,113 @@ public class WSUpdateCore {
 
     public static List<WSUpdateCore.Payload> processQueue() {
         List<WSUpdateCore.Payload> output = new ArrayList<>();
-        int cleanCount = 0;
 
         if (System.currentTimeMillis() - lastCleanupTime > CLEANUP_INTERVAL_MS) {
             cleanOldPayloads();
         }
 
-        while (isCleaning) {
-            try {
-                Thread.sleep(500L);
-                if (++cleanCount > 20) {
-                    return output;
+        SessionCore currentSessionContext = SessionCore.getCurrentContext();
+        List<WSUpdateCore.Payload> payloads = new ArrayList<>();
+
+        for (WSUpdateCore.Subscriber subscriber : getSessionSubscribers(currentSessionContext.getSessionID())) {
+            WSUpdateCore.Channel channel = subscriber.channel;
+            payloads.clear();
+            long cursor = channel.readSince(subscriber.cursor, payloads);
+
+            if (cursor < 0) {
+                // Abone halkanın gerisinde kaldı; sessizce kaybetmek yerine istemciye yeniden yüklemesini söylüyoruz
+                subscriber.cursor = channel.getSequence();
+                resyncCount.increment();
+                output.add(resyncPayload(channel));
+                continue;
+            }
+            subscriber.cursor = cursor;
+
+            for (WSUpdateCore.Payload payload : payloads) {
+                WSUpdateCore.Payload copy = payload.copy();
+                if (checkLimit(subscriber, channel, copy)) {
+                    output.add(copy);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.warning("Thread interrupted while waiting for cleaning to finish");
-                return output;
             }
         }
 
-        SessionCore currentSessionContext = SessionCore.getCurrentContext();
+        return output;
+    }
 
-        for (WSUpdateCore.Channel channel : channels) {
-            List<WSUpdateCore.Subscriber> subscribers = channel.getSubscribers();
+    private static WSUpdateCore.Payload resyncPayload(WSUpdateCore.Channel channel) {
+        WSUpdateCore.Payload p = new WSUpdateCore.Payload((SessionCore) null);
+        p.origin.type = Enums.PayloadOriginType.SYSTEM;
+        p.origin.channel = channel.name;
+        p.fn = FN_RESYNC;
+        return p;
+    }
+
+    public static long getResyncCount() {
+        return resyncCount.sum();
+    }
 
-            for (WSUpdateCore.Subscriber subscriber : subscribers) {
-                if (subscriber.sessionContext.getSessionID().equals(currentSessionContext.getSessionID())) {
-                    List<WSUpdateCore.Payload> payloads = channel.getPayloadsSince(subscriber.lastPumpDate);
+    private static List<WSUpdateCore.Subscriber> getSessionSubscribers(String sessionID) {
+        List<WSUpdateCore.Subscriber> subscribers = subscribersBySession.get(sessionID);
+        return subscribers == null ? new ArrayList<>() : subscribers;
+    }
 
-                    for (WSUpdateCore.Payload payload : payloads) {
-                        WSUpdateCore.Payload copy = payload.copy();
-                        if (checkLimit(subscriber, channel, copy)) {
-                            output.add(copy);
-                        }
-                    }
+    private static void addSubscriber(WSUpdateCore.Channel c, WSUpdateCore.Subscriber s) {
+        s.channel = c;
+        c.getSubscribers().add(s);
+        subscribersBySession.computeIfAbsent(s.sessionContext.getSessionID(), k -> new CopyOnWriteArrayList<>()).add(s);
+    }
 
-                    if (!payloads.isEmpty()) {
-                        subscriber.lastPumpDate = new Date();
-                    }
+    /**
+     * SessionCore yeni bir session id aldığında, o context'e ait abonelikleri yeni id altına taşır.
+     * Eski id'yi kullanan başka context kalmadıysa eski sinyal bırakılır; bekleyenler uyanıp yeni sinyale geçer.
+     */
+    static void sessionRenamed(SessionCore sc, String oldSessionID) {
+        if (oldSessionID == null || oldSessionID.equals(sc.getSessionID())) {
+            return;
+        }
+        List<WSUpdateCore.Subscriber> old = subscribersBySession.get(oldSessionID);
+        if (old != null) {
+            for (WSUpdateCore.Subscriber s : old) {
+                if (s.sessionContext == sc) {
+                    old.remove(s);
+                    subscribersBySession.computeIfAbsent(sc.getSessionID(), k -> new CopyOnWriteArrayList<>()).add(s);
                 }
             }
+            if (old.isEmpty()) {
+                subscribersBySession.remove(oldSessionID, old);
+            }
+            getSignal(sc.getSessionID()).fire();
+        }
+        if (SessionRegistry.bySession(oldSessionID) == null) {
+            releaseSignal(oldSessionID);
         }
+    }
 
-        return output;
+    /**
+     * Session'ın güncelleme sinyali. Bağlantılar 100 ms'de bir sorgulamak yerine bunu bekler.
+     */
+    public static WSUpdateCore.Signal getSignal(String sessionID) {
+        return signals.computeIfAbsent(sessionID, k -> new WSUpdateCore.Signal());
+    }
+
+    /**
+     * Session silindiğinde abonelikleri kanallardan kaldırılır ve sinyali bırakılır.
+     */
+    static void sessionRemoved(String sessionID) {
+        List<WSUpdateCore.Subscriber> subscribers = subscribersBySession.remove(sessionID);
+        if (subscribers != null) {
+            for (WSUpdateCore.Subscriber s : subscribers) {
+                s.channel.getSubscribers().remove(s);
+            }
+        }
+        releaseSignal(sessionID);
+    }
+
+    private static void releaseSignal(String sessionID) {
+        WSUpdateCore.Signal signal = signals.remove(sessionID);
+        if (signal != null) {
+            signal.fire();
+        }
     }
 
 
@@ -135,84 +212,18 @@ public class WSUpdateCore {
     public static boolean checkLimit(WSUpdateCore.Subscriber s, WSUpdateCore.Channel c, WSUpdateCore.Payload p) {
         if (p.manipulations.isEmpty()) {
             return true;
-        } else {
-            boolean found = false;
-            List<RecordManipulation> oldManipulations = new ArrayList<>(p.manipulations);
-            p.manipulations.clear();
-
-            for (RecordManipulation manip : oldManipulations) {
-                for (String key : s.limits.keyList()) {
-                    if (key.startsWith(c.name + '|')) {
-                        StringDictionary params = s.limits.get(key);
-
-                        if (params.containsKey("@viewId")) {
-                            if (manip.type != Enums.ManipulationType.INSERT && manip.type != Enums.ManipulationType.UPDATE) {
-                                found = true;
-                            } else {
-                                String searchStr = (String) params.get("@search", "");
-                                if (searchStr.isEmpty()) {
-                                    found = true;
-                                } else {
-                                    String[] searchParams = searchStr.split(";");
-                                    int matchingFilters = 0;
-
-                                    for (String param : searchParams) {
-                                        String[] paramParts = param.split("=");
-                                        if (paramParts.length > 1 && paramParts[1].endsWith("~")) {
-                                            ++matchingFilters;
-                                        } else {
-                                            RecordValue value = manip.record.getRecordValue(paramParts[0]);
-                                            String valueStr = (value != null) ? value.rawValue() : "";
-
-                                            if (valueStr.isEmpty() && value != null) {
-                                                valueStr = value.getValue();
-                                            }
-
-                                            List<String> paramValues = new ArrayList<>();
-                                            if (paramParts[1].contains("|")) {
-                                                String[] paramValuesA = paramParts[1].split("\\|");
-                                                for (String sss : paramValuesA) {
-                                                    paramValues.add(sss);
-                                                }
-                                            } else {
-                                                paramValues.add(paramParts[1]);
-                                            }
-
-                                            for (String paramValue : paramValues) {
-                                                try {
-                                                    if (value != null && value.getField().fieldType == SuField.FT.STRING && valueStr.contains(paramValue)) {
-                                                        ++matchingFilters;
-                                                        break;
-                                                    } else if (valueStr.equals(paramValue)) {
-                                                        ++matchingFilters;
-                                                        break;
-                                                    }
-                                                } catch (Exception e) {
-                                                    logger.log(Level.SEVERE, "Error in WSUpdateCore.checkLimit", e);
-                                                }
-                                            }
-                                        }
-                                    }
-
-                                    if (matchingFilters == searchParams.length) {
-                                        found = true;
-                                    }
-                                }
-                            }
-
-                            if (found) {
-                                RecordManipulation mm = manip.copy();
-                                mm.targetView = (String) params.get("@viewId");
-                                p.manipulations.add(mm);
-                            }
-                        }
-                    }
-                }
-            }
-
-            return found;
         }
+        SubscriberFilter filter = s.filter;
+        List<RecordManipulation> routed = new ArrayList<>();
+        boolean found = false;
+        for (RecordManipulation manip : p.manipulations) {
+            found |= filter.route(manip, routed);
+        }
+        p.manipulations.clear();
+        p.manipulations.addAll(routed);
+        return found;
     }
+
     private static WSUpdateCore.Channel _findChannel(String name) {
         return channels.stream()
                 .filter(c -> c.name.equals(name))
@@ -224,11 +235,14 @@ public class WSUpdateCore {
         WSUpdateCore.Subscriber s = subscribe(cls);
         if (mem.containsKey("@viewId") && ("grid".equals(mem.get("@viewType")) || "chart".equals(mem.get("@viewType")))) {
             String key = cls.getName() + '|' + mem.get("@viewId");
-            if (s.limits.containsKey(key)) {
-                s.limits.get(key).clear();
-                s.limits.get(key).putAll(mem.copy());
-            } else {
-                s.limits.put(cls.getName() + '|' + mem.get("@viewId"), mem.copy());
+            synchronized (s) {
+                if (s.limits.containsKey(key)) {
+                    s.limits.get(key).clear();
+                    s.limits.get(key).putAll(mem.copy());
+                } else {
+                    s.limits.put(key, mem.copy());
+                }
+                s.filter = SubscriberFilter.compile(s.limits);
             }
         }
     }
@@ -241,16 +255,13 @@ public class WSUpdateCore {
         }
 
         SessionCore sc = SessionCore.getCurrentContext();
-        WSUpdateCore.Subscriber s = c.getSubscribers().stream()
-                .filter(ss -> ss.sessionContext.getSessionID().equals(sc.getSessionID()))
-                .findFirst()
-                .orElse(null);
+        WSUpdateCore.Subscriber s = findSubscriber(c, sc);
 
         if (s == null) {
             s = new WSUpdateCore.Subscriber();
-            s.lastPumpDate = new Date();
-            s.sessionContext = SessionCore.getCurrentContext();
-            c.getSubscribers().add(s);
+            s.cursor = c.getSequence();
+            s.sessionContext = sc;
+            addSubscriber(c, s);
         }
 
         return s;
@@ -268,19 +279,25 @@ public class WSUpdateCore {
         }
 
         SessionCore sc = (targetContext == null) ? SessionCore.getCurrentContext() : targetContext;
-        WSUpdateCore.Subscriber s = c.getSubscribers().stream()
-                .filter(ss -> ss.sessionContext.getSessionID().equals(sc.getSessionID()))
-                .findFirst()
-                .orElse(null);
+        WSUpdateCore.Subscriber s = findSubscriber(c, sc);
 
         if (s == null) {
             s = new WSUpdateCore.Subscriber();
-            s.lastPumpDate = new Date();
+            s.cursor = c.getSequence();
             s.sessionContext = sc;
-            c.getSubscribers().add(s);
+            addSubscriber(c, s);
         }
     }
 
+    private static WSUpdateCore.Subscriber findSubscriber(WSUpdateCore.Channel c, SessionCore sc) {
+        for (WSUpdateCore.Subscriber s : getSessionSubscribers(sc.getSessionID())) {
+            if (s.channel == c) {
+                return s;
+            }
+        }
+        return null;
+    }
+
     public static void pump(String channelName, WSUpdateCore.Payload p) {
         WSUpdateCore.Channel c = _findChannel(channelName);
         if (c == null) {
@@ -308,14 +325,14 @@ public class WSUpdateCore {
 
     public static boolean pumpToSession(String sessionId, WSUpdateCore.Payload p) {
         boolean sended = false;
-        for (WSUpdateCore.Channel c : channels) {
-            for (WSUpdateCore.Subscriber s : c.getSubscribers()) {
-                if (s.sessionContext.getSessionID().equals(sessionId)) {
-                    p.origin.channel = c.name;
-                    c.pump(p);
-                    sended = true;
-                    break;
-                }
+        List<WSUpdateCore.Channel> pumped = new ArrayList<>();
+        for (WSUpdateCore.Subscriber s : getSessionSubscribers(sessionId)) {
+            WSUpdateCore.Channel c = s.channel;
+            if (!pumped.contains(c)) {
+                pumped.add(c);
+                p.origin.channel = c.name;
+                c.pump(p);
+                sended = true;
             }
         }
         return sended;
@@ -330,10 +347,17 @@ public class WSUpdateCore {
 
 
     public static class Channel {
+        /**
+         * Kanal başına saklanan payload sayısı; halka dolunca en eskisinin üzerine yazılır.
+         */
+        public static final int CAPACITY = 1024;
         public String uuid = RecordCore.b2H(RecordCore.guid());
         public String name;
         public Enums.ChannelProtocol protocol;
-        private List<WSUpdateCore.Payload> _payloads = new CopyOnWriteArrayList<>();
+        private final WSUpdateCore.Payload[] _ring = new WSUpdateCore.Payload[CAPACITY];
+        // Son verilen sıra numarası ve hâlâ okunabilen en küçük sıra numarası
+        private long _sequence = 0;
+        private long _floor = 1;
         private List<WSUpdateCore.Subscriber> _subscribers = new CopyOnWriteArrayList<>();
 
         public Channel(Class<? extends SuRecord> cls) {
@@ -350,26 +374,105 @@ public class WSUpdateCore {
             return this._subscribers;
         }
 
-        public List<WSUpdateCore.Payload> getPayloadsSince(Date since) {
-            List<WSUpdateCore.Payload> output = new ArrayList<>();
+        public synchronized long getSequence() {
+            return this._sequence;
+        }
+
+        private long firstAvailable() {
+            return Math.max(this._floor, this._sequence - CAPACITY + 1);
+        }
+
+        /**
+         * cursor'dan sonra gelen payload'ları sırayla output'a ekler ve yeni cursor'ı döner.
+         * İstenen payload'lar halkadan düşmüşse -1 döner.
+         */
+        public synchronized long readSince(long cursor, List<WSUpdateCore.Payload> output) {
+            if (cursor + 1 < firstAvailable()) {
+                return -1;
+            }
+            for (long seq = cursor + 1; seq <= this._sequence; seq++) {
+                output.add(this._ring[(int) (seq % CAPACITY)]);
+            }
+            return this._sequence;
+        }
 
+        synchronized int removeOlderThan(Date threshold) {
+            int removed = 0;
+            long seq = firstAvailable();
+            while (seq <= this._sequence) {
+                int index = (int) (seq % CAPACITY);
+                if (!this._ring[index].date.before(threshold)) {
+                    break;
+                }
+                this._ring[index] = null;
+                removed++;
+                seq++;
+            }
+            this._floor = seq;
+            return removed;
+        }
+
+        public void pump(WSUpdateCore.Payload p) {
+            synchronized (this) {
+                this._sequence++;
+                this._ring[(int) (this._sequence % CAPACITY)] = p;
+            }
+            for (WSUpdateCore.Subscriber s : this._subscribers) {
+                WSUpdateCore.Signal signal = signals.get(s.sessionContext.getSessionID());
+                if (signal != null) {
+                    signal.fire();
+                }
+            }
+        }
+    }
+
+    /**
+     * Bir session'a yeni payload geldiğini bildirir. Thread tabanlı handler'lar await ile bekler,
+     * NIO bağlantıları dinleyici ekleyerek worker'da gönderimi tetikler.
+     */
+    public static class Signal {
+        private final Lock lock = new ReentrantLock();
+        private final Condition fired = lock.newCondition();
+        private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+        private boolean pending = false;
+
+        public void fire() {
+            lock.lock();
+            try {
+                pending = true;
+                fired.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+
+        /**
+         * Sinyal gelene ya da süre dolana kadar bekler; sinyal geldiyse true döner.
+         */
+        public boolean await(long timeoutMs) throws InterruptedException {
+            lock.lock();
             try {
-                if (this._payloads.size() < 1000) {
-                    for (WSUpdateCore.Payload p : this._payloads) {
-                        if (p.date.after(since)) {
-                            output.add(p);
-                        }
-                    }
+                long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                while (!pending && nanos > 0) {
+                    nanos = fired.awaitNanos(nanos);
                 }
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error in getPayloadsSince", e);
+                boolean result = pending;
+                pending = false;
+                return result;
+            } finally {
+                lock.unlock();
             }
+        }
 
-            return output;
+        public void addListener(Runnable listener) {
+            listeners.add(listener);
         }
 
-        public void pump(WSUpdateCore.Payload p) {
-            this._payloads.add(p);
+        public void removeListener(Runnable listener) {
+            listeners.remove(listener);
         }
     }
 
@@ -460,7 +563,15 @@ public class WSUpdateCore {
     }
     public static class Subscriber {
         public SessionCore sessionContext;
-        public Date lastPumpDate = new Date();
+        public WSUpdateCore.Channel channel;
+        /**
+         * Abonenin okuduğu son payload'ın kanal sıra numarası
+         */
+        public long cursor;
         public StringDictionary<StringDictionary<String>> limits = new StringDictionary<>();
+        /**
+         * limits'in derlenmiş hali; checkLimit bunu kullanır
+         */
+        public volatile SubscriberFilter filter = SubscriberFilter.EMPTY;
     }
 }
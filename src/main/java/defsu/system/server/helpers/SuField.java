@@ -10,7 +10,6 @@ import lombok.Getter;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.List;
 
 public class SuField implements Serializable {
     private static final long serialVersionUID = 7765746604867230741L;
@@ -44,13 +43,11 @@ public class SuField implements Serializable {
     public SuField.DT displayAs;
     public String fetchFrom;
     public SuField.FieldRelation relation;
-    public StringDictionary<List<SuField>> path;
     @Getter
     private StringDictionary<SuField.LanguageColumn> languageColumns;
 
     public SuField() {
         this.align = SuField.FieldAlign.LEFT;
-        this.path = new StringDictionary();
         this.name = "";
         this.title = "";
         this.defaultValue = "";
@@ -3,6 +3,7 @@ package defsu.system.server.helpers;
 import defsu.system.server.core.ConnectionCore;
 import defsu.system.server.core.SessionCore;
 import defsu.system.server.core.SuResponse;
+import defsu.system.server.core.UnitOfWork;
 import defsu.system.server.core.WS;
 
 public abstract class SynchInteraction {
@@ -16,8 +17,7 @@ public abstract class SynchInteraction {
             WS webSocket = clientHandler.get_webSocket();
             if (webSocket != null) {
                 SuResponse initialMessage = this.start();
-                WS.WebSocketMessage msg = new WS.WebSocketMessage('+' + SuResponse.getGSON().toJson(initialMessage));
-                webSocket.write(msg);
+                webSocket.write('+' + SuResponse.getGSON().toJson(initialMessage));
                 String response = "sa.";
                 int count = 0;
 
@@ -30,8 +30,7 @@ public abstract class SynchInteraction {
                 }
 
                 for (SuResponse processResult = this.process(response); processResult != null; processResult = this.process(response)) {
-                    msg = new WS.WebSocketMessage(SuResponse.getGSON().toJson(processResult));
-                    webSocket.write(msg);
+                    webSocket.write(SuResponse.getGSON().toJson(processResult));
                     response = this.read(webSocket);
                 }
 
@@ -43,6 +42,8 @@ public abstract class SynchInteraction {
     }
 
     private String read(WS webSocket) {
+        // Kullanıcı beklenirken transaction ve bağlantı açık tutulmaz
+        UnitOfWork.checkpoint();
         WS.WebSocketMessage clientResponse = webSocket.read();
         return clientResponse.getBody();
     }
@@ -1,11 +1,16 @@
 package defsu.system.server.maps;
 
+import defsu.system.server.core.EntityCache;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.Date;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCache.REGION_TAXOFFICE)
 @Table(
         name = "taxoffice"
 )
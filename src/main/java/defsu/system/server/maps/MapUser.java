@@ -3,9 +3,14 @@ package defsu.system.server.maps;
 import java.io.Serializable;
 import java.util.Date;
 
+import defsu.system.server.core.EntityCache;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCache.REGION_USER)
 @Table(
         name = "arkuser"
 )
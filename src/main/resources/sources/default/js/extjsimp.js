@@ -3458,10 +3458,22 @@ Ext.define('UGRFrontend.data.proxy.Socket', {
                 'value': scope.proxy.formUuid
             });
 
+            // bir sonraki sayfa isteniyorsa sunucunun verdigi keyset cursor'i gonderilir
+            if (request.action == 'list' && me.nextCursor && operation.page == me.cursorPage + 1) {
+                args.push({
+                    'key': '@cursor',
+                    'value': me.nextCursor
+                });
+            }
+
             Ext.apply(request, {
                 args: args,
                 onSuccess: function (msg) {
                     msg.success = true;
+                    if (request.action == 'list') {
+                        me.nextCursor = msg.cursor;
+                        me.cursorPage = operation.page;
+                    }
                     msg.orgRows = msg.rows;
                     msg.rows = UGRJS.Desktop.getRowData(msg.orgRows);
                     if (msg.rows.length > 0) {
@@ -4944,6 +4956,12 @@ Ext.define('UGRFrontend.data.store.GTTreeStore', {
     processMessage: function (msg) {
         var me = this;
 
+        // Sunucu bu kanalın değişikliklerini kaçırdığımızı bildirdi, veriyi baştan çekiyoruz
+        if (msg.fn == 'resync') {
+            me.load();
+            return;
+        }
+
         if (Ext.isArray(msg.manipulations)) {
             for (var k = 0; k < msg.manipulations.length; k++) {
                 me.processManipulation(msg.manipulations[k]);
@@ -5088,6 +5106,12 @@ Ext.define('UGRFrontend.data.store.GTStore', {
     processMessage: function (msg) {
         var me = this;
 
+        // Sunucu bu kanalın değişikliklerini kaçırdığımızı bildirdi, veriyi baştan çekiyoruz
+        if (msg.fn == 'resync') {
+            me.reload();
+            return;
+        }
+
         if (Ext.isArray(msg.manipulations)) {
             for (var k = 0; k < msg.manipulations.length; k++) {
                 me.processManipulation(msg.manipulations[k]);
@@ -5676,6 +5700,12 @@ Ext.define('UGRFrontend.data.store.GTCalendarStore', {
     processMessage: function (msg) {
         var me = this;
 
+        // Sunucu bu kanalın değişikliklerini kaçırdığımızı bildirdi, veriyi baştan çekiyoruz
+        if (msg.fn == 'resync') {
+            me.reload();
+            return;
+        }
+
         if (Ext.isArray(msg.manipulations)) {
             for (var k = 0; k < msg.manipulations.length; k++) {
                 me.processManipulation(msg.manipulations[k]);
@@ -0,0 +1,125 @@
+package defsu.system.benchmark;
+
+import defsu.system.projects.main.maps.MapAccount;
+import defsu.system.projects.main.record.account.Account;
+import defsu.system.projects.sys.record.User;
+import defsu.system.server.core.PojoMapper;
+import defsu.system.server.core.RecordCore;
+import defsu.system.server.maps.MapUser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kayıt <-> Map* kopyalama: eski iç içe reflection döngüsü ile PojoMapper karşılaştırması.
+ * Çalıştırmak için: main metodu veya test classpath'i ile org.openjdk.jmh.Main.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PojoMapperBenchmark {
+    private MapUser mapUser;
+    private User user;
+    private MapAccount mapAccount;
+    private Account account;
+
+    @Setup
+    public void setup() {
+        this.mapUser = new MapUser();
+        this.mapUser.setUserPK(RecordCore.guid());
+        this.mapUser.setUserName("admin");
+        this.mapUser.setUserRealName("Admin");
+        this.mapUser.setUserEmail("admin@defsu.com");
+        this.mapUser.setUserLastLoginDT(new Date());
+        this.mapUser.setVisible(true);
+        this.user = new User();
+        legacyCopy(this.mapUser, this.user);
+
+        this.mapAccount = new MapAccount();
+        this.mapAccount.setAccountPK(RecordCore.guid());
+        this.mapAccount.setAccountName("Hesap");
+        this.mapAccount.setAccountCode("120.01");
+        this.mapAccount.setAddress1("Adres");
+        this.mapAccount.setCreatedDate(new Date());
+        this.mapAccount.setVisible(true);
+        this.account = new Account();
+        legacyCopy(this.mapAccount, this.account);
+    }
+
+    @Benchmark
+    public Object userToRecordLegacy() {
+        return legacyCopy(this.mapUser, new User());
+    }
+
+    @Benchmark
+    public Object userToRecordMapper() {
+        return PojoMapper.of(MapUser.class, User.class).copy(this.mapUser, new User());
+    }
+
+    @Benchmark
+    public Object userToPojoLegacy() {
+        return legacyCopy(this.user, new MapUser());
+    }
+
+    @Benchmark
+    public Object userToPojoMapper() {
+        return PojoMapper.of(User.class, MapUser.class).copy(this.user, new MapUser());
+    }
+
+    @Benchmark
+    public Object accountToRecordLegacy() {
+        return legacyCopy(this.mapAccount, new Account());
+    }
+
+    @Benchmark
+    public Object accountToRecordMapper() {
+        return PojoMapper.of(MapAccount.class, Account.class).copy(this.mapAccount, new Account());
+    }
+
+    @Benchmark
+    public Object accountToPojoLegacy() {
+        return legacyCopy(this.account, new MapAccount());
+    }
+
+    @Benchmark
+    public Object accountToPojoMapper() {
+        return PojoMapper.of(Account.class, MapAccount.class).copy(this.account, new MapAccount());
+    }
+
+    // ObjectCore.copyPojoToRecord / getPojo'nun önceki hali
+    private static Object legacyCopy(Object source, Object target) {
+        Method[] sourceMethods = source.getClass().getMethods();
+        Method[] targetMethods = target.getClass().getMethods();
+        for (Method sourceMethod : sourceMethods) {
+            if (sourceMethod.getName().startsWith("get")) {
+                for (Method targetMethod : targetMethods) {
+                    if (targetMethod.getName().startsWith("set")) {
+                        if (sourceMethod.getName().substring(3).equals(targetMethod.getName().substring(3))) {
+                            try {
+                                targetMethod.invoke(target, sourceMethod.invoke(source));
+                            } catch (Exception ignored) {
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PojoMapperBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
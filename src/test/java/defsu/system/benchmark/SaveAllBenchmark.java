@@ -0,0 +1,102 @@
+package defsu.system.benchmark;
+
+import defsu.system.projects.main.maps.MapAccount;
+import defsu.system.server.core.HibernateCore;
+import defsu.system.server.core.RecordCore;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10.000 hesap güncellemesi: kayıt başına transaction (updateMain) ile tek transaction + JDBC batch (saveAllMain).
+ * Sonuç ops/s = satır/sn. MySQL gerekir; bağlantı -Ddb.host, -Ddb.port, -Ddb.name, -Ddb.user, -Ddb.pass ile verilir.
+ * Benchmark kendi eklediği "bench-" ile başlayan satırları siler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SaveAllBenchmark {
+    private static final int ROWS = 10_000;
+    private List<MapAccount> accounts;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HibernateCore.configure(new HibernateCore.DatabaseConnection(
+                System.getProperty("db.port", "3306"),
+                System.getProperty("db.host", "localhost"),
+                System.getProperty("db.name", "defsu"),
+                System.getProperty("db.pass", ""),
+                System.getProperty("db.user", "root"),
+                "com.mysql.cj.jdbc.Driver"));
+        new HibernateCore();
+
+        this.accounts = new ArrayList<>(ROWS);
+        byte[] creator = RecordCore.guid();
+        for (int k = 0; k < ROWS; k++) {
+            MapAccount a = new MapAccount();
+            a.setAccountPK(RecordCore.guid());
+            a.setAccountName("bench-" + k);
+            a.setCreatedDate(new Date());
+            a.setUpdatedDate(new Date());
+            a.setVisible(true);
+            a.setCreatorFK(creator);
+            a.setUpdaterFK(creator);
+            this.accounts.add(a);
+        }
+        HibernateCore.saveAllMain(this.accounts, Collections.emptyList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try (Session session = HibernateCore.getMainSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createMutationQuery("delete from MapAccount where accountName like 'bench-%'").executeUpdate();
+            transaction.commit();
+        }
+    }
+
+    private void touch() {
+        this.round++;
+        for (MapAccount a : this.accounts) {
+            a.setNote("round " + this.round);
+            a.setUpdatedDate(new Date());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void updatePerRow() {
+        this.touch();
+        for (MapAccount a : this.accounts) {
+            HibernateCore.updateMain(a);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public boolean updateBatched() {
+        this.touch();
+        return HibernateCore.saveAllMain(Collections.emptyList(), this.accounts);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SaveAllBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
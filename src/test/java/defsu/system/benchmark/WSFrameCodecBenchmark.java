@@ -0,0 +1,139 @@
+package defsu.system.benchmark;
+
+import defsu.system.server.core.WS;
+import defsu.system.server.core.WSFrameCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * İstemciden gelen maskeli bir çerçevenin çözülmesi: eski BitSet başlık çözümü ve bayt bayt maske ile
+ * WSFrameCodec karşılaştırması. read, WS.read üzerinden String'e kadar tüm yolu ölçer.
+ * Çalıştırmak için: main metodu veya test classpath'i ile org.openjdk.jmh.Main.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WSFrameCodecBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    private byte[] frame;
+    private byte[] payload;
+    private ByteArrayInputStream input;
+    private DataInputStream in;
+    private WSFrameCodec codec;
+    private WS ws;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] body = new byte[this.size];
+        Random random = new Random(42);
+        for (int k = 0; k < body.length; k++) {
+            body[k] = (byte) ('a' + random.nextInt(26));
+        }
+        int mask = random.nextInt();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(0x81);
+        if (body.length < 126) {
+            out.write(0x80 | body.length);
+        } else if (body.length <= 0xFFFF) {
+            out.write(0x80 | 126);
+            out.writeShort(body.length);
+        } else {
+            out.write(0x80 | 127);
+            out.writeLong(body.length);
+        }
+        out.writeInt(mask);
+        WSFrameCodec.unmask(body, 0, body.length, mask, 0);
+        out.write(body);
+        this.frame = bytes.toByteArray();
+        this.payload = new byte[this.size];
+        this.input = new ByteArrayInputStream(this.frame);
+        this.in = new DataInputStream(this.input);
+        this.codec = new WSFrameCodec();
+        this.ws = new WS(this.in, null);
+    }
+
+    @Benchmark
+    public byte[] decodeLegacy() throws IOException {
+        this.input.reset();
+        BitSet start = bitSetFromLong(this.in.readByte(), 8);
+        BitSet maskAndLength = bitSetFromLong(this.in.readByte(), 8);
+        boolean fin = start.get(7);
+        long length = bits(maskAndLength, 6);
+        if (length == 126) {
+            length = bits(bitSetFromLong(this.in.readShort(), 16), 15);
+        } else if (length == 127) {
+            length = bits(bitSetFromLong(this.in.readLong(), 64), 63);
+        }
+        byte[] mask = new byte[4];
+        if (maskAndLength.get(7)) {
+            for (int i = 0; i < 4; i++) {
+                mask[i] = this.in.readByte();
+            }
+        }
+        byte[] payload = new byte[(int) length];
+        this.in.readFully(payload);
+        for (int k = 0; k < payload.length; k++) {
+            payload[k] ^= mask[k % 4];
+        }
+        return fin ? payload : null;
+    }
+
+    @Benchmark
+    public byte[] decode() throws IOException {
+        this.input.reset();
+        this.codec.readHeader(this.in);
+        this.codec.readPayload(this.in, this.payload, 0);
+        return this.payload;
+    }
+
+    @Benchmark
+    public String read() {
+        this.input.reset();
+        return this.ws.read().getBody();
+    }
+
+    private static BitSet bitSetFromLong(long v, int width) {
+        BitSet bits = new BitSet(width);
+        for (int i = 0; i < width; ++i) {
+            bits.set(i, (v & 1L) == 1L);
+            v >>= 1;
+        }
+        return bits;
+    }
+
+    private static long bits(BitSet set, int high) {
+        long value = 0;
+        for (int k = high; k > -1; --k) {
+            value <<= 1;
+            if (set.get(k)) {
+                ++value;
+            }
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WSFrameCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,335 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.RecordManipulation;
+import defsu.system.server.helpers.SuField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogCodecTest {
+
+    private static Account account(String name) {
+        Account account = new Account();
+        account.setAccountPK(RecordCore.i2B(7));
+        account.setAccountName(name);
+        account.setNote(null);
+        account.setCount(-123_456);
+        account.setTotal(Long.MIN_VALUE + 1);
+        account.setAmount(-0.125);
+        account.setCreatedDate(new Date(1_700_000_000_000L));
+        account.setVisible(true);
+        return account;
+    }
+
+    @Test
+    void fullSnapshotRoundTrip() {
+        ChangeLogCodec.Snapshot snapshot = ChangeLogCodec.snapshot(account("İstanbul"));
+        byte[] data = snapshot.encode(null);
+
+        assertTrue(ChangeLogCodec.isEncoded(data));
+        assertEquals(snapshot.getStateHash(), ChangeLogCodec.stateHash(data));
+
+        ChangeLogCodec.Change change = ChangeLogCodec.read(data);
+        assertEquals(ChangeLogCodec.VERSION, change.version);
+        assertTrue(change.full);
+        assertEquals(snapshot.getStateHash(), change.stateHash);
+        assertEquals(Account.FIELDS.getCount(), change.values.size());
+        assertArrayEquals(RecordCore.i2B(7), (byte[]) change.values.get("accountPK"));
+        assertEquals("İstanbul", change.values.get("accountName"));
+        assertNull(change.values.get("note"));
+        assertEquals(-123_456, change.values.get("count"));
+        assertEquals(Long.MIN_VALUE + 1, change.values.get("total"));
+        assertEquals(-0.125, change.values.get("amount"));
+        assertEquals(new Date(1_700_000_000_000L), change.values.get("createdDate"));
+        assertEquals(Boolean.TRUE, change.values.get("visible"));
+    }
+
+    @Test
+    void deltaCarriesOnlyChangedFields() {
+        Account account = account("Ankara");
+        long[] previous = ChangeLogCodec.snapshot(account).getHashes();
+        account.setAccountName("Angora");
+        account.setVisible(false);
+
+        ChangeLogCodec.Snapshot snapshot = ChangeLogCodec.snapshot(account);
+        ChangeLogCodec.Change change = ChangeLogCodec.read(snapshot.encode(previous));
+
+        assertFalse(change.full);
+        assertEquals(snapshot.getStateHash(), change.stateHash);
+        assertEquals(Map.of("accountName", "Angora", "visible", Boolean.FALSE), change.values);
+    }
+
+    @Test
+    void unchangedRecordHasSameHashes() {
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account("İzmir"));
+        ChangeLogCodec.Snapshot second = ChangeLogCodec.snapshot(account("İzmir"));
+
+        assertArrayEquals(first.getHashes(), second.getHashes());
+        assertEquals(first.getStateHash(), second.getStateHash());
+        assertTrue(ChangeLogCodec.read(second.encode(first.getHashes())).values.isEmpty());
+        assertNotEquals(first.getStateHash(), ChangeLogCodec.snapshot(account("Izmir")).getStateHash());
+    }
+
+    @Test
+    void previousWithDifferentFieldCountIsWrittenInFull() {
+        ChangeLogCodec.Snapshot snapshot = ChangeLogCodec.snapshot(account("Bursa"));
+        ChangeLogCodec.Change change = ChangeLogCodec.read(snapshot.encode(new long[1]));
+
+        assertTrue(change.full);
+        assertEquals(Account.FIELDS.getCount(), change.values.size());
+    }
+
+    @Test
+    void replayAppliesDeltasOnTopOfFullImages() {
+        Account account = account("Konya");
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account);
+        account.setCount(42);
+        ChangeLogCodec.Snapshot second = ChangeLogCodec.snapshot(account);
+        account.setAccountName("Konya Merkez");
+        ChangeLogCodec.Snapshot third = ChangeLogCodec.snapshot(account);
+
+        List<Map<String, Object>> states = ChangeLogCodec.replay(List.of(
+                first.encode(null),
+                second.encode(first.getHashes()),
+                third.encode(second.getHashes())));
+
+        assertEquals(3, states.size());
+        assertEquals(-123_456, states.get(0).get("count"));
+        assertEquals(42, states.get(1).get("count"));
+        assertEquals("Konya", states.get(1).get("accountName"));
+        assertEquals("Konya Merkez", states.get(2).get("accountName"));
+        assertEquals(42, states.get(2).get("count"));
+        assertEquals(Account.FIELDS.getCount(), states.get(2).size());
+    }
+
+    @Test
+    void fullImageInTheMiddleResetsReplay() {
+        Account account = account("Sivas");
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account);
+        account.setNote("silindi");
+        ChangeLogCodec.Snapshot second = ChangeLogCodec.snapshot(account);
+        account.setNote(null);
+        ChangeLogCodec.Snapshot third = ChangeLogCodec.snapshot(account);
+
+        List<Map<String, Object>> states = ChangeLogCodec.replay(List.of(
+                first.encode(null),
+                second.encode(first.getHashes()),
+                third.encode(null)));
+
+        assertEquals("silindi", states.get(1).get("note"));
+        assertNull(states.get(2).get("note"));
+        assertTrue(states.get(2).containsKey("note"));
+    }
+
+    @Test
+    void deltaCarriesBaseHashAndSequence() {
+        Account account = account("Adana");
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account);
+        account.setCount(1);
+        byte[] data = ChangeLogCodec.snapshot(account).encode(first.getHashes(), 42);
+
+        ChangeLogCodec.Change change = ChangeLogCodec.read(data);
+        assertEquals(first.getStateHash(), change.baseHash);
+        assertEquals(42, change.sequence);
+        assertEquals(42, ChangeLogCodec.sequence(data));
+        assertNull(ChangeLogCodec.read(first.encode(null, 41)).baseHash);
+    }
+
+    @Test
+    void replayFollowsSequenceNotListOrder() {
+        Account account = account("Mersin");
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account);
+        account.setCount(1);
+        ChangeLogCodec.Snapshot second = ChangeLogCodec.snapshot(account);
+        account.setCount(2);
+        ChangeLogCodec.Snapshot third = ChangeLogCodec.snapshot(account);
+
+        // Tarih sırası yazılış sırasından farklı gelse de sonuç aynıdır.
+        List<Map<String, Object>> states = ChangeLogCodec.replay(List.of(
+                third.encode(second.getHashes(), 30),
+                first.encode(null, 10),
+                second.encode(first.getHashes(), 20)));
+
+        assertEquals(3, states.size());
+        assertEquals(-123_456, states.get(0).get("count"));
+        assertEquals(1, states.get(1).get("count"));
+        assertEquals(2, states.get(2).get("count"));
+    }
+
+    @Test
+    void deltaOnWrongBaseIsNotApplied() {
+        Account account = account("Hatay");
+        ChangeLogCodec.Snapshot first = ChangeLogCodec.snapshot(account);
+        account.setCount(1);
+        ChangeLogCodec.Snapshot second = ChangeLogCodec.snapshot(account);
+        account.setNote("kayıp");
+        ChangeLogCodec.Snapshot lost = ChangeLogCodec.snapshot(account);
+        account.setCount(3);
+        ChangeLogCodec.Snapshot third = ChangeLogCodec.snapshot(account);
+
+        // "lost" logu yazılamadı; third onun üzerine kurulduğu için second'a uygulanamaz.
+        List<Map<String, Object>> states = ChangeLogCodec.replay(List.of(
+                first.encode(null, 1),
+                second.encode(first.getHashes(), 2),
+                third.encode(lost.getHashes(), 4),
+                third.encode(null, 5)));
+
+        assertEquals(3, states.size());
+        assertEquals(1, states.get(1).get("count"));
+        assertEquals(3, states.get(2).get("count"));
+        assertEquals("kayıp", states.get(2).get("note"));
+    }
+
+    @Test
+    void versionOneLogsAreStillRead() {
+        Account account = account("Rize");
+        byte[] v2 = ChangeLogCodec.snapshot(account).encode(null, 7);
+        // Sürüm 1: taban hash'i ve sıra alanları yok
+        byte[] v1 = new byte[v2.length - 16];
+        System.arraycopy(v2, 0, v1, 0, 12);
+        System.arraycopy(v2, 28, v1, 12, v2.length - 28);
+        v1[2] = 1;
+
+        ChangeLogCodec.Change change = ChangeLogCodec.read(v1);
+        assertEquals(1, change.version);
+        assertEquals(0, ChangeLogCodec.sequence(v1));
+        assertNull(change.baseHash);
+        assertEquals("Rize", change.values.get("accountName"));
+        assertEquals(Account.FIELDS.getCount(), ChangeLogCodec.replay(List.of(v1)).get(0).size());
+    }
+
+    @Test
+    void unencodedDataIsNotReadAsChangeLog() {
+        assertFalse(ChangeLogCodec.isEncoded(new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5}));
+        assertNull(ChangeLogCodec.stateHash(new byte[]{'C', 'L'}));
+        assertNull(ChangeLogCodec.read(null));
+    }
+
+    public static class Account implements SuRecord {
+        static final SuField.SuFieldList FIELDS = new SuField.SuFieldList();
+        private byte[] accountPK;
+        private String accountName;
+        private String note;
+        private Integer count;
+        private Long total;
+        private Double amount;
+        private Date createdDate;
+        private Boolean visible;
+
+        static {
+            for (String name : new String[]{"accountPK", "accountName", "note", "count", "total", "amount", "createdDate", "visible"}) {
+                SuField f = new SuField();
+                f.name = name;
+                FIELDS.add(f);
+            }
+        }
+
+        public byte[] getAccountPK() {
+            return this.accountPK;
+        }
+
+        public void setAccountPK(byte[] accountPK) {
+            this.accountPK = accountPK;
+        }
+
+        public String getAccountName() {
+            return this.accountName;
+        }
+
+        public void setAccountName(String accountName) {
+            this.accountName = accountName;
+        }
+
+        public String getNote() {
+            return this.note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+
+        public Integer getCount() {
+            return this.count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public Long getTotal() {
+            return this.total;
+        }
+
+        public void setTotal(Long total) {
+            this.total = total;
+        }
+
+        public Double getAmount() {
+            return this.amount;
+        }
+
+        public void setAmount(Double amount) {
+            this.amount = amount;
+        }
+
+        public Date getCreatedDate() {
+            return this.createdDate;
+        }
+
+        public void setCreatedDate(Date createdDate) {
+            this.createdDate = createdDate;
+        }
+
+        public Boolean getVisible() {
+            return this.visible;
+        }
+
+        public void setVisible(Boolean visible) {
+            this.visible = visible;
+        }
+
+        @Override
+        public RecordProperties getField() {
+            RecordProperties rp = new RecordProperties();
+            rp.fields = FIELDS;
+            rp.primaryKey = "accountPK";
+            return rp;
+        }
+
+        @Override
+        public void process() {
+        }
+
+        @Override
+        public void _initialize() {
+        }
+
+        @Override
+        public boolean disableLog() {
+            return false;
+        }
+
+        @Override
+        public boolean getEmpty() {
+            return false;
+        }
+
+        @Override
+        public void setEmpty(boolean empty) {
+        }
+
+        @Override
+        public RecordManipulation save() {
+            return null;
+        }
+
+        @Override
+        public RecordManipulation delete() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package defsu.system.server.core;
+
+import defsu.system.server.components.DataTable;
+import defsu.system.server.helpers.RecordManipulation;
+import defsu.system.server.helpers.SuField;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListQueryTest {
+    // Veritabanı bağlantısı açmadan yalnızca metamodel kurulur; sorgular HQL metnine çevrilerek kontrol edilir.
+    private static final SessionFactory FACTORY = new Configuration()
+            .addAnnotatedClass(MapNote.class)
+            .setProperty("hibernate.dialect", "org.hibernate.dialect.MySQLDialect")
+            .setProperty("hibernate.boot.allow_jdbc_metadata_access", "false")
+            .setProperty("hibernate.cache.use_second_level_cache", "false")
+            .buildSessionFactory();
+
+    private static StringDictionary<String> mem(String... pairs) {
+        StringDictionary<String> mem = new StringDictionary<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            mem.put(pairs[i], pairs[i + 1]);
+        }
+        return mem;
+    }
+
+    private static ListQuery query(String... pairs) {
+        return new ListQuery(Note.class, mem(pairs));
+    }
+
+    /**
+     * where ve orders'ı gerçek bir Criteria sorgusuna uygulayıp HQL karşılığını döner.
+     */
+    private static String hql(ListQuery query) {
+        CriteriaBuilder builder = FACTORY.getCriteriaBuilder();
+        CriteriaQuery<MapNote> criteria = builder.createQuery(MapNote.class);
+        Root<MapNote> root = criteria.from(MapNote.class);
+        criteria.select(root).where(query.where(builder, root)).orderBy(query.orders(builder, root));
+        return ((SqmSelectStatement<?>) criteria).toHqlString();
+    }
+
+    private static int predicateCount(ListQuery query) {
+        CriteriaBuilder builder = FACTORY.getCriteriaBuilder();
+        return query.where(builder, builder.createQuery(MapNote.class).from(MapNote.class)).length;
+    }
+
+    private static Note note(int pk, String name, Double amount) {
+        Note note = new Note();
+        note.setNotePK(RecordCore.i2B(pk));
+        note.setNoteName(name);
+        note.setAmount(amount);
+        note.setCount(pk * 10);
+        note.setCreatedDate(new Date(1_700_000_000_000L + pk));
+        note.setVisible(pk % 2 == 0);
+        return note;
+    }
+
+    @Test
+    void defaultsWithoutParameters() {
+        ListQuery query = query();
+
+        assertEquals(0, query.getStart());
+        assertEquals(DataTable.PAGESIZE, query.getLimit());
+    }
+
+    @Test
+    void pageIsConvertedToStart() {
+        ListQuery query = query(ObjectCore.CRITERIA_PAGE, "3", ObjectCore.CRITERIA_LIMIT, "20");
+
+        assertEquals(40, query.getStart());
+        assertEquals(20, query.getLimit());
+    }
+
+    @Test
+    void startOverridesPage() {
+        ListQuery query = query(ObjectCore.CRITERIA_PAGE, "3", ObjectCore.CRITERIA_LIMIT, "20", ObjectCore.CRITERIA_START, "5");
+
+        assertEquals(5, query.getStart());
+    }
+
+    @Test
+    void invalidPagingValuesAreClamped() {
+        assertEquals(1, query(ObjectCore.CRITERIA_LIMIT, "0").getLimit());
+        assertEquals(DataTable.PAGESIZE, query(ObjectCore.CRITERIA_LIMIT, "abc").getLimit());
+        assertEquals(0, query(ObjectCore.CRITERIA_START, "-5").getStart());
+        assertEquals(0, query(ObjectCore.CRITERIA_PAGE, "-2").getStart());
+        assertEquals(10, query(ObjectCore.CRITERIA_PAGE, " 2 ", ObjectCore.CRITERIA_LIMIT, "10").getStart());
+    }
+
+    @Test
+    void searchTermsBecomePredicates() {
+        ListQuery query = query(ObjectCore.CRITERIA_SEARCH, "noteName=ab~;amount=>10,5;count=1|2;unknown=x;label=y;createdDate=");
+        String hql = hql(query);
+
+        assertEquals(3, predicateCount(query));
+        assertTrue(hql.contains(".noteName like %ab%"), hql);
+        assertTrue(hql.contains(".amount > 10.5"), hql);
+        assertTrue(hql.contains(".count = 1 or "), hql);
+        assertTrue(hql.contains(".count = 2)"), hql);
+        assertFalse(hql.contains("unknown") || hql.contains("label"), hql);
+    }
+
+    @Test
+    void likeWildcardsAreEscaped() {
+        String hql = hql(query(ObjectCore.CRITERIA_SEARCH, "noteName=50%_a"));
+
+        assertTrue(hql.contains("like %50\\%\\_a%"), hql);
+    }
+
+    @Test
+    void unparseableValueMatchesNothing() {
+        ListQuery query = query(ObjectCore.CRITERIA_SEARCH, "count=abc;notePK=zz");
+
+        // Her iki terim de atlanmaz, eşleşmeyen koşula çevrilir.
+        assertEquals(2, predicateCount(query));
+        assertFalse(hql(query).contains("abc"));
+    }
+
+    @Test
+    void primaryKeyIsAlwaysLastSortKey() {
+        String hql = hql(query(ObjectCore.CRITERIA_ORDER, "amount=D;notePK=D;noteName=A;unknown=A"));
+        String orderBy = hql.substring(hql.indexOf("order by"));
+
+        assertTrue(orderBy.matches("order by \\w+\\.amount desc[^,]*, \\w+\\.noteName asc[^,]*, \\w+\\.notePK asc[^,]*"), orderBy);
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        String sort = "amount=D;noteName=A;createdDate=A";
+        ListQuery first = query(ObjectCore.CRITERIA_ORDER, sort, ObjectCore.CRITERIA_LIMIT, "2");
+        hql(first);
+        Note last = note(7, "a.b İ", 12.5);
+        String cursor = first.encodeCursor(last, 57);
+
+        ListQuery next = query(ObjectCore.CRITERIA_ORDER, sort, ObjectCore.CRITERIA_LIMIT, "2",
+                ObjectCore.CRITERIA_START, "2", ObjectCore.CRITERIA_CURSOR, cursor);
+        hql(next);
+        Object[] values = next.decodeCursor();
+
+        assertEquals(57, next.cursorTotal());
+        assertNotNull(values);
+        assertEquals(4, values.length);
+        assertEquals(12.5, values[0]);
+        assertEquals("a.b İ", values[1]);
+        assertEquals(last.getCreatedDate(), values[2]);
+        assertArrayEquals(last.getNotePK(), (byte[]) values[3]);
+    }
+
+    @Test
+    void descendingSeekKeepsNullKeys() {
+        String sort = "amount=D;noteName=A;createdDate=D";
+        ListQuery first = query(ObjectCore.CRITERIA_ORDER, sort, ObjectCore.CRITERIA_LIMIT, "2");
+        hql(first);
+        String cursor = first.encodeCursor(note(4, "d", 3.0), 9);
+        ListQuery next = query(ObjectCore.CRITERIA_ORDER, sort, ObjectCore.CRITERIA_LIMIT, "2",
+                ObjectCore.CRITERIA_START, "2", ObjectCore.CRITERIA_CURSOR, cursor);
+
+        CriteriaBuilder builder = FACTORY.getCriteriaBuilder();
+        CriteriaQuery<MapNote> criteria = builder.createQuery(MapNote.class);
+        Root<MapNote> root = criteria.from(MapNote.class);
+        criteria.select(root).orderBy(next.orders(builder, root));
+        criteria.where(next.seek(builder, root, next.decodeCursor()));
+        String hql = ((SqmSelectStatement<?>) criteria).toHqlString();
+
+        // Azalan anahtarlarda NULL'lar cursor satırından sonra gelir, artanlarda önce.
+        assertTrue(hql.matches(".*\\w+\\.amount < 3\\.0 or \\w+\\.amount is null.*"), hql);
+        assertTrue(hql.matches(".*\\w+\\.createdDate < .* or \\w+\\.createdDate is null.*"), hql);
+        assertFalse(hql.contains("noteName is null") || hql.contains("notePK is null"), hql);
+    }
+
+    @Test
+    void cursorSignatureIsDigestOfSearchAndSort() {
+        ListQuery query = query(ObjectCore.CRITERIA_SEARCH, "noteName=x", ObjectCore.CRITERIA_ORDER, "count=A");
+        hql(query);
+        String[] parts = query.encodeCursor(note(1, "x", 1.0), 9).split("\\.");
+
+        assertEquals("50", parts[0]);
+        assertEquals(RecordCore.toMD5("noteName=x\ncount=A"), parts[1]);
+        assertEquals("9", parts[2]);
+    }
+
+    @Test
+    void cursorForAnotherPageFilterOrSortIsIgnored() {
+        ListQuery first = query(ObjectCore.CRITERIA_SEARCH, "noteName=a", ObjectCore.CRITERIA_ORDER, "amount=A", ObjectCore.CRITERIA_LIMIT, "10");
+        hql(first);
+        String cursor = first.encodeCursor(note(3, "a", 2.0), 100);
+
+        ListQuery[] mismatched = {
+                query(ObjectCore.CRITERIA_SEARCH, "noteName=a", ObjectCore.CRITERIA_ORDER, "amount=A", ObjectCore.CRITERIA_LIMIT, "10",
+                        ObjectCore.CRITERIA_START, "20", ObjectCore.CRITERIA_CURSOR, cursor),
+                query(ObjectCore.CRITERIA_SEARCH, "noteName=b", ObjectCore.CRITERIA_ORDER, "amount=A", ObjectCore.CRITERIA_LIMIT, "10",
+                        ObjectCore.CRITERIA_START, "10", ObjectCore.CRITERIA_CURSOR, cursor),
+                query(ObjectCore.CRITERIA_SEARCH, "noteName=a", ObjectCore.CRITERIA_ORDER, "amount=D", ObjectCore.CRITERIA_LIMIT, "10",
+                        ObjectCore.CRITERIA_START, "10", ObjectCore.CRITERIA_CURSOR, cursor),
+        };
+        for (ListQuery query : mismatched) {
+            hql(query);
+            assertNull(query.decodeCursor());
+            assertEquals(-1, query.cursorTotal());
+        }
+    }
+
+    @Test
+    void malformedCursorIsIgnored() {
+        ListQuery first = query(ObjectCore.CRITERIA_ORDER, "count=A", ObjectCore.CRITERIA_LIMIT, "10");
+        hql(first);
+        String[] parts = first.encodeCursor(note(3, "a", 2.0), 100).split("\\.");
+
+        String missingKey = parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3];
+        String badNumber = parts[0] + "." + parts[1] + "." + parts[2] + ".eHl6." + parts[4];
+        for (String cursor : new String[]{missingKey, badNumber, "10", "x.y.z"}) {
+            ListQuery next = query(ObjectCore.CRITERIA_ORDER, "count=A", ObjectCore.CRITERIA_LIMIT, "10",
+                    ObjectCore.CRITERIA_START, "10", ObjectCore.CRITERIA_CURSOR, cursor);
+            hql(next);
+            assertNull(next.decodeCursor(), cursor);
+        }
+    }
+
+    @Test
+    void noCursorWhenSortKeyIsNull() {
+        ListQuery query = query(ObjectCore.CRITERIA_ORDER, "amount=A");
+        hql(query);
+
+        assertNull(query.encodeCursor(note(1, "x", null), 10));
+        assertEquals(-1, query.cursorTotal());
+    }
+
+    @Entity
+    @Table(name = "note")
+    public static class MapNote {
+        @Id
+        private byte[] notePK;
+        private String noteName;
+        private Double amount;
+        private Integer count;
+        private Date createdDate;
+        private Boolean visible;
+
+        public byte[] getNotePK() {
+            return this.notePK;
+        }
+
+        public void setNotePK(byte[] notePK) {
+            this.notePK = notePK;
+        }
+
+        public String getNoteName() {
+            return this.noteName;
+        }
+
+        public void setNoteName(String noteName) {
+            this.noteName = noteName;
+        }
+
+        public Double getAmount() {
+            return this.amount;
+        }
+
+        public void setAmount(Double amount) {
+            this.amount = amount;
+        }
+
+        public Integer getCount() {
+            return this.count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public Date getCreatedDate() {
+            return this.createdDate;
+        }
+
+        public void setCreatedDate(Date createdDate) {
+            this.createdDate = createdDate;
+        }
+
+        public Boolean getVisible() {
+            return this.visible;
+        }
+
+        public void setVisible(Boolean visible) {
+            this.visible = visible;
+        }
+    }
+
+    public static class Note extends MapNote implements SuRecord {
+        static final SuField.SuFieldList FIELDS = new SuField.SuFieldList();
+
+        static {
+            field("notePK", SuField.FT.BYTE_ARRAY);
+            field("noteName", SuField.FT.STRING);
+            field("amount", SuField.FT.DOUBLE);
+            field("count", SuField.FT.INTEGER);
+            field("createdDate", SuField.FT.DATE);
+            field("visible", SuField.FT.BOOLEAN);
+            // Kayıtta olup pojo'da olmayan alan
+            field("label", SuField.FT.STRING);
+        }
+
+        private static void field(String name, SuField.FT type) {
+            SuField f = new SuField();
+            f.name = name;
+            f.fieldType = type;
+            FIELDS.add(f);
+        }
+
+        @Override
+        public RecordProperties getField() {
+            RecordProperties rp = new RecordProperties();
+            rp.fields = FIELDS;
+            rp.primaryKey = "notePK";
+            return rp;
+        }
+
+        @Override
+        public void process() {
+        }
+
+        @Override
+        public void _initialize() {
+        }
+
+        @Override
+        public boolean disableLog() {
+            return false;
+        }
+
+        @Override
+        public boolean getEmpty() {
+            return false;
+        }
+
+        @Override
+        public void setEmpty(boolean empty) {
+        }
+
+        @Override
+        public RecordManipulation save() {
+            return null;
+        }
+
+        @Override
+        public RecordManipulation delete() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package defsu.system.server.core;
+
+import defsu.system.server.utils.Enums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioConnectionCoreTest {
+    private static final String JS = "/sources/test/app.js";
+
+    @BeforeEach
+    void setUp() {
+        StaticAssetCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StaticAssetCache.clear();
+    }
+
+    private static ConnectionCore.ClientHandler handler(boolean keepAlive) {
+        ConnectionCore.ClientHandler ch = new ConnectionCore.ClientHandler("127.0.0.1",
+                new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), Enums.SocketType.HTTP);
+        ch.setKeepAlive(keepAlive);
+        return ch;
+    }
+
+    // NIO yolunda kanala gidecek baytların birleşimi
+    private static byte[] written(ConnectionCore.ClientHandler ch, StaticAssetCache.Response asset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] chunk : NioConnectionCore.assetChunks(ch, asset)) {
+            out.writeBytes(chunk);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void assetHeaderIsTerminatedBeforeBody() {
+        StaticAssetCache.Response asset = StaticAssetCache.respond(JS, "GET " + JS + " HTTP/1.1\r\n");
+        byte[] bytes = written(handler(false), asset);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        int end = text.indexOf("\r\n\r\n");
+
+        assertTrue(end > 0, text);
+        assertEquals(bytes.length - asset.body().length, end + 4);
+        assertArrayEquals(asset.body(), Arrays.copyOfRange(bytes, end + 4, bytes.length));
+        assertTrue(text.substring(0, end).contains("\r\nConnection: close"), text);
+    }
+
+    @Test
+    void keepAliveLinesAreWritten() {
+        StaticAssetCache.Response asset = StaticAssetCache.respond(JS, "GET " + JS + " HTTP/1.1\r\n");
+        String head = new String(written(handler(true), asset), StandardCharsets.ISO_8859_1).split("\r\n\r\n", 2)[0];
+
+        assertTrue(head.contains("\r\nConnection: keep-alive\r\nKeep-Alive: timeout="), head);
+    }
+
+    @Test
+    void notModifiedEndsWithHeaderTerminator() {
+        StaticAssetCache.Response first = StaticAssetCache.respond(JS, "GET " + JS + " HTTP/1.1\r\n");
+        String etag = ConnectionCore.getHeader(new String(first.header(), StandardCharsets.ISO_8859_1), "ETag");
+        StaticAssetCache.Response asset = StaticAssetCache.respond(JS, "GET " + JS + " HTTP/1.1\r\nIf-None-Match: " + etag + "\r\n");
+        String text = new String(written(handler(false), asset), StandardCharsets.ISO_8859_1);
+
+        assertNull(asset.body());
+        assertTrue(text.startsWith("HTTP/1.1 304 Not Modified\r\n"), text);
+        assertTrue(text.endsWith("\r\n\r\n"), text);
+        assertEquals(text.length() - 4, text.indexOf("\r\n\r\n"));
+    }
+}
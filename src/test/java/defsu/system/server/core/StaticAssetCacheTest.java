@@ -0,0 +1,217 @@
+package defsu.system.server.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAssetCacheTest {
+    private static final String JS = "/sources/test/app.js";
+    private static final String CSS = "/sources/test/small.css";
+    private static final String HTML = "/sources/test/page.html";
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private StringDictionary<String> _mimeTypes;
+    private long _maxTotalSize;
+
+    @BeforeEach
+    void setUp() {
+        this._mimeTypes = ConnectionCore.mimeTypes;
+        this._maxTotalSize = StaticAssetCache.MAX_TOTAL_SIZE;
+        StringDictionary<String> mimeTypes = new StringDictionary<>();
+        mimeTypes.put("js", "application/javascript");
+        mimeTypes.put("css", "text/css");
+        mimeTypes.put("html", "text/html; charset=UTF-8");
+        ConnectionCore.mimeTypes = mimeTypes;
+        StaticAssetCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConnectionCore.mimeTypes = this._mimeTypes;
+        StaticAssetCache.MAX_TOTAL_SIZE = this._maxTotalSize;
+        StaticAssetCache.ENABLED = true;
+        StaticAssetCache.clear();
+    }
+
+    private static String request(String... headers) {
+        StringBuilder sb = new StringBuilder("GET / HTTP/1.1\r\nHost: localhost\r\n");
+        for (String header : headers) {
+            sb.append(header).append("\r\n");
+        }
+        return sb.toString();
+    }
+
+    private static String header(StaticAssetCache.Response response) {
+        return new String(response.header(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String etag(StaticAssetCache.Response response) {
+        String etag = ConnectionCore.getHeader(header(response), "ETag");
+        return etag.substring(1, etag.length() - 1);
+    }
+
+    private static byte[] resource(String uri) throws IOException {
+        try (InputStream is = StaticAssetCacheTest.class.getResourceAsStream(uri)) {
+            return is.readAllBytes();
+        }
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return is.readAllBytes();
+        }
+    }
+
+    @Test
+    void missingFileReturnsNull() {
+        assertNull(StaticAssetCache.respond("/sources/test/none.js", request()));
+        assertEquals(0, StaticAssetCache.getSize());
+    }
+
+    @Test
+    void plainResponseWithoutAcceptEncoding() throws IOException {
+        StaticAssetCache.Response response = StaticAssetCache.respond(JS, request());
+        String header = header(response);
+
+        assertArrayEquals(resource(JS), response.body());
+        assertTrue(header.startsWith("HTTP/1.1 200 OK\r\n"), header);
+        assertEquals(Integer.toString(response.body().length), ConnectionCore.getHeader(header, "Content-Length"));
+        assertEquals("application/javascript", ConnectionCore.getHeader(header, "Content-Type"));
+        assertEquals("Accept-Encoding", ConnectionCore.getHeader(header, "Vary"));
+        assertNull(ConnectionCore.getHeader(header, "Content-Encoding"));
+        assertFalse(header.endsWith("\r\n\r\n"));
+    }
+
+    @Test
+    void gzipFollowsAcceptEncodingQValues() throws IOException {
+        byte[] content = resource(JS);
+        for (String accept : new String[]{"gzip", "GZIP", "deflate, gzip", "br, gzip;q=0.5", "gzip; q=1.0", "gzip;q=0.001"}) {
+            StaticAssetCache.Response response = StaticAssetCache.respond(JS, request("Accept-Encoding: " + accept));
+            String header = header(response);
+
+            assertEquals("gzip", ConnectionCore.getHeader(header, "Content-Encoding"), accept);
+            assertEquals(Integer.toString(response.body().length), ConnectionCore.getHeader(header, "Content-Length"), accept);
+            assertTrue(response.body().length < content.length, accept);
+            assertArrayEquals(content, gunzip(response.body()), accept);
+            assertTrue(ConnectionCore.getHeader(header, "ETag").endsWith("-gz\""), accept);
+        }
+        for (String accept : new String[]{"gzip;q=0", "gzip; q=0.000", "gzip;q=0.", "br", "deflate, br;q=0.9", "x-gzip", ""}) {
+            StaticAssetCache.Response response = StaticAssetCache.respond(JS, request("Accept-Encoding: " + accept));
+
+            assertNull(ConnectionCore.getHeader(header(response), "Content-Encoding"), accept);
+            assertArrayEquals(content, response.body(), accept);
+        }
+    }
+
+    @Test
+    void smallFileIsNotCompressed() throws IOException {
+        StaticAssetCache.Response response = StaticAssetCache.respond(CSS, request("Accept-Encoding: gzip"));
+        String header = header(response);
+
+        assertArrayEquals(resource(CSS), response.body());
+        assertNull(ConnectionCore.getHeader(header, "Content-Encoding"));
+        assertNull(ConnectionCore.getHeader(header, "Vary"));
+    }
+
+    @Test
+    void htmlIsRevalidated() {
+        String header = header(StaticAssetCache.respond(HTML, request()));
+
+        assertEquals("no-cache", ConnectionCore.getHeader(header, "Cache-Control"));
+        assertEquals("public, max-age=" + StaticAssetCache.MAX_AGE,
+                ConnectionCore.getHeader(header(StaticAssetCache.respond(CSS, request())), "Cache-Control"));
+    }
+
+    @Test
+    void matchingEtagReturnsNotModified() {
+        String etag = etag(StaticAssetCache.respond(JS, request()));
+        String[] matching = {"\"" + etag + "\"", "W/\"" + etag + "\"", "\"" + etag + "-gz\"", "*", "\"other\", \"" + etag + "\""};
+        for (String ifNoneMatch : matching) {
+            StaticAssetCache.Response response = StaticAssetCache.respond(JS, request("If-None-Match: " + ifNoneMatch));
+            String header = header(response);
+
+            assertNull(response.body(), ifNoneMatch);
+            assertTrue(header.startsWith("HTTP/1.1 304 Not Modified\r\n"), ifNoneMatch);
+            assertEquals("\"" + etag + "\"", ConnectionCore.getHeader(header, "ETag"), ifNoneMatch);
+            assertNull(ConnectionCore.getHeader(header, "Content-Length"), ifNoneMatch);
+        }
+    }
+
+    @Test
+    void differentEtagReturnsContent() {
+        StaticAssetCache.Response response = StaticAssetCache.respond(JS, request("If-None-Match: \"0-0\""));
+
+        assertNotNull(response.body());
+        assertTrue(header(response).startsWith("HTTP/1.1 200 OK"));
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+        String future = HTTP_DATE.format(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+        StaticAssetCache.Response response = StaticAssetCache.respond(JS,
+                request("If-None-Match: \"0-0\"", "If-Modified-Since: " + future));
+
+        assertNotNull(response.body());
+    }
+
+    @Test
+    void ifModifiedSinceComparesWithLastModified() {
+        String lastModified = ConnectionCore.getHeader(header(StaticAssetCache.respond(JS, request())), "Last-Modified");
+        ZonedDateTime date = ZonedDateTime.parse(lastModified, HTTP_DATE);
+
+        assertNull(StaticAssetCache.respond(JS, request("If-Modified-Since: " + lastModified)).body());
+        assertNull(StaticAssetCache.respond(JS, request("If-Modified-Since: " + HTTP_DATE.format(date.plusHours(1)))).body());
+        assertNotNull(StaticAssetCache.respond(JS, request("If-Modified-Since: " + HTTP_DATE.format(date.minusSeconds(1)))).body());
+        assertNotNull(StaticAssetCache.respond(JS, request("If-Modified-Since: dün")).body());
+    }
+
+    @Test
+    void assetIsCachedOnce() {
+        StaticAssetCache.Response first = StaticAssetCache.respond(JS, request("Accept-Encoding: gzip"));
+        long size = StaticAssetCache.getSize();
+        StaticAssetCache.Response second = StaticAssetCache.respond("/sources/./test/app.js", request("Accept-Encoding: gzip"));
+        StaticAssetCache.Response plain = StaticAssetCache.respond(JS, request());
+
+        assertSame(first.body(), second.body());
+        assertSame(first.header(), second.header());
+        assertEquals(plain.body().length + first.body().length, size);
+        assertEquals(size, StaticAssetCache.getSize());
+
+        StaticAssetCache.clear();
+        assertEquals(0, StaticAssetCache.getSize());
+    }
+
+    @Test
+    void assetOverLimitIsServedWithoutCaching() throws IOException {
+        StaticAssetCache.MAX_TOTAL_SIZE = 100;
+        StaticAssetCache.Response first = StaticAssetCache.respond(JS, request());
+        StaticAssetCache.Response second = StaticAssetCache.respond(JS, request());
+
+        assertArrayEquals(resource(JS), first.body());
+        assertNotSame(first.body(), second.body());
+        assertEquals(0, StaticAssetCache.getSize());
+
+        // Sınıra sığan küçük dosya yine önbelleğe alınır.
+        StaticAssetCache.respond(CSS, request());
+        assertEquals(resource(CSS).length, StaticAssetCache.getSize());
+    }
+
+    @Test
+    void disabledCacheStillServes() throws IOException {
+        StaticAssetCache.ENABLED = false;
+
+        assertArrayEquals(resource(JS), StaticAssetCache.respond(JS, request()).body());
+        assertEquals(0, StaticAssetCache.getSize());
+    }
+}
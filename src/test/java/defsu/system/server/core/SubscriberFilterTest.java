@@ -0,0 +1,265 @@
+package defsu.system.server.core;
+
+import defsu.system.server.helpers.Record;
+import defsu.system.server.helpers.RecordManipulation;
+import defsu.system.server.helpers.RecordValue;
+import defsu.system.server.helpers.SuField;
+import defsu.system.server.utils.Enums;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriberFilterTest {
+    private static final String CHANNEL = "defsu.system.projects.main.record.Account";
+    private static final SuField NAME = field("accountName", SuField.FT.STRING);
+    private static final SuField CODE = field("accountCode", SuField.FT.STRING);
+    private static final SuField STATUS = field("accountStatusFK", SuField.FT.BYTE_ARRAY);
+    private static final SuField COUNT = field("count", SuField.FT.INTEGER);
+    private static final SuField VISIBLE = field("visible", SuField.FT.BOOLEAN);
+
+    private static SuField field(String name, SuField.FT type) {
+        SuField f = new SuField();
+        f.name = name;
+        f.fieldType = type;
+        return f;
+    }
+
+    private static RecordValue value(SuField field, String value, String raw) {
+        RecordValue v = new RecordValue(field);
+        v.setValue(value);
+        v.setRawValue(raw);
+        return v;
+    }
+
+    private static RecordManipulation manipulation(Enums.ManipulationType type, RecordValue... values) {
+        RecordManipulation manip = new RecordManipulation();
+        manip.type = type;
+        manip.targetClass = CHANNEL;
+        manip.record = new Record();
+        Collections.addAll(manip.record.getValues(), values);
+        return manip;
+    }
+
+    private static StringDictionary<StringDictionary<String>> limits(String... viewIdAndSearch) {
+        StringDictionary<StringDictionary<String>> limits = new StringDictionary<>();
+        for (int k = 0; k < viewIdAndSearch.length; k += 2) {
+            StringDictionary<String> params = new StringDictionary<>();
+            params.put("@viewId", viewIdAndSearch[k]);
+            params.put("@viewType", "grid");
+            params.put("@search", viewIdAndSearch[k + 1]);
+            limits.put(CHANNEL + '|' + viewIdAndSearch[k], params);
+        }
+        return limits;
+    }
+
+    /**
+     * Eski checkLimit'in bir görünüm için verdiği karar (WSUpdateCore, SubscriberFilter öncesi).
+     * Eski kodda found görünümler arasında sıfırlanmadığı için ilk eşleşmeden sonraki görünümler de kopya alıyordu;
+     * bu hata taşınmadı, karşılaştırma görünüm başınadır.
+     */
+    private static boolean oldCheckLimit(StringDictionary<String> params, RecordManipulation manip) {
+        if (manip.type != Enums.ManipulationType.INSERT && manip.type != Enums.ManipulationType.UPDATE) {
+            return true;
+        }
+        String searchStr = params.get("@search", "");
+        if (searchStr.isEmpty()) {
+            return true;
+        }
+        String[] searchParams = searchStr.split(";");
+        int matchingFilters = 0;
+        for (String param : searchParams) {
+            String[] paramParts = param.split("=");
+            if (paramParts.length > 1 && paramParts[1].endsWith("~")) {
+                ++matchingFilters;
+            } else {
+                RecordValue value = manip.record.getRecordValue(paramParts[0]);
+                String valueStr = value != null ? value.rawValue() : "";
+                if (valueStr.isEmpty() && value != null) {
+                    valueStr = value.getValue();
+                }
+                for (String paramValue : paramParts[1].split("\\|")) {
+                    if (value != null && value.getField().fieldType == SuField.FT.STRING && valueStr.contains(paramValue)) {
+                        ++matchingFilters;
+                        break;
+                    } else if (valueStr.equals(paramValue)) {
+                        ++matchingFilters;
+                        break;
+                    }
+                }
+            }
+        }
+        return matchingFilters == searchParams.length;
+    }
+
+    private static List<String> routed(SubscriberFilter filter, RecordManipulation manip) {
+        List<RecordManipulation> out = new ArrayList<>();
+        boolean found = filter.route(manip, out);
+        List<String> views = new ArrayList<>();
+        for (RecordManipulation mm : out) {
+            assertSame(manip.record, mm.record);
+            assertEquals(manip.type, mm.type);
+            views.add(mm.targetView);
+        }
+        assertEquals(!views.isEmpty(), found);
+        Collections.sort(views);
+        return views;
+    }
+
+    private static List<String> expected(StringDictionary<StringDictionary<String>> limits, RecordManipulation manip) {
+        List<String> views = new ArrayList<>();
+        for (String key : limits.keyList()) {
+            if (oldCheckLimit(limits.get(key), manip)) {
+                views.add(limits.get(key).get("@viewId"));
+            }
+        }
+        Collections.sort(views);
+        return views;
+    }
+
+    @Test
+    void emptyFilterRoutesNothing() {
+        List<RecordManipulation> out = new ArrayList<>();
+        assertSame(SubscriberFilter.EMPTY, SubscriberFilter.compile(new StringDictionary<>()));
+        assertFalse(SubscriberFilter.EMPTY.route(manipulation(Enums.ManipulationType.INSERT), out));
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void deleteGoesToEveryView() {
+        SubscriberFilter filter = SubscriberFilter.compile(limits("a", "count=1", "b", "accountName=x"));
+        assertEquals(List.of("a", "b"), routed(filter, manipulation(Enums.ManipulationType.DELETE)));
+    }
+
+    @Test
+    void stringFieldsMatchBySubstringOthersExactly() {
+        SubscriberFilter filter = SubscriberFilter.compile(limits(
+                "name", "accountName=kar",
+                "count", "count=1",
+                "either", "count=7|12",
+                "both", "accountName=Ank;count=12",
+                "typed", "accountName=abc~",
+                "all", ""));
+        RecordManipulation manip = manipulation(Enums.ManipulationType.UPDATE,
+                value(NAME, "Ankara", ""), value(COUNT, "12", ""));
+
+        assertEquals(List.of("all", "both", "either", "name", "typed"), routed(filter, manip));
+    }
+
+    @Test
+    void rawValueIsPreferredOverDisplayValue() {
+        SubscriberFilter filter = SubscriberFilter.compile(limits("raw", "accountStatusFK=00ff", "shown", "accountStatusFK=Aktif"));
+        RecordManipulation manip = manipulation(Enums.ManipulationType.INSERT, value(STATUS, "Aktif", "00ff"));
+
+        assertEquals(List.of("raw"), routed(filter, manip));
+        assertEquals(expected(limits("raw", "accountStatusFK=00ff", "shown", "accountStatusFK=Aktif"), manip), routed(filter, manip));
+    }
+
+    @Test
+    void missingFieldMatchesOnlyEmptyValue() {
+        StringDictionary<StringDictionary<String>> limits = limits("count", "count=3", "name", "accountName=x");
+        SubscriberFilter filter = SubscriberFilter.compile(limits);
+        RecordManipulation manip = manipulation(Enums.ManipulationType.INSERT, value(VISIBLE, "true", ""));
+
+        assertEquals(List.of(), routed(filter, manip));
+        assertEquals(expected(limits, manip), routed(filter, manip));
+    }
+
+    @Test
+    void termWithoutValueMatchesNothing() {
+        // Eski checkLimit burada ArrayIndexOutOfBoundsException atıyordu
+        SubscriberFilter filter = SubscriberFilter.compile(limits("broken", "count", "ok", "count=1"));
+        assertEquals(List.of("ok"), routed(filter, manipulation(Enums.ManipulationType.INSERT, value(COUNT, "1", ""))));
+    }
+
+    @Test
+    void indexedViewsAreRoutedByValue() {
+        String[] limits = new String[400];
+        for (int k = 0; k < 200; k++) {
+            limits[2 * k] = "v" + k;
+            limits[2 * k + 1] = "count=" + k + ";visible=true";
+        }
+        SubscriberFilter filter = SubscriberFilter.compile(limits(limits));
+        assertEquals(200, filter.getViewCount());
+
+        assertEquals(List.of("v42"), routed(filter, manipulation(Enums.ManipulationType.INSERT, value(COUNT, "42", ""), value(VISIBLE, "true", ""))));
+        assertEquals(List.of(), routed(filter, manipulation(Enums.ManipulationType.INSERT, value(COUNT, "42", ""), value(VISIBLE, "false", ""))));
+        assertEquals(List.of("v7"), routed(filter, manipulation(Enums.ManipulationType.UPDATE, value(VISIBLE, "true", ""), value(COUNT, "7", ""))));
+        assertEquals(List.of(), routed(filter, manipulation(Enums.ManipulationType.UPDATE, value(COUNT, "200", ""), value(VISIBLE, "true", ""))));
+    }
+
+    @Test
+    void matchesOldCheckLimitOnRandomViewsAndRecords() {
+        SuField[] fields = {NAME, CODE, STATUS, COUNT, VISIBLE};
+        String[][] domain = {
+                {"Ankara", "İzmir", "Bursa", "Kar"},
+                {"A1", "A12", "B2", ""},
+                {"00aa", "00bb", "00cc"},
+                {"1", "2", "12", "0"},
+                {"true", "false"}
+        };
+        String[][] searchValues = {
+                {"Ank", "ir", "a", "Kar", "x", "A"},
+                {"A1", "A", "B2", "C"},
+                {"00aa", "00bb", "00dd", "Aktif"},
+                {"1", "2", "12", "3"},
+                {"true", "false"}
+        };
+        Enums.ManipulationType[] types = {Enums.ManipulationType.INSERT, Enums.ManipulationType.UPDATE, Enums.ManipulationType.DELETE};
+        Random random = new Random(20240601);
+
+        for (int round = 0; round < 300; round++) {
+            List<String> views = new ArrayList<>();
+            int viewCount = 1 + random.nextInt(12);
+            for (int v = 0; v < viewCount; v++) {
+                StringBuilder search = new StringBuilder();
+                int terms = random.nextInt(4);
+                for (int t = 0; t < terms; t++) {
+                    int f = random.nextInt(fields.length);
+                    if (search.length() > 0) {
+                        search.append(';');
+                    }
+                    search.append(fields[f].name).append('=').append(searchValues[f][random.nextInt(searchValues[f].length)]);
+                    if (random.nextInt(4) == 0) {
+                        search.append('|').append(searchValues[f][random.nextInt(searchValues[f].length)]);
+                    }
+                    if (random.nextInt(8) == 0) {
+                        search.append('~');
+                    }
+                }
+                views.add("view" + v);
+                views.add(search.toString());
+            }
+            StringDictionary<StringDictionary<String>> limits = limits(views.toArray(new String[0]));
+            SubscriberFilter filter = SubscriberFilter.compile(limits);
+
+            for (int m = 0; m < 20; m++) {
+                List<RecordValue> values = new ArrayList<>();
+                for (int f = 0; f < fields.length; f++) {
+                    if (random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    String v = domain[f][random.nextInt(domain[f].length)];
+                    // Yabancı anahtarlarda ham değer hex, gösterilen değer ad olur
+                    values.add(fields[f] == STATUS ? value(STATUS, "Durum " + v, v) : value(fields[f], v, ""));
+                }
+                Collections.shuffle(values, random);
+                RecordManipulation manip = manipulation(types[random.nextInt(types.length)], values.toArray(new RecordValue[0]));
+
+                assertEquals(expected(limits, manip), routed(filter, manip), "round " + round + " limits " + views + " values " + describe(values));
+            }
+        }
+    }
+
+    private static String describe(List<RecordValue> values) {
+        StringBuilder sb = new StringBuilder();
+        for (RecordValue v : values) {
+            sb.append(v.getField().name).append('=').append(v.getValue()).append('/').append(v.rawValue()).append(' ');
+        }
+        return sb.toString();
+    }
+}
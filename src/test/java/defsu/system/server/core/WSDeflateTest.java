@@ -0,0 +1,258 @@
+package defsu.system.server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WSDeflateTest {
+    private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+
+    /**
+     * Sunucunun gönderdiği bir mesajın çerçeveleri ve birleştirilmiş yükü.
+     */
+    private record Sent(List<WSFrameCodec> frames, byte[] payload) {
+        boolean compressed() {
+            return this.frames.get(0).rsv1;
+        }
+    }
+
+    private static String text(int length, long seed) {
+        String[] words = {"kayıt", "müşteri", "sipariş", "fatura", "ürün", "adres", "şehir", "tutar", "tarih", "durum"};
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            sb.append('{').append(words[random.nextInt(words.length)]).append(':').append(random.nextInt(100_000)).append("},");
+        }
+        return sb.substring(0, length);
+    }
+
+    private static List<Sent> parse(byte[] wire) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(wire));
+        List<Sent> messages = new ArrayList<>();
+        List<WSFrameCodec> frames = new ArrayList<>();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        while (in.available() > 0) {
+            WSFrameCodec codec = new WSFrameCodec();
+            codec.readHeader(in);
+            byte[] data = new byte[(int) codec.length];
+            codec.readPayload(in, data, 0);
+            frames.add(codec);
+            payload.write(data);
+            if (codec.fin) {
+                messages.add(new Sent(frames, payload.toByteArray()));
+                frames = new ArrayList<>();
+                payload = new ByteArrayOutputStream();
+            }
+        }
+        return messages;
+    }
+
+    private static byte[] clientInflate(Inflater inflater, byte[] payload) throws DataFormatException {
+        byte[] data = Arrays.copyOf(payload, payload.length + TAIL.length);
+        System.arraycopy(TAIL, 0, data, payload.length, TAIL.length);
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = inflater.inflate(chunk)) > 0) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] clientDeflate(Deflater deflater, byte[] raw) {
+        deflater.setInput(raw);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH)) > 0) {
+            out.write(chunk, 0, n);
+            if (n < chunk.length) {
+                break;
+            }
+        }
+        byte[] data = out.toByteArray();
+        assertArrayEquals(TAIL, Arrays.copyOfRange(data, data.length - TAIL.length, data.length));
+        return Arrays.copyOf(data, data.length - TAIL.length);
+    }
+
+    private static List<Sent> send(String offer, String... messages) throws IOException {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        WS ws = new WS(new DataInputStream(new ByteArrayInputStream(new byte[0])), new DataOutputStream(wire));
+        ws.setDeflate(WSDeflate.negotiate(offer));
+        for (String message : messages) {
+            assertTrue(ws.write(new WS.WebSocketMessage(message)));
+        }
+        return parse(wire.toByteArray());
+    }
+
+    @Test
+    void negotiatesSupportedOffers() {
+        assertNull(WSDeflate.negotiate(null));
+        assertNull(WSDeflate.negotiate("x-webkit-deflate-frame"));
+        assertEquals("Sec-WebSocket-Extensions: permessage-deflate\r\n",
+                WSDeflate.negotiate("permessage-deflate; client_max_window_bits").responseHeader());
+        assertEquals("Sec-WebSocket-Extensions: permessage-deflate; server_no_context_takeover; client_no_context_takeover\r\n",
+                WSDeflate.negotiate("permessage-deflate; server_no_context_takeover; client_no_context_takeover").responseHeader());
+        assertNotNull(WSDeflate.negotiate("permessage-deflate; server_max_window_bits=\"15\""));
+    }
+
+    @Test
+    void rejectsSmallServerWindowAndUnknownParameters() {
+        assertNull(WSDeflate.negotiate("permessage-deflate; server_max_window_bits=10"));
+        assertNull(WSDeflate.negotiate("permessage-deflate; unknown_parameter"));
+        // İlk teklif reddedilirse sıradaki denenir
+        assertEquals("Sec-WebSocket-Extensions: permessage-deflate; client_no_context_takeover\r\n",
+                WSDeflate.negotiate("permessage-deflate; server_max_window_bits=10, permessage-deflate; client_no_context_takeover").responseHeader());
+    }
+
+    @Test
+    void disabledNegotiatesNothing() {
+        boolean enabled = WSDeflate.ENABLED;
+        WSDeflate.ENABLED = false;
+        try {
+            assertNull(WSDeflate.negotiate("permessage-deflate"));
+        } finally {
+            WSDeflate.ENABLED = enabled;
+        }
+    }
+
+    @Test
+    void sentMessageHasNoSyncFlushTailAndInflates() throws Exception {
+        String message = text(5000, 1);
+        Sent sent = send("permessage-deflate", message).get(0);
+
+        assertTrue(sent.compressed());
+        assertTrue(sent.payload().length < message.length() / 2);
+        byte[] payload = sent.payload();
+        assertFalse(Arrays.equals(TAIL, Arrays.copyOfRange(payload, payload.length - TAIL.length, payload.length)));
+        assertEquals(message, new String(clientInflate(new Inflater(true), payload), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeMessageIsSplitWithRsv1OnlyOnFirstFrame() throws Exception {
+        String message = text(WSOutbound.CHUNK_SIZE * 5 + 123, 2);
+        Sent sent = send("permessage-deflate", message).get(0);
+
+        assertTrue(sent.frames().size() > 1);
+        assertTrue(sent.frames().get(0).rsv1);
+        for (int k = 1; k < sent.frames().size(); k++) {
+            assertFalse(sent.frames().get(k).rsv1);
+            assertEquals(WSFrameCodec.OP_CONTINUATION, sent.frames().get(k).opcode);
+        }
+        assertEquals(message, new String(clientInflate(new Inflater(true), sent.payload()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void smallMessageIsSentUncompressed() throws IOException {
+        // MIN_SIZE bayt cinsindendir
+        String message = "a".repeat(WSDeflate.MIN_SIZE - 1);
+        Sent sent = send("permessage-deflate", message).get(0);
+
+        assertFalse(sent.compressed());
+        assertEquals(message, new String(sent.payload(), StandardCharsets.UTF_8));
+        message = "ş".repeat(WSDeflate.MIN_SIZE / 2);
+        sent = send("permessage-deflate", message).get(0);
+        assertTrue(sent.compressed());
+    }
+
+    @Test
+    void smallMessageIsSentUncompressedForMultiByteText() throws IOException {
+        String message = "ş".repeat(WSDeflate.MIN_SIZE / 2 - 1);
+        Sent sent = send("permessage-deflate", message).get(0);
+
+        assertFalse(sent.compressed());
+        assertEquals(message, new String(sent.payload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void contextTakeoverShrinksRepeatedMessages() throws Exception {
+        String message = text(20_000, 4);
+        List<Sent> sent = send("permessage-deflate", message, message);
+
+        Inflater client = new Inflater(true);
+        assertEquals(message, new String(clientInflate(client, sent.get(0).payload()), StandardCharsets.UTF_8));
+        assertEquals(message, new String(clientInflate(client, sent.get(1).payload()), StandardCharsets.UTF_8));
+        // İkinci mesaj ilkine geri başvurur
+        assertTrue(sent.get(1).payload().length * 4 < sent.get(0).payload().length);
+    }
+
+    @Test
+    void serverNoContextTakeoverMakesEveryMessageStandalone() throws Exception {
+        String message = text(20_000, 5);
+        List<Sent> sent = send("permessage-deflate; server_no_context_takeover", message, message);
+
+        assertArrayEquals(sent.get(0).payload(), sent.get(1).payload());
+        assertEquals(message, new String(clientInflate(new Inflater(true), sent.get(1).payload()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void inflatesClientMessagesWithSharedContext() throws IOException {
+        WSDeflate deflate = WSDeflate.negotiate("permessage-deflate");
+        Deflater client = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] first = text(3000, 6).getBytes(StandardCharsets.UTF_8);
+        byte[] second = text(3000, 6).getBytes(StandardCharsets.UTF_8);
+
+        byte[] wire = clientDeflate(client, first);
+        assertArrayEquals(first, deflate.inflate(wire, 0, wire.length));
+        wire = clientDeflate(client, second);
+        byte[] shifted = new byte[wire.length + 3];
+        System.arraycopy(wire, 0, shifted, 3, wire.length);
+        assertArrayEquals(second, deflate.inflate(shifted, 3, wire.length));
+        deflate.end();
+    }
+
+    @Test
+    void clientNoContextTakeoverResetsInflater() throws IOException {
+        WSDeflate deflate = WSDeflate.negotiate("permessage-deflate; client_no_context_takeover");
+        byte[] message = text(3000, 7).getBytes(StandardCharsets.UTF_8);
+        for (int k = 0; k < 3; k++) {
+            byte[] wire = clientDeflate(new Deflater(Deflater.DEFAULT_COMPRESSION, true), message);
+            assertArrayEquals(message, deflate.inflate(wire, 0, wire.length));
+        }
+        deflate.end();
+    }
+
+    @Test
+    void invalidDataThrowsIOException() {
+        WSDeflate deflate = WSDeflate.negotiate("permessage-deflate");
+        byte[] garbage = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 2, 3};
+        assertThrows(IOException.class, () -> deflate.inflate(garbage, 0, garbage.length));
+        deflate.end();
+    }
+
+    @Test
+    void wsReadInflatesCompressedMessage() throws IOException {
+        String message = text(4000, 8);
+        byte[] payload = clientDeflate(new Deflater(Deflater.DEFAULT_COMPRESSION, true), message.getBytes(StandardCharsets.UTF_8));
+        int cut = payload.length / 2;
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        byte[] header = new byte[WSFrameCodec.headerLength(cut)];
+        WSFrameCodec.writeHeader(header, 0, false, WSFrameCodec.OP_TEXT, cut);
+        header[0] |= WSFrameCodec.RSV1;
+        frames.write(header);
+        frames.write(payload, 0, cut);
+        header = new byte[WSFrameCodec.headerLength(payload.length - cut)];
+        WSFrameCodec.writeHeader(header, 0, true, WSFrameCodec.OP_CONTINUATION, payload.length - cut);
+        frames.write(header);
+        frames.write(payload, cut, payload.length - cut);
+
+        WS ws = new WS(new DataInputStream(new ByteArrayInputStream(frames.toByteArray())), new DataOutputStream(new ByteArrayOutputStream()));
+        ws.setDeflate(WSDeflate.negotiate("permessage-deflate"));
+        assertEquals(message, ws.read().getBody());
+    }
+}
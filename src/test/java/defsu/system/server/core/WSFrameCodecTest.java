@@ -0,0 +1,190 @@
+package defsu.system.server.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WSFrameCodecTest {
+    private static final int[] MASKS = {0, -1, 0x12345678, 0x80000001, 0xA5C3E10F};
+    private static final long[] LENGTHS = {0, 1, 7, 8, 9, 125, 126, 127, 1000, 65535, 65536, 70001};
+
+    // RFC 6455 5.3: j. bayt, maskenin (j mod 4). baytı ile XOR'lanır
+    private static void unmaskByteByByte(byte[] buf, int offset, int length, int mask, long position) {
+        for (int k = 0; k < length; k++) {
+            int shift = 24 - 8 * (int) ((position + k) & 3);
+            buf[offset + k] ^= (byte) (mask >>> shift);
+        }
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] frame(boolean fin, boolean rsv1, int opcode, Integer mask, byte[] payload, long declaredLength) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write((fin ? 0x80 : 0) | (rsv1 ? WSFrameCodec.RSV1 : 0) | opcode);
+        int maskBit = mask != null ? 0x80 : 0;
+        if (declaredLength < 126) {
+            out.write(maskBit | (int) declaredLength);
+        } else if (declaredLength <= 0xFFFF) {
+            out.write(maskBit | 126);
+            out.writeShort((int) declaredLength);
+        } else {
+            out.write(maskBit | 127);
+            out.writeLong(declaredLength);
+        }
+        byte[] body = payload.clone();
+        if (mask != null) {
+            out.writeInt(mask);
+            unmaskByteByByte(body, 0, body.length, mask, 0);
+        }
+        out.write(body);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void unmaskMatchesByteByByteForEveryOffsetAndPosition() {
+        for (int mask : MASKS) {
+            for (int length = 0; length <= 40; length++) {
+                for (int offset = 0; offset < 4; offset++) {
+                    for (long position = 0; position < 8; position++) {
+                        byte[] data = random(length + offset + 3, length * 31L + offset);
+                        byte[] expected = data.clone();
+                        unmaskByteByByte(expected, offset, length, mask, position);
+                        WSFrameCodec.unmask(data, offset, length, mask, position);
+                        assertArrayEquals(expected, data, "mask=" + Integer.toHexString(mask) + " length=" + length
+                                + " offset=" + offset + " position=" + position);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void unmaskIsItsOwnInverse() {
+        byte[] original = random(1031, 7);
+        byte[] data = original.clone();
+        WSFrameCodec.unmask(data, 0, data.length, 0x0BADF00D, 3);
+        assertFalse(Arrays.equals(original, data));
+        WSFrameCodec.unmask(data, 0, data.length, 0x0BADF00D, 3);
+        assertArrayEquals(original, data);
+    }
+
+    @Test
+    void unmaskInPiecesEqualsUnmaskAtOnce() {
+        byte[] whole = random(1000, 11);
+        byte[] pieces = whole.clone();
+        int mask = 0x3C5AF00F;
+        WSFrameCodec.unmask(whole, 0, whole.length, mask, 0);
+        int[] cuts = {0, 1, 5, 13, 64, 65, 333, 999, 1000};
+        for (int k = 0; k + 1 < cuts.length; k++) {
+            WSFrameCodec.unmask(pieces, cuts[k], cuts[k + 1] - cuts[k], mask, cuts[k]);
+        }
+        assertArrayEquals(whole, pieces);
+    }
+
+    @Test
+    void readsMaskedAndUnmaskedFramesOfEveryLengthEncoding() throws IOException {
+        WSFrameCodec codec = new WSFrameCodec();
+        for (long length : LENGTHS) {
+            for (Integer mask : new Integer[]{null, 0, 0xDEADBEEF}) {
+                byte[] payload = random((int) length, length);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame(true, false, WSFrameCodec.OP_BINARY, mask, payload, length)));
+
+                codec.readHeader(in);
+                assertTrue(codec.fin);
+                assertFalse(codec.rsv1);
+                assertEquals(WSFrameCodec.OP_BINARY, codec.opcode);
+                assertEquals(mask != null, codec.masked);
+                assertEquals(mask == null ? 0 : mask, codec.mask);
+                assertEquals(length, codec.length);
+
+                byte[] dst = new byte[(int) length + 2];
+                codec.readPayload(in, dst, 2);
+                assertArrayEquals(payload, Arrays.copyOfRange(dst, 2, dst.length), "length=" + length + " mask=" + mask);
+                assertEquals(-1, in.read());
+            }
+        }
+    }
+
+    @Test
+    void readsFlagsAndControlOpcodes() throws IOException {
+        WSFrameCodec codec = new WSFrameCodec();
+        codec.readHeader(new DataInputStream(new ByteArrayInputStream(frame(false, true, WSFrameCodec.OP_TEXT, 1, new byte[0], 0))));
+        assertFalse(codec.fin);
+        assertTrue(codec.rsv1);
+        assertFalse(codec.isControl());
+
+        for (int opcode : new int[]{WSFrameCodec.OP_CLOSE, WSFrameCodec.OP_PING, WSFrameCodec.OP_PONG}) {
+            codec.readHeader(new DataInputStream(new ByteArrayInputStream(frame(true, false, opcode, 1, new byte[0], 0))));
+            assertEquals(opcode, codec.opcode);
+            assertTrue(codec.isControl());
+        }
+    }
+
+    @Test
+    void rejectsOversizedAndNegativeLengths() throws IOException {
+        WSFrameCodec codec = new WSFrameCodec();
+        byte[] tooLarge = frame(true, false, WSFrameCodec.OP_TEXT, 1, new byte[0], WSFrameCodec.MAX_MESSAGE_SIZE + 1);
+        assertThrows(IOException.class, () -> codec.readHeader(new DataInputStream(new ByteArrayInputStream(tooLarge))));
+
+        byte[] negative = frame(true, false, WSFrameCodec.OP_TEXT, 1, new byte[0], 0x10000);
+        // 64 bitlik uzunluğun en üst biti set edilir
+        negative[2] = (byte) 0x80;
+        assertThrows(IOException.class, () -> codec.readHeader(new DataInputStream(new ByteArrayInputStream(negative))));
+    }
+
+    @Test
+    void writtenHeaderIsReadBack() throws IOException {
+        WSFrameCodec codec = new WSFrameCodec();
+        for (long length : LENGTHS) {
+            byte[] header = new byte[WSFrameCodec.headerLength(length) + 1];
+            WSFrameCodec.writeHeader(header, 1, length % 2 == 0, WSFrameCodec.OP_TEXT, length);
+            codec.readHeader(new DataInputStream(new ByteArrayInputStream(header, 1, header.length - 1)));
+
+            assertEquals(length % 2 == 0, codec.fin);
+            assertEquals(WSFrameCodec.OP_TEXT, codec.opcode);
+            assertFalse(codec.masked);
+            assertEquals(length, codec.length);
+        }
+        assertEquals(2, WSFrameCodec.headerLength(125));
+        assertEquals(4, WSFrameCodec.headerLength(126));
+        assertEquals(4, WSFrameCodec.headerLength(65535));
+        assertEquals(10, WSFrameCodec.headerLength(65536));
+    }
+
+    @Test
+    void wsReadJoinsMaskedFragmentsAroundAPing() throws IOException {
+        String text = "ğüşİöç-" + "x".repeat(70_000);
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        int cut = 65_540;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(frame(false, false, WSFrameCodec.OP_TEXT, 0x11223344, Arrays.copyOfRange(body, 0, 3), 3));
+        stream.write(frame(true, false, WSFrameCodec.OP_PING, 0x55667788, "p".getBytes(StandardCharsets.UTF_8), 1));
+        stream.write(frame(false, false, WSFrameCodec.OP_CONTINUATION, 0x99AABBCC, Arrays.copyOfRange(body, 3, cut), cut - 3));
+        stream.write(frame(true, false, WSFrameCodec.OP_CONTINUATION, 0xDDEEFF00, Arrays.copyOfRange(body, cut, body.length), body.length - cut));
+        stream.write(frame(true, false, WSFrameCodec.OP_CLOSE, 1, new byte[0], 0));
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        WS ws = new WS(new DataInputStream(new ByteArrayInputStream(stream.toByteArray())), new DataOutputStream(sent));
+
+        WS.WebSocketMessage message = ws.read();
+        assertNotNull(message);
+        assertEquals(text, message.getBody());
+        // Araya giren ping'e maskesiz pong ile cevap verilir
+        assertArrayEquals(new byte[]{(byte) 0x8A, 1, 'p'}, sent.toByteArray());
+        assertNull(ws.read());
+    }
+}
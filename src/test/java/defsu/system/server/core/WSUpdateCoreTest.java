@@ -0,0 +1,64 @@
+package defsu.system.server.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WSUpdateCoreTest {
+    private final List<SessionCore> _sessions = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (SessionCore sc : this._sessions) {
+            SessionRegistry.remove(sc);
+            WSUpdateCore.sessionRemoved(sc.getSessionID());
+        }
+    }
+
+    private SessionCore start(String sessionID) {
+        SessionCore sc = SessionCore.start(sessionID);
+        if (!this._sessions.contains(sc)) {
+            this._sessions.add(sc);
+        }
+        return sc;
+    }
+
+    @Test
+    void renameReleasesUnusedOldSignal() throws InterruptedException {
+        String oldID = UUID.randomUUID().toString();
+        start(oldID);
+        WSUpdateCore.Signal oldSignal = WSUpdateCore.getSignal(oldID);
+        int[] woken = {0};
+        oldSignal.addListener(() -> woken[0]++);
+
+        start(UUID.randomUUID().toString());
+
+        // Bekleyenler uyandırılır ve eski id için yeni bir sinyal üretilir (eskisi bırakılmıştır).
+        assertEquals(1, woken[0]);
+        assertTrue(oldSignal.await(0));
+        assertNotSame(oldSignal, WSUpdateCore.getSignal(oldID));
+        WSUpdateCore.sessionRemoved(oldID);
+    }
+
+    @Test
+    void renameKeepsSignalUsedByAnotherContext() throws InterruptedException {
+        String sharedID = UUID.randomUUID().toString();
+        SessionCore[] other = new SessionCore[1];
+        Thread thread = new Thread(() -> other[0] = SessionCore.start(sharedID));
+        thread.start();
+        thread.join();
+        this._sessions.add(other[0]);
+        start(sharedID);
+        WSUpdateCore.Signal sharedSignal = WSUpdateCore.getSignal(sharedID);
+
+        start(UUID.randomUUID().toString());
+
+        assertSame(sharedSignal, WSUpdateCore.getSignal(sharedID));
+        assertFalse(sharedSignal.await(0));
+    }
+}
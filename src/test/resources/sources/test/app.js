@@ -0,0 +1,61 @@
+/* StaticAssetCache testi için sıkıştırılabilir dosya */
+function item0(value) { return value + 0; }
+function item1(value) { return value + 1; }
+function item2(value) { return value + 2; }
+function item3(value) { return value + 3; }
+function item4(value) { return value + 4; }
+function item5(value) { return value + 5; }
+function item6(value) { return value + 6; }
+function item7(value) { return value + 7; }
+function item8(value) { return value + 8; }
+function item9(value) { return value + 9; }
+function item10(value) { return value + 10; }
+function item11(value) { return value + 11; }
+function item12(value) { return value + 12; }
+function item13(value) { return value + 13; }
+function item14(value) { return value + 14; }
+function item15(value) { return value + 15; }
+function item16(value) { return value + 16; }
+function item17(value) { return value + 17; }
+function item18(value) { return value + 18; }
+function item19(value) { return value + 19; }
+function item20(value) { return value + 20; }
+function item21(value) { return value + 21; }
+function item22(value) { return value + 22; }
+function item23(value) { return value + 23; }
+function item24(value) { return value + 24; }
+function item25(value) { return value + 25; }
+function item26(value) { return value + 26; }
+function item27(value) { return value + 27; }
+function item28(value) { return value + 28; }
+function item29(value) { return value + 29; }
+function item30(value) { return value + 30; }
+function item31(value) { return value + 31; }
+function item32(value) { return value + 32; }
+function item33(value) { return value + 33; }
+function item34(value) { return value + 34; }
+function item35(value) { return value + 35; }
+function item36(value) { return value + 36; }
+function item37(value) { return value + 37; }
+function item38(value) { return value + 38; }
+function item39(value) { return value + 39; }
+function item40(value) { return value + 40; }
+function item41(value) { return value + 41; }
+function item42(value) { return value + 42; }
+function item43(value) { return value + 43; }
+function item44(value) { return value + 44; }
+function item45(value) { return value + 45; }
+function item46(value) { return value + 46; }
+function item47(value) { return value + 47; }
+function item48(value) { return value + 48; }
+function item49(value) { return value + 49; }
+function item50(value) { return value + 50; }
+function item51(value) { return value + 51; }
+function item52(value) { return value + 52; }
+function item53(value) { return value + 53; }
+function item54(value) { return value + 54; }
+function item55(value) { return value + 55; }
+function item56(value) { return value + 56; }
+function item57(value) { return value + 57; }
+function item58(value) { return value + 58; }
+function item59(value) { return value + 59; }